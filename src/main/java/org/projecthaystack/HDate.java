@@ -103,22 +103,34 @@ public class HDate extends HVal
   /** Encode as "d:YYYY-MM-DD" */
   public String toJson()
   {
-    StringBuffer s = new StringBuffer();
-    s.append("d:");
-    encode(s);
+    StringBuilder s = new StringBuilder(12);
+    encodeJson(s);
     return s.toString();
   }
 
   /** Encode as "YYYY-MM-DD" */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder(10);
     encode(s);
     return s.toString();
   }
 
+  /** Append as "d:YYYY-MM-DD" */
+  public void encodeJson(StringBuilder s)
+  {
+    s.append("d:");
+    encode(s);
+  }
+
+  /** Append as "YYYY-MM-DD" */
+  public void encodeZinc(StringBuilder s)
+  {
+    encode(s);
+  }
+
   /** Package private implementation shared with HDateTime */
-  void encode(StringBuffer s)
+  void encode(StringBuilder s)
   {
     s.append(year).append('-');
     if (month < 10) s.append('0'); s.append(month).append('-');
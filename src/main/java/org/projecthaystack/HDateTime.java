@@ -9,7 +9,6 @@ package org.projecthaystack;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
-import java.util.TimeZone;
 
 import org.projecthaystack.io.HZincReader;
 
@@ -122,7 +121,7 @@ public class HDateTime extends HVal
     int tzHours = Integer.parseInt(s.substring(1, 3));
     if (s.charAt(3) != ':') throw new ParseException("Invalid tz offset: " + s);
     int tzMins = Integer.parseInt(s.substring(4));
-    return sign * (tzHours * 3600) + (tzMins * 60);
+    return sign * (tzHours * 3600 + tzMins * 60);
   }
 
   /** Get HDateTime for current time in default timezone */
@@ -163,16 +162,26 @@ public class HDateTime extends HVal
   {
     if (millis <= 0)
     {
-      GregorianCalendar c = new GregorianCalendar(date.year, date.month-1, date.day, time.hour, time.min, time.sec);
-      c.setTimeZone(utc);
-      c.set(Calendar.MILLISECOND, time.ms);
-      c.set(Calendar.ZONE_OFFSET, tzOffset*1000);
-      millis = c.getTimeInMillis();
+      long secs = epochDay(date.year, date.month, date.day) * 86400L +
+                  time.hour * 3600 + time.min * 60 + time.sec - tzOffset;
+      millis = secs * 1000L + time.ms;
     }
     return millis;
   }
   private volatile long millis;
 
+  /** Days since 1970-01-01 in the proleptic Gregorian calendar */
+  private static long epochDay(int year, int month, int day)
+  {
+    // shift to a March based year so the leap day falls at the end
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yoe = y - era * 400;
+    int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097L + doe - 719468;
+  }
+
   /** Hash is based on date, time, tzOffset, and tz */
   public int hashCode()
   {
@@ -201,21 +210,33 @@ public class HDateTime extends HVal
   /** Encode as "t:YYYY-MM-DD'T'hh:mm:ss.FFFz zzzz" */
   public String toJson()
   {
-    StringBuffer s = new StringBuffer();
-    s.append("t:");
-    encode(s);
+    StringBuilder s = new StringBuilder(48);
+    encodeJson(s);
     return s.toString();
   }
 
   /** Encode as "YYYY-MM-DD'T'hh:mm:ss.FFFz zzzz" */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder(48);
     encode(s);
     return s.toString();
   }
 
-  private void encode(StringBuffer s)
+  /** Append as "t:YYYY-MM-DD'T'hh:mm:ss.FFFz zzzz" */
+  public void encodeJson(StringBuilder s)
+  {
+    s.append("t:");
+    encode(s);
+  }
+
+  /** Append as "YYYY-MM-DD'T'hh:mm:ss.FFFz zzzz" */
+  public void encodeZinc(StringBuilder s)
+  {
+    encode(s);
+  }
+
+  private void encode(StringBuilder s)
   {
     date.encode(s);
     s.append('T');
@@ -231,9 +252,7 @@ public class HDateTime extends HVal
       if (zh < 10) s.append('0'); s.append(zh).append(':');
       if (zm < 10) s.append('0'); s.append(zm);
     }
-    s.append(' ').append(tz);
+    s.append(' ').append(tz.name);
   }
 
-  private static final TimeZone utc = TimeZone.getTimeZone("Etc/UTC");
-
 }
\ No newline at end of file
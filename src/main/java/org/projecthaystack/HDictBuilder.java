@@ -99,7 +99,7 @@ public class HDictBuilder
   public final boolean isEmpty() { return size() == 0; }
 
   /** Return number of tag name/value pairs */
-  public int size() { return map.size(); }
+  public int size() { return map == null ? 0 : map.size(); }
 
   /** Return if the given tag is present */
   public final boolean has(String name) { return get(name, false) != null; }
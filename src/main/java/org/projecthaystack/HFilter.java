@@ -118,6 +118,20 @@ public abstract class HFilter
   /* Return if given tags entity matches this query. */
   public abstract boolean include(HDict dict, Pather pather);
 
+  /**
+   * Return the names of the tags this query reads from the entities
+   * it is given, which are the first names of its paths.
+   */
+  public final String[] tags()
+  {
+    LinkedHashSet acc = new LinkedHashSet();
+    addTags(acc);
+    return (String[])acc.toArray(new String[acc.size()]);
+  }
+
+  /* Add the first name of each path to acc */
+  abstract void addTags(Set acc);
+
   /** String encoding */
   public final String toString()
   {
@@ -259,6 +273,7 @@ public abstract class HFilter
       }
       return doInclude(val);
     }
+    final void addTags(Set acc) { acc.add(path.get(0)); }
     abstract boolean doInclude(HVal val);
     final Path path;
   }
@@ -377,6 +392,7 @@ public abstract class HFilter
   {
     CompoundFilter(HFilter a, HFilter b) { this.a = a; this.b = b; }
     abstract String keyword();
+    final void addTags(Set acc) { a.addTags(acc); b.addTags(acc); }
     final String toStr()
     {
       boolean deep = a instanceof CompoundFilter || b instanceof CompoundFilter;
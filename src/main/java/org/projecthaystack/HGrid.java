@@ -43,7 +43,13 @@ public class HGrid extends HVal
     this.rows = new HRow[rowList.size()];
     for (int i=0; i<rows.length; ++i)
     {
-      HVal[] cells = (HVal[])rowList.get(i);
+      Object row = rowList.get(i);
+      if (row instanceof HRow.Decoder)
+      {
+        this.rows[i] = new HRow(this, (HRow.Decoder)row);
+        continue;
+      }
+      HVal[] cells = (HVal[])row;
       if (cols.length != cells.length)
         throw new IllegalStateException("Row cells size != cols size");
       this.rows[i] = new HRow(this, cells);
@@ -98,6 +104,23 @@ public class HGrid extends HVal
     return null;
   }
 
+  /**
+   * Make a mutable flyweight row bound to this grid's columns which is
+   * backed directly by the given cells array.  It is intended only for
+   * the rows a reader passes to HGridHandler.onRow: the array is not
+   * copied, so the reader can refill it and reuse one row instance for
+   * every row it parses.  The row is not added to this grid and is not
+   * immutable, so it must not be kept past the callback or put into a
+   * grid, dict or cache; copy its values out instead.  The rows of an
+   * HGrid itself are never made this way and stay immutable.
+   */
+  public HRow makeRow(HVal[] cells)
+  {
+    if (cols.length != cells.length)
+      throw new IllegalArgumentException("Row cells size != cols size");
+    return new HRow(this, cells);
+  }
+
   /** Create iteratator to walk each row */
   public Iterator iterator()
   {
@@ -178,6 +178,15 @@ public class HGridBuilder
     return this;
   }
 
+  /** Add new row whose cells are produced by the decoder the first
+      time each is accessed.  Return this. */
+  public final HGridBuilder addLazyRow(HRow.Decoder decoder)
+  {
+    if (decoder == null) throw new IllegalArgumentException("null decoder");
+    rows.add(decoder);
+    return this;
+  }
+
   /** Convert current state to an immutable HGrid instance */
   public final HGrid toGrid()
   {
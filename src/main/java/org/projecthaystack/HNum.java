@@ -115,21 +115,33 @@ public class HNum extends HVal
   /** Encode as {@code "n:<float> [unit]"} */
   public String toJson()
   {
-    StringBuffer s = new StringBuffer();
-    s.append("n:");
-    encode(s, true);
+    StringBuilder s = new StringBuilder();
+    encodeJson(s);
     return s.toString();
   }
 
   /** Encode as floating value followed by optional unit string */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
-    encode(s, false);
+    StringBuilder s = new StringBuilder();
+    encodeZinc(s);
     return s.toString();
   }
 
-  private void encode(StringBuffer s, boolean spaceBeforeUnit)
+  /** Append as {@code "n:<float> [unit]"} */
+  public void encodeJson(StringBuilder s)
+  {
+    s.append("n:");
+    encode(s, true);
+  }
+
+  /** Append as floating value followed by optional unit string */
+  public void encodeZinc(StringBuilder s)
+  {
+    encode(s, false);
+  }
+
+  private void encode(StringBuilder s, boolean spaceBeforeUnit)
   {
     if (val == Double.POSITIVE_INFINITY) s.append("INF");
     else if (val == Double.NEGATIVE_INFINITY) s.append("-INF");
@@ -139,7 +151,10 @@ public class HNum extends HVal
       // don't encode huge set of decimals if over 1.0
       double abs = val; if (abs < 0) abs = -abs;
       if (abs > 1.0)
-        s.append(new DecimalFormat("#0.####", new DecimalFormatSymbols(Locale.ENGLISH)).format(val));
+      {
+        if (abs < 0x1p38) encodeFixed(s, val);
+        else s.append(((DecimalFormat)format.get()).format(val));
+      }
       else
         s.append(val);
 
@@ -152,6 +167,63 @@ public class HNum extends HVal
     }
   }
 
+  /**
+   * Append v rounded half-even to at most four decimal places, which is
+   * what the "#0.####" DecimalFormat produces.  The rounding is done
+   * exactly on the binary value: the fraction m/2^e is scaled by 10000
+   * as m*625/2^(e-4), which always fits in a long.  Requires that
+   * 1 < |v| < 2^38; below that a double is precise to less than 0.00005,
+   * so rounding the exact value agrees with DecimalFormat rounding the
+   * shortest decimal digits of v.
+   */
+  private static void encodeFixed(StringBuilder s, double v)
+  {
+    if (v < 0) { s.append('-'); v = -v; }
+    long ip = (long)v;
+    double frac = v - ip;
+    long dec = 0;
+    if (frac != 0)
+    {
+      long bits = Double.doubleToRawLongBits(frac);
+      long m = (bits & 0xfffffffffffffL) | 0x10000000000000L;
+      int shift = 1075 - (int)((bits >>> 52) & 0x7ff) - 4;
+      long scaled = m * 625;
+      if (shift <= 0)
+      {
+        dec = scaled << -shift;
+      }
+      else if (shift < 63)
+      {
+        dec = scaled >>> shift;
+        long rem = scaled & ((1L << shift) - 1);
+        long half = 1L << (shift - 1);
+        if (rem > half || (rem == half && (dec & 1) != 0)) ++dec;
+      }
+      else if (shift == 63 && scaled > (1L << 62))
+      {
+        dec = 1;
+      }
+      if (dec == 10000) { ++ip; dec = 0; }
+    }
+    s.append(ip);
+    if (dec == 0) return;
+    s.append('.');
+    for (long d=1000; dec != 0; d /= 10)
+    {
+      s.append((char)('0' + dec / d));
+      dec %= d;
+    }
+  }
+
+  /** DecimalFormat is not thread safe and costly to create */
+  private static final ThreadLocal format = new ThreadLocal()
+  {
+    protected Object initialValue()
+    {
+      return new DecimalFormat("#0.####", new DecimalFormatSymbols(Locale.ENGLISH));
+    }
+  };
+
   /**
    * Get this number as a duration of milliseconds.
    * Raise IllegalStateException if the unit is not a duration unit.
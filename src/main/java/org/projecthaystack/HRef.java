@@ -62,16 +62,29 @@ public class HRef extends HVal
   /** Encode as {@code "r:<id> [dis]"} */
   public String toJson()
   {
-    StringBuffer s = new StringBuffer();
-    s.append("r:").append(val);
-    if (dis != null) s.append(' ').append(dis);
+    StringBuilder s = new StringBuilder();
+    encodeJson(s);
     return s.toString();
   }
 
   /** Encode as {@code "@<id> [dis]"} */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder();
+    encodeZinc(s);
+    return s.toString();
+  }
+
+  /** Append as {@code "r:<id> [dis]"} */
+  public void encodeJson(StringBuilder s)
+  {
+    s.append("r:").append(val);
+    if (dis != null) s.append(' ').append(dis);
+  }
+
+  /** Append as {@code "@<id> [dis]"} */
+  public void encodeZinc(StringBuilder s)
+  {
     s.append('@');
     s.append(val);
     if (dis != null)
@@ -79,7 +92,6 @@ public class HRef extends HVal
       s.append(' ');
       HStr.toZinc(s, dis);
     }
-    return s.toString();
   }
 
   /** Return if the given string is a valid id for a reference */
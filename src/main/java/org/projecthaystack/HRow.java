@@ -26,6 +26,15 @@ public class HRow extends HDict
     this.cells = cells;
   }
 
+  /** Package private constructor for a row decoded on demand */
+  HRow(HGrid grid, Decoder decoder)
+  {
+    this.grid = grid;
+    this.cells = new HVal[grid.cols.length];
+    this.decoded = new boolean[cells.length];
+    this.decoder = decoder;
+  }
+
   /** Get the grid associated with this row */
   public HGrid grid() { return grid; }
 
@@ -40,7 +49,7 @@ public class HRow extends HDict
     HCol col = grid.col(name, false);
     if (col != null)
     {
-      HVal val = cells[col.index];
+      HVal val = cell(col.index);
       if (val != null) return val;
     }
     if (checked) throw new UnknownNameException(name);
@@ -51,7 +60,7 @@ public class HRow extends HDict
       UnknownNameException or return  null based on checked flag. */
   public HVal get(HCol col, boolean checked)
   {
-    HVal val = cells[col.index];
+    HVal val = cell(col.index);
     if (val != null) return val;
     if (checked) throw new UnknownNameException(col.name());
     return null;
@@ -64,6 +73,38 @@ public class HRow extends HDict
     return new RowIterator();
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Decoder
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Decoder produces the cells of a row the first time each is accessed.
+   * Readers use it to defer parsing cells which may never be read; see
+   * HGridBuilder.addLazyRow.  Calls for one row are serialized and made
+   * at most once per column.
+   */
+  public interface Decoder
+  {
+    /** Decode the cell of the given column index, or return null */
+    HVal decode(int col);
+  }
+
+  /** Get the cell at the given index, decoding it if needed */
+  private HVal cell(int i)
+  {
+    if (decoder == null) return cells[i];
+    synchronized (this)
+    {
+      if (decoder != null && !decoded[i])
+      {
+        cells[i] = decoder.decode(i);
+        decoded[i] = true;
+        if (++numDecoded == cells.length) { decoded = null; decoder = null; }
+      }
+      return cells[i];
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // RowIterator
 //////////////////////////////////////////////////////////////////////////
@@ -73,7 +114,7 @@ public class HRow extends HDict
    RowIterator()
    {
      for (; col < grid.cols.length; ++col)
-       if (cells[col] != null) break;
+       if (cell(col) != null) break;
    }
 
     public boolean hasNext()
@@ -85,8 +126,8 @@ public class HRow extends HDict
     {
       if (col >= grid.cols.length) throw new NoSuchElementException();
       String name = grid.col(col).name();
-      HVal val = cells[col];
-      for (col++; col < grid.cols.length; ++col) if (cells[col] != null) break;
+      HVal val = cell(col);
+      for (col++; col < grid.cols.length; ++col) if (cell(col) != null) break;
       return new MapEntry(name, val);
     }
 
@@ -104,4 +145,7 @@ public class HRow extends HDict
 
   private HGrid grid;
   private HVal[] cells;
+  private volatile Decoder decoder;
+  private boolean[] decoded;
+  private int numDecoded;
 }
\ No newline at end of file
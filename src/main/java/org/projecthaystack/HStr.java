@@ -58,21 +58,34 @@ public class HStr extends HVal
   /** Encode using double quotes and back slash escapes */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder(val.length() + 2);
     toZinc(s, val);
     return s.toString();
   }
 
+  /** Append as "s:" if string contains a colon */
+  public void encodeJson(StringBuilder s)
+  {
+    if (val.indexOf(':') >= 0) s.append("s:");
+    s.append(val);
+  }
+
+  /** Append using double quotes and back slash escapes */
+  public void encodeZinc(StringBuilder s)
+  {
+    toZinc(s, val);
+  }
+
   /** Encode using double quotes and back slash escapes */
   public static String toCode(String val)
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder(val.length() + 2);
     toZinc(s, val);
     return s.toString();
   }
 
   /** Encode using double quotes and back slash escapes */
-  static void toZinc(StringBuffer s, String val)
+  static void toZinc(StringBuilder s, String val)
   {
     s.append('"');
     for (int i=0; i<val.length(); ++i)
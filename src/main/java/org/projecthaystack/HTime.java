@@ -137,22 +137,34 @@ public class HTime extends HVal
   /** Encode as "h:hh:mm:ss.FFF" */
   public String toJson()
   {
-    StringBuffer s = new StringBuffer();
-    s.append("h:");
-    encode(s);
+    StringBuilder s = new StringBuilder(14);
+    encodeJson(s);
     return s.toString();
   }
 
   /** Encode as "hh:mm:ss.FFF" */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder(12);
     encode(s);
     return s.toString();
   }
 
+  /** Append as "h:hh:mm:ss.FFF" */
+  public void encodeJson(StringBuilder s)
+  {
+    s.append("h:");
+    encode(s);
+  }
+
+  /** Append as "hh:mm:ss.FFF" */
+  public void encodeZinc(StringBuilder s)
+  {
+    encode(s);
+  }
+
   /** Package private implementation shared with HDateTime */
-  void encode(StringBuffer s)
+  void encode(StringBuilder s)
   {
     if (hour < 10) s.append('0'); s.append(hour).append(':');
     if (min  < 10) s.append('0'); s.append(min).append(':');
@@ -55,7 +55,20 @@ public class HUri extends HVal
   /** Encode using "`" back ticks */
   public String toZinc()
   {
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = new StringBuilder(val.length() + 2);
+    encodeZinc(s);
+    return s.toString();
+  }
+
+  /** Append as {@code "u:<val>"} */
+  public void encodeJson(StringBuilder s)
+  {
+    s.append("u:").append(val);
+  }
+
+  /** Append using "`" back ticks */
+  public void encodeZinc(StringBuilder s)
+  {
     s.append('`');
     for (int i=0; i<val.length(); ++i)
     {
@@ -65,7 +78,6 @@ public class HUri extends HVal
       s.append((char)c);
     }
     s.append('`');
-    return s.toString();
   }
 
 }
\ No newline at end of file
@@ -27,6 +27,16 @@ public abstract class HVal implements Comparable
   /** Encode to JSON string value */
   public abstract String toJson();
 
+  /**
+   * Append the zinc encoding of this value to the given buffer.  This
+   * is the same text as toZinc, but lets writers reuse one buffer for
+   * every value instead of allocating a string for each.
+   */
+  public void encodeZinc(StringBuilder s) { s.append(toZinc()); }
+
+  /** Append the JSON string value of this value to the given buffer */
+  public void encodeJson(StringBuilder s) { s.append(toJson()); }
+
   /** Hash code is value based */
   public abstract int hashCode();
 
@@ -11,6 +11,7 @@ package org.projecthaystack.client;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.zip.*;
 import org.projecthaystack.*;
 import org.projecthaystack.auth.AuthClientContext;
 import org.projecthaystack.io.*;
@@ -82,7 +83,8 @@ public class HClient extends HProj
   }
 
   /**
-   * Copy constructor using same auth and timeouts, but for different uri
+   * Copy constructor using same auth, timeouts and encoding settings,
+   * but for different uri
    */
   public HClient(HClient copy, String uri)
   {
@@ -91,6 +93,10 @@ public class HClient extends HProj
     this.connectTimeout = copy.connectTimeout;
     this.readTimeout    = copy.readTimeout;
     this.version        = copy.version;
+    this.compressMin    = copy.compressMin;
+    this.interner       = copy.interner;
+    this.binary         = copy.binary;
+    this.hisCompression = copy.hisCompression;
   }
 
   private static String checkUri(String uri)
@@ -161,6 +167,83 @@ public class HClient extends HProj
     return this;
   }
 
+  private HaystackInterner interner;
+
+  /**
+   * Set the interner used to canonicalize repeated strings, refs and
+   * units in every response read by this client, or null to disable.
+   *
+   * @return this
+   */
+  public HClient setInterner(final HaystackInterner interner)
+  {
+    this.interner = interner;
+    return this;
+  }
+
+  private boolean binary;
+
+  /**
+   * @return true if calls are encoded with the binary grid format
+   */
+  public boolean isBinary() { return binary; }
+
+  /**
+   * Call "formats" and, if the server can both read and write the binary
+   * grid format, use it instead of Zinc for every later call made with
+   * call().  Return true if the binary format is now in use.
+   */
+  public boolean negotiateBinary()
+  {
+    HGrid formats = formats();
+    for (int i=0; i<formats.numRows(); ++i)
+    {
+      HRow row = formats.row(i);
+      if (HBinaryWriter.MIME.equals(row.getStr("mime")) && row.has("read") && row.has("write"))
+        return binary = true;
+    }
+    return binary = false;
+  }
+
+  private boolean hisCompression;
+
+  /**
+   * @return true if history is exchanged in the compressed his format
+   */
+  public boolean isHisCompression() { return hisCompression; }
+
+  /**
+   * Exchange history with the compressed HHisGridWriter format: hisWrite
+   * posts its samples in it and hisRead asks for it with the Accept
+   * header.  A server which does not know the format answers hisRead in
+   * its default format, but cannot read a compressed hisWrite, so only
+   * enable this for servers which list the format in "formats".
+   *
+   * @return this
+   */
+  public HClient setHisCompression(boolean hisCompression)
+  {
+    this.hisCompression = hisCompression;
+    return this;
+  }
+
+  private int compressMin = -1;
+
+  /**
+   * Gzip request bodies of at least minSize bytes, such as large
+   * hisWrite requests, or pass -1 to never compress requests.  Only
+   * enable this for servers which accept a Content-Encoding of gzip.
+   * Responses are always requested with an Accept-Encoding of gzip or
+   * deflate and decompressed as they are read.
+   *
+   * @return this
+   */
+  public HClient setCompressRequests(final int minSize)
+  {
+    this.compressMin = minSize;
+    return this;
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Operations
 //////////////////////////////////////////////////////////////////////////
@@ -285,15 +368,67 @@ public class HClient extends HProj
    */
   public HGrid[] evalAll(HGrid req, boolean checked)
   {
-    String reqStr = HZincWriter.gridToString(req);
-    String resStr = postString(uri + "evalAll", reqStr);
-    HGrid[] res = new HZincReader(resStr).readGrids();
-    if (checked)
+    HttpURLConnection c = postEvalAll(req);
+    try
     {
-      for (int i=0; i<res.length; ++i)
-        if (res[i].isErr()) throw new CallErrException(res[i]);
+      // grids are parsed as they arrive; a checked error stops reading
+      HZincReader r = new HZincReader(responseStream(c)).setInterner(interner);
+      ArrayList acc = new ArrayList();
+      for (HGrid grid; (grid = r.readNextGrid()) != null; )
+      {
+        if (checked && grid.isErr()) throw new CallErrException(grid);
+        acc.add(grid);
+      }
+      return (HGrid[])acc.toArray(new HGrid[acc.size()]);
+    }
+    catch (IOException e) { throw new CallNetworkException(e); }
+    finally
+    {
+      try { c.disconnect(); } catch(Exception e) {}
+    }
+  }
+
+  /**
+   * Call "evalAll" and stream each result grid to the handler as it is
+   * read instead of returning them all at once: onBegin, onRow for each
+   * row and onEnd are called for each grid in the order of the request
+   * rows.  If checked is true, raise CallErrException for the first error
+   * grid before it is passed to the handler and stop reading.  The
+   * handler may also throw an exception to stop early.
+   */
+  public void evalAll(HGrid req, boolean checked, final HGridHandler handler)
+  {
+    HttpURLConnection c = postEvalAll(req);
+    try
+    {
+      HGridHandler h = handler;
+      if (checked) h = new HGridHandler()
+      {
+        public void onBegin(HGrid header)
+        {
+          if (header.isErr()) throw new CallErrException(header);
+          handler.onBegin(header);
+        }
+        public void onRow(HRow row) { handler.onRow(row); }
+        public void onEnd() { handler.onEnd(); }
+      };
+      new HZincReader(responseStream(c)).setInterner(interner).readGrids(h);
+    }
+    catch (IOException e) { throw new CallNetworkException(e); }
+    finally
+    {
+      try { c.disconnect(); } catch(Exception e) {}
     }
-    return res;
+  }
+
+  private HttpURLConnection postEvalAll(HGrid req)
+  {
+    try
+    {
+      byte[] reqBytes = HZincWriter.gridToString(req).getBytes("UTF-8");
+      return post(uri + "evalAll", reqBytes, "text/zinc; charset=utf-8", null);
+    }
+    catch (Exception e) { throw new CallNetworkException(e); }
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -543,14 +678,57 @@ public class HClient extends HProj
    * relative to the history record's timezone.
    */
   public HGrid hisRead(HRef id, Object range)
+  {
+    HGrid req = hisReadReq(id, range);
+    if (!hisCompression) return call("hisRead", req);
+    HGrid res = readResponse(postHisRead(req));
+    if (res.isErr()) throw new CallErrException(res);
+    return res;
+  }
+
+  /**
+   * Read numeric history like hisRead, but return the samples in
+   * primitive arrays.  With his compression enabled the response is
+   * decoded straight into the arrays without creating a grid.  Raise
+   * an exception if any value is not a number with the same unit.
+   */
+  public HHisData hisReadData(HRef id, Object range)
+  {
+    HGrid req = hisReadReq(id, range);
+    if (!hisCompression) return HHisData.make(call("hisRead", req));
+    byte[] res = postHisRead(req);
+    if (!isHisGrid(res))
+    {
+      HGrid grid = readResponse(res);
+      if (grid.isErr()) throw new CallErrException(grid);
+      return HHisData.make(grid);
+    }
+    HHisGridReader r = new HHisGridReader(res);
+    HGrid header = r.readHeader();
+    if (header.isErr()) throw new CallErrException(header);
+    return r.readHis();
+  }
+
+  private HGrid hisReadReq(HRef id, Object range)
   {
     HGridBuilder b = new HGridBuilder();
     b.addCol("id");
     b.addCol("range");
     b.addRow(new HVal[] { id, HStr.make(range.toString()) });
-    HGrid req = b.toGrid();
-    HGrid res = call("hisRead", req);
-    return res;
+    return b.toGrid();
+  }
+
+  /** Post a hisRead request asking for the compressed his format */
+  private byte[] postHisRead(HGrid req)
+  {
+    if (binary)
+      return postBytes(uri + "hisRead", HBinaryWriter.gridToBytes(req), HBinaryWriter.MIME, HHisGridWriter.MIME);
+    try
+    {
+      byte[] zinc = HZincWriter.gridToString(req, this.version).getBytes("UTF-8");
+      return postBytes(uri + "hisRead", zinc, "text/zinc; charset=utf-8", HHisGridWriter.MIME);
+    }
+    catch (UnsupportedEncodingException e) { throw new RuntimeException(e); }
   }
 
   /**
@@ -564,7 +742,10 @@ public class HClient extends HProj
   {
     HDict meta = new HDictBuilder().add("id", id).toDict();
     HGrid req = HGridBuilder.hisItemsToGrid(meta, items);
-    call("hisWrite", req);
+    if (!hisCompression) { call("hisWrite", req); return; }
+    String accept = binary ? HBinaryWriter.MIME : null;
+    HGrid res = readResponse(postBytes(uri + "hisWrite", HHisGridWriter.gridToBytes(req), HHisGridWriter.MIME, accept));
+    if (res.isErr()) throw new CallErrException(res);
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -601,9 +782,10 @@ public class HClient extends HProj
 
   private HGrid postGrid(String op, HGrid req)
   {
+    if (binary) return postBinary(uri + op, req);
     String reqStr = HZincWriter.gridToString(req, this.version);
     String resStr = postString(uri + op, reqStr);
-    return new HZincReader(resStr).readGrid();
+    return new HZincReader(resStr).setInterner(interner).readGrid();
   }
 
   private String postString(String uriStr, String req)
@@ -615,30 +797,12 @@ public class HClient extends HProj
   {
     try
     {
-      // setup the POST request
-      URL url = new URL(uriStr);
-      HttpURLConnection c = openHttpConnection(url, "POST");
-      c = auth.prepare(c);
+      HttpURLConnection c = post(uriStr, req.getBytes("UTF-8"), mimeType == null ? "text/zinc; charset=utf-8": mimeType, null);
       try
       {
-        c.setDoOutput(true);
-        c.setDoInput(true);
-        c.setRequestProperty("Connection", "Close");
-        c.setRequestProperty("Content-Type", mimeType == null ? "text/zinc; charset=utf-8": mimeType);
-        c.connect();
-
-        // post expression
-        Writer cout = new OutputStreamWriter(c.getOutputStream(), "UTF-8");
-        cout.write(req);
-        cout.close();
-
-        // check for successful request
-        if (c.getResponseCode() != 200)
-          throw new CallHttpException(c.getResponseCode(), c.getResponseMessage());
-
         // read response into string
         StringBuffer s = new StringBuffer(1024);
-        Reader r = new BufferedReader(new InputStreamReader(c.getInputStream(), "UTF-8"));
+        Reader r = new BufferedReader(new InputStreamReader(responseStream(c), "UTF-8"));
         int n;
         while ((n = r.read()) > 0) s.append((char)n);
         return s.toString();
@@ -651,6 +815,120 @@ public class HClient extends HProj
     catch (Exception e) { throw new CallNetworkException(e); }
   }
 
+  /** Post the request in the binary grid format and read the response */
+  private HGrid postBinary(String uriStr, HGrid req)
+  {
+    return readResponse(postBytes(uriStr, HBinaryWriter.gridToBytes(req), HBinaryWriter.MIME, HBinaryWriter.MIME));
+  }
+
+  /** Post the request body and return the response body */
+  private byte[] postBytes(String uriStr, byte[] req, String mimeType, String accept)
+  {
+    try
+    {
+      HttpURLConnection c = post(uriStr, req, mimeType, accept);
+      try
+      {
+        ByteArrayOutputStream acc = new ByteArrayOutputStream(1024);
+        InputStream in = responseStream(c);
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) > 0) acc.write(buf, 0, n);
+        in.close();
+        return acc.toByteArray();
+      }
+      finally
+      {
+        try { c.disconnect(); } catch(Exception e) {}
+      }
+    }
+    catch (Exception e) { throw new CallNetworkException(e); }
+  }
+
+  /**
+   * Read a response by its magic bytes, since a server which ignored
+   * our Accept header answers with Zinc.
+   */
+  private HGrid readResponse(byte[] res)
+  {
+    if (res.length >= 2 && res[0] == 'H' && res[1] == 'B')
+      return new HBinaryReader(res).readGrid();
+    if (isHisGrid(res))
+      return new HHisGridReader(res).readGrid();
+    return new HZincReader(new ByteArrayInputStream(res)).setInterner(interner).readGrid();
+  }
+
+  private static boolean isHisGrid(byte[] res)
+  {
+    return res.length >= 2 && res[0] == 'H' && res[1] == 'G';
+  }
+
+  /**
+   * Open a POST connection, send the request body and check for a
+   * successful response.  The caller reads the response and disconnects.
+   */
+  private HttpURLConnection post(String uriStr, byte[] req, String mimeType, String accept)
+    throws Exception
+  {
+    // setup the POST request
+    URL url = new URL(uriStr);
+    HttpURLConnection c = openHttpConnection(url, "POST");
+    c = auth.prepare(c);
+    try
+    {
+      c.setDoOutput(true);
+      c.setDoInput(true);
+      c.setRequestProperty("Connection", "Close");
+      c.setRequestProperty("Content-Type", mimeType);
+      c.setRequestProperty("Accept-Encoding", "gzip, deflate");
+      if (accept != null) c.setRequestProperty("Accept", accept);
+      if (compressMin >= 0 && req.length >= compressMin)
+      {
+        c.setRequestProperty("Content-Encoding", "gzip");
+        req = gzip(req);
+      }
+      c.connect();
+
+      // post request
+      OutputStream cout = c.getOutputStream();
+      cout.write(req);
+      cout.close();
+
+      // check for successful request
+      if (c.getResponseCode() != 200)
+        throw new CallHttpException(c.getResponseCode(), c.getResponseMessage());
+      return c;
+    }
+    catch (Exception e)
+    {
+      try { c.disconnect(); } catch(Exception x) {}
+      throw e;
+    }
+  }
+
+  private static byte[] gzip(byte[] bytes)
+    throws IOException
+  {
+    ByteArrayOutputStream acc = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    GZIPOutputStream out = new GZIPOutputStream(acc, 8192);
+    out.write(bytes);
+    out.close();
+    return acc.toByteArray();
+  }
+
+  /** Response body decoded by its Content-Encoding */
+  private static InputStream responseStream(HttpURLConnection c)
+    throws IOException
+  {
+    InputStream in = c.getInputStream();
+    String encoding = c.getContentEncoding();
+    if (encoding == null) return in;
+    encoding = encoding.trim().toLowerCase();
+    if (encoding.equals("gzip") || encoding.equals("x-gzip")) return new GZIPInputStream(in, 8192);
+    if (encoding.equals("deflate")) return new InflaterInputStream(in);
+    return in;
+  }
+
 ////////////////////////////////////////////////////////////////
 // Utils
 ////////////////////////////////////////////////////////////////
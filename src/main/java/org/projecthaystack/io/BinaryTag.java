@@ -0,0 +1,83 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+/**
+ * BinaryTag defines the type codes shared by HBinaryWriter and
+ * HBinaryReader.
+ * <p>
+ * A top-level grid starts with the magic bytes "HB" and the format
+ * version.  A grid is its meta dict, the varint number of columns, the
+ * name and meta of each column, then each row as a ROW byte followed by
+ * one value per column, and finally an END byte.  A dict is the varint
+ * number of tags followed by each name and value.  Every value starts
+ * with one of the tag bytes below.
+ * <p>
+ * Strings are written as a varint code: STR_NEW is followed by a new
+ * string which is added to the dictionary of the top-level grid,
+ * STR_LITERAL by a string which is not, and any larger code refers to
+ * dictionary entry {@code code - STR_FIRST}.  A new or literal string is
+ * its varint UTF-8 length and bytes.
+ */
+final class BinaryTag
+{
+  private BinaryTag() {}
+
+  static final int MAGIC1  = 'H';
+  static final int MAGIC2  = 'B';
+  static final int VERSION = 1;
+
+  // grid structure
+  static final int END = 0;
+  static final int ROW = 1;
+
+  // values
+  static final int NULL      = 0;
+  static final int MARKER    = 1;
+  static final int FALSE     = 2;
+  static final int TRUE      = 3;
+  static final int NA        = 4;
+  static final int REMOVE    = 5;
+  static final int INT       = 6;   // zigzag varint
+  static final int INT_UNIT  = 7;   // zigzag varint, unit string
+  static final int DOUBLE    = 8;   // 8 byte IEEE
+  static final int DOUBLE_UNIT = 9; // 8 byte IEEE, unit string
+  static final int STR       = 10;  // string
+  static final int REF       = 11;  // id string
+  static final int REF_DIS   = 12;  // id string, dis string
+  static final int URI       = 13;  // string
+  static final int DATE      = 14;  // varint year, month byte, day byte
+  static final int TIME      = 15;  // varint millis of day
+  static final int DATE_TIME = 16;  // zigzag varint epoch millis, zigzag varint offset secs, tz string
+  static final int COORD     = 17;  // zigzag varint ulat, zigzag varint ulng
+  static final int XSTR      = 18;  // type string, val string
+  static final int BIN       = 19;  // mime string
+  static final int SYMBOL    = 20;  // string
+  static final int LIST      = 21;  // varint size, values
+  static final int DICT      = 22;  // dict
+  static final int GRID      = 23;  // grid
+  static final int DECIMAL   = 24;  // scale byte, zigzag varint mantissa
+  static final int DECIMAL_UNIT = 25; // scale byte, zigzag varint mantissa, unit string
+
+  // string codes
+  static final int STR_NEW     = 0;
+  static final int STR_LITERAL = 1;
+  static final int STR_FIRST   = 2;
+
+  /** Most decimal places tried before falling back to a raw double */
+  static final int MAX_SCALE = 6;
+
+  /** Powers of ten up to MAX_SCALE */
+  static final double[] POW10 = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+
+  /** Longest string added to the dictionary */
+  static final int MAX_DICT_STR = 64;
+
+  /** Most strings held by the dictionary of one grid */
+  static final int MAX_DICT_SIZE = 65536;
+}
@@ -0,0 +1,203 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import org.projecthaystack.ParseException;
+
+/**
+ * GorillaCodec packs time series samples into a bit stream using the
+ * scheme from Facebook's Gorilla paper: each timestamp is stored as the
+ * change of its delta from the previous delta, and each value as the
+ * XOR of its bits with the previous value's bits, so regular sample
+ * intervals cost one bit and repeated values one bit.
+ * <p>
+ * Timestamps are epoch millis.  The first sample is stored in full;
+ * after that a delta-of-delta of zero is "0", and larger ones use the
+ * prefixes "10", "110" and "1110" with signed 7, 9 and 12 bit fields
+ * or "1111" with a full 64 bit field.  A value equal to the previous one is "0";
+ * otherwise "10" reuses the previous leading/trailing zero window and
+ * "11" is followed by 5 bits of leading zeros, 6 bits of length and the
+ * meaningful bits.
+ */
+final class GorillaCodec
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Encode
+//////////////////////////////////////////////////////////////////////////
+
+  /** Encode n samples and return the packed bytes */
+  static byte[] encode(long[] ts, double[] vals, int n)
+  {
+    Bits out = new Bits(n * 2 + 16);
+    if (n == 0) return out.toBytes();
+
+    long prevTs = ts[0];
+    long prevDelta = 0;
+    long prevBits = Double.doubleToRawLongBits(vals[0]);
+    int prevLead = -1;
+    int prevTrail = 0;
+    out.write(prevTs, 64);
+    out.write(prevBits, 64);
+
+    for (int i=1; i<n; ++i)
+    {
+      // timestamp
+      long delta = ts[i] - prevTs;
+      long dod = delta - prevDelta;
+      if (dod == 0) out.write(0, 1);
+      else if (dod >= -64 && dod < 64) { out.write(0x2, 2); out.write(dod, 7); }
+      else if (dod >= -256 && dod < 256) { out.write(0x6, 3); out.write(dod, 9); }
+      else if (dod >= -2048 && dod < 2048) { out.write(0xe, 4); out.write(dod, 12); }
+      else { out.write(0xf, 4); out.write(dod, 64); }
+      prevTs = ts[i];
+      prevDelta = delta;
+
+      // value
+      long bits = Double.doubleToRawLongBits(vals[i]);
+      long xor = bits ^ prevBits;
+      prevBits = bits;
+      if (xor == 0) { out.write(0, 1); continue; }
+      int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+      int trail = Long.numberOfTrailingZeros(xor);
+      if (prevLead >= 0 && lead >= prevLead && trail >= prevTrail)
+      {
+        out.write(0x2, 2);
+        out.write(xor >>> prevTrail, 64 - prevLead - prevTrail);
+      }
+      else
+      {
+        int len = 64 - lead - trail;
+        out.write(0x3, 2);
+        out.write(lead, 5);
+        out.write(len & 0x3f, 6);   // 64 is written as 0
+        out.write(xor >>> trail, len);
+        prevLead = lead;
+        prevTrail = trail;
+      }
+    }
+    return out.toBytes();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Decode
+//////////////////////////////////////////////////////////////////////////
+
+  /** Decode n samples from the packed bytes into ts and vals at offset off */
+  static void decode(byte[] buf, int n, long[] ts, double[] vals, int off)
+  {
+    if (n == 0) return;
+    Bits in = new Bits(buf);
+
+    long prevTs = in.read(64);
+    long prevDelta = 0;
+    long prevBits = in.read(64);
+    int prevLead = 0;
+    int prevTrail = 0;
+    ts[off] = prevTs;
+    vals[off] = Double.longBitsToDouble(prevBits);
+
+    for (int i=1; i<n; ++i)
+    {
+      // timestamp
+      long dod;
+      if (in.read(1) == 0) dod = 0;
+      else if (in.read(1) == 0) dod = signed(in.read(7), 7);
+      else if (in.read(1) == 0) dod = signed(in.read(9), 9);
+      else if (in.read(1) == 0) dod = signed(in.read(12), 12);
+      else dod = in.read(64);
+      prevDelta += dod;
+      prevTs += prevDelta;
+      ts[off+i] = prevTs;
+
+      // value
+      if (in.read(1) != 0)
+      {
+        if (in.read(1) != 0)
+        {
+          prevLead = (int)in.read(5);
+          int len = (int)in.read(6);
+          if (len == 0) len = 64;
+          prevTrail = 64 - prevLead - len;
+          if (prevTrail < 0) throw new ParseException("Invalid XOR window");
+        }
+        prevBits ^= in.read(64 - prevLead - prevTrail) << prevTrail;
+      }
+      vals[off+i] = Double.longBitsToDouble(prevBits);
+    }
+  }
+
+  /** Sign extend the low n bits of v */
+  private static long signed(long v, int n)
+  {
+    return (v << (64 - n)) >> (64 - n);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Bits
+//////////////////////////////////////////////////////////////////////////
+
+  /** Growable big-endian bit buffer */
+  static final class Bits
+  {
+    Bits(int capacity) { this.buf = new byte[Math.max(capacity, 16)]; }
+
+    Bits(byte[] buf) { this.buf = buf; this.limit = buf.length * 8L; }
+
+    /** Write the low n bits of v, most significant first */
+    void write(long v, int n)
+    {
+      while (n > 0)
+      {
+        int i = (int)(pos >>> 3);
+        if (i == buf.length)
+        {
+          byte[] temp = new byte[buf.length * 2];
+          System.arraycopy(buf, 0, temp, 0, buf.length);
+          buf = temp;
+        }
+        int free = 8 - (int)(pos & 7);
+        int take = Math.min(free, n);
+        int bits = (int)(v >>> (n - take)) & ((1 << take) - 1);
+        buf[i] |= (byte)(bits << (free - take));
+        pos += take;
+        n -= take;
+      }
+    }
+
+    /** Read n bits as an unsigned value */
+    long read(int n)
+    {
+      if (pos + n > limit) throw new ParseException("Unexpected end of samples");
+      long v = 0;
+      while (n > 0)
+      {
+        int i = (int)(pos >>> 3);
+        int avail = 8 - (int)(pos & 7);
+        int take = Math.min(avail, n);
+        int bits = ((buf[i] & 0xff) >>> (avail - take)) & ((1 << take) - 1);
+        v = (v << take) | bits;
+        pos += take;
+        n -= take;
+      }
+      return v;
+    }
+
+    byte[] toBytes()
+    {
+      int n = (int)((pos + 7) >>> 3);
+      byte[] bytes = new byte[n];
+      System.arraycopy(buf, 0, bytes, 0, n);
+      return bytes;
+    }
+
+    private byte[] buf;
+    private long pos;
+    private long limit;
+  }
+}
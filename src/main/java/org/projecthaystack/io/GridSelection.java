@@ -0,0 +1,151 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.util.*;
+import org.projecthaystack.*;
+
+/**
+ * GridSelection is the column projection and row filter a reader
+ * applies to a grid as its rows are read.
+ *
+ * @see HGridReader#setCols
+ * @see HGridReader#setFilter
+ */
+final class GridSelection
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Select the given columns, or all if null, and the rows matching the
+   * filter, or all if null, from a grid with the given meta and columns.
+   */
+  GridSelection(HGrid source, String[] cols, HFilter filter)
+  {
+    HashSet wanted = cols == null ? null : new HashSet(Arrays.asList(cols));
+    HashSet tested = new HashSet();
+    if (filter != null) tested.addAll(Arrays.asList(filter.tags()));
+
+    int n = source.numCols();
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(source.meta());
+    int[] index = new int[n];
+    int numSelected = 0;
+    this.read = new boolean[n];
+    for (int i=0; i<n; ++i)
+    {
+      HCol col = source.col(i);
+      boolean selected = wanted == null || wanted.contains(col.name());
+      if (selected)
+      {
+        b.addCol(col.name()).add(col.meta());
+        index[numSelected++] = i;
+      }
+      read[i] = selected || tested.contains(col.name());
+    }
+
+    this.source = source;
+    this.header = b.toGrid();
+    this.index = Arrays.copyOf(index, numSelected);
+    this.filter = filter;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Rows
+//////////////////////////////////////////////////////////////////////////
+
+  /** Make a builder with the selected meta and columns */
+  HGridBuilder builder()
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(header.meta());
+    for (int i=0; i<header.numCols(); ++i)
+      b.addCol(header.col(i).name()).add(header.col(i).meta());
+    return b;
+  }
+
+  /** Make a cursor with its own cells; cursors are not thread safe */
+  Cursor cursor() { return new Cursor(); }
+
+  /**
+   * Return a handler which passes each source row the selection keeps
+   * on to the given handler as a row of the selected header.  Only
+   * onRow is forwarded.
+   */
+  HGridHandler rows(final HGridHandler handler)
+  {
+    final Cursor cursor = cursor();
+    return new HGridHandler()
+    {
+      public void onRow(HRow row)
+      {
+        if (cursor.select(row)) handler.onRow(cursor.row);
+      }
+    };
+  }
+
+  /** Apply the selection to a grid which has been read in full */
+  HGrid select(HGrid grid)
+  {
+    HGridBuilder b = builder();
+    Cursor cursor = cursor();
+    for (int i=0; i<grid.numRows(); ++i)
+      if (cursor.select(grid.row(i))) b.addRow(cursor.selected);
+    return b.toGrid();
+  }
+
+  /** Cells of the source row being read and the selected row */
+  final class Cursor
+  {
+    /** Cells of the source row; only the columns in read are needed */
+    final HVal[] cells = new HVal[source.numCols()];
+
+    /** Cells of the selected row, valid after select returns true */
+    final HVal[] selected = new HVal[index.length];
+
+    /** Row of the selected header over the selected cells */
+    final HRow row = header.makeRow(selected);
+
+    private final HRow sourceRow = source.makeRow(cells);
+
+    /** Return if the source cells pass the filter and select them if so */
+    boolean select()
+    {
+      if (filter != null && !filter.include(sourceRow, null)) return false;
+      for (int i=0; i<index.length; ++i) selected[i] = cells[index[i]];
+      return true;
+    }
+
+    /** Copy the read columns of a source row into cells and select */
+    boolean select(HRow row)
+    {
+      for (int i=0; i<cells.length; ++i)
+        cells[i] = read[i] ? row.get(source.col(i).name(), false) : null;
+      return select();
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  /** Meta and columns of the grid being read */
+  final HGrid source;
+
+  /** Meta and selected columns */
+  final HGrid header;
+
+  /** Source columns which must be decoded, selected or tested */
+  final boolean[] read;
+
+  private final int[] index;
+  private final HFilter filter;
+}
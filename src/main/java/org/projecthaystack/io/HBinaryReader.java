@@ -0,0 +1,450 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import org.projecthaystack.*;
+
+/**
+ * HBinaryReader reads grids written by HBinaryWriter.  The rows of
+ * the top-level grid may be streamed to an HGridHandler as they are
+ * decoded.
+ *
+ * @see BinaryTag
+ */
+public class HBinaryReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read from the given stream */
+  public HBinaryReader(InputStream in)
+  {
+    this.in = in;
+    this.buf = new byte[8192];
+  }
+
+  /** Read from an in-memory byte array */
+  public HBinaryReader(byte[] in)
+  {
+    this.in = null;
+    this.buf = in;
+    this.len = in.length;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read a grid */
+  public HGrid readGrid()
+  {
+    try
+    {
+      readMagic();
+      return readGridBody(false);
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /**
+   * Read a grid and stream each row to the handler as soon as it has
+   * been decoded.  The same row instance is passed for every row.
+   */
+  public void readGrid(HGridHandler handler)
+  {
+    handler = select(handler);
+    try
+    {
+      readMagic();
+      HGrid header = readHeader(new HGridBuilder()).toGrid();
+      HVal[] cells = new HVal[header.numCols()];
+      HRow row = header.makeRow(cells);
+      handler.onBegin(header);
+      while (readRow(cells)) handler.onRow(row);
+      handler.onEnd();
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /** Read each grid in the stream until the end */
+  public HGrid[] readGrids()
+  {
+    try
+    {
+      ArrayList acc = new ArrayList();
+      while (more())
+      {
+        readMagic();
+        acc.add(readGridBody(false));
+      }
+      return (HGrid[])acc.toArray(new HGrid[acc.size()]);
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /** Close underlying input stream */
+  public void close()
+  {
+    if (in == null) return;
+    try { in.close(); }
+    catch (IOException e) { e.printStackTrace(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Grid
+//////////////////////////////////////////////////////////////////////////
+
+  /** Each top-level grid starts a new string dictionary */
+  private void readMagic()
+  {
+    if (u8() != BinaryTag.MAGIC1 || u8() != BinaryTag.MAGIC2)
+      throw new ParseException("Not a binary grid");
+    int version = u8();
+    if (version != BinaryTag.VERSION)
+      throw new ParseException("Unsupported binary grid version: " + version);
+    numStrings = 0;
+  }
+
+  /** Read the header and rows; the selection only applies to top-level grids */
+  private HGrid readGridBody(boolean nested)
+  {
+    HGridBuilder b = readHeader(new HGridBuilder());
+    GridSelection sel = nested || !selects() ? null : selection(b.toGrid());
+    if (sel != null)
+    {
+      b = sel.builder();
+      GridSelection.Cursor cursor = sel.cursor();
+      while (readRow(cursor.cells))
+        if (cursor.select()) b.addRow(cursor.selected);
+      return b.toGrid();
+    }
+
+    HVal[] cells = new HVal[numCols];
+    while (readRow(cells))
+    {
+      b.addRow(cells);
+      cells = new HVal[cells.length];
+    }
+    return b.toGrid();
+  }
+
+  private HGridBuilder readHeader(HGridBuilder b)
+  {
+    readDict(b.meta());
+    int n = varint();
+    for (int i=0; i<n; ++i)
+      readDict(b.addCol(str()));
+    numCols = n;
+    return b;
+  }
+
+  /** Read the next row into cells, or return false at the end of the grid */
+  private boolean readRow(HVal[] cells)
+  {
+    int tag = u8();
+    if (tag == BinaryTag.END) return false;
+    if (tag != BinaryTag.ROW) throw new ParseException("Expected row, not " + tag);
+    for (int i=0; i<cells.length; ++i) cells[i] = readVal();
+    return true;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Values
+//////////////////////////////////////////////////////////////////////////
+
+  private HVal readVal()
+  {
+    int tag = u8();
+    switch (tag)
+    {
+      case BinaryTag.NULL:        return null;
+      case BinaryTag.MARKER:      return HMarker.VAL;
+      case BinaryTag.FALSE:       return HBool.FALSE;
+      case BinaryTag.TRUE:        return HBool.TRUE;
+      case BinaryTag.NA:          return HNA.VAL;
+      case BinaryTag.REMOVE:      return HRemove.VAL;
+      case BinaryTag.INT:         return HNum.make(zigzag(varlong()));
+      case BinaryTag.INT_UNIT:    return HNum.make(zigzag(varlong()), str());
+      case BinaryTag.DOUBLE:      return HNum.make(readDouble());
+      case BinaryTag.DOUBLE_UNIT: return HNum.make(readDouble(), str());
+      case BinaryTag.DECIMAL:     return HNum.make(readDecimal());
+      case BinaryTag.DECIMAL_UNIT: return HNum.make(readDecimal(), str());
+      case BinaryTag.STR:         return HStr.make(str());
+      case BinaryTag.REF:         return HRef.make(str());
+      case BinaryTag.REF_DIS:     return HRef.make(str(), str());
+      case BinaryTag.URI:         return HUri.make(str());
+      case BinaryTag.DATE:        return HDate.make(varint(), u8(), u8());
+      case BinaryTag.TIME:        return toTime(varint());
+      case BinaryTag.DATE_TIME:   return readDateTime();
+      case BinaryTag.COORD:       return readCoord();
+      case BinaryTag.XSTR:        return HXStr.decode(str(), str());
+      case BinaryTag.BIN:         return HBin.make(str());
+      case BinaryTag.SYMBOL:      return HSymbol.make(str());
+      case BinaryTag.LIST:        return readList();
+      case BinaryTag.DICT:        return readDict(new HDictBuilder()).toDict();
+      case BinaryTag.GRID:        return readNestedGrid();
+      default: throw new ParseException("Unknown value tag: " + tag);
+    }
+  }
+
+  private HDictBuilder readDict(HDictBuilder b)
+  {
+    int n = varint();
+    for (int i=0; i<n; ++i)
+    {
+      String name = str();
+      b.add(name, readVal());
+    }
+    return b;
+  }
+
+  private HList readList()
+  {
+    int n = varint();
+    if (n == 0) return HList.EMPTY;
+    HVal[] items = new HVal[n];
+    for (int i=0; i<n; ++i) items[i] = readVal();
+    return HList.make(items);
+  }
+
+  private HGrid readNestedGrid()
+  {
+    int outer = numCols;
+    HGrid grid = readGridBody(true);
+    numCols = outer;
+    return grid;
+  }
+
+  private HDateTime readDateTime()
+  {
+    long millis = zigzag(varlong());
+    int offset = (int)zigzag(varint() & 0xffffffffL);
+    String tzName = str();
+    if (tzName != lastTzName) { lastTz = HTimeZone.make(tzName); lastTzName = tzName; }
+    return dateTime(millis, offset, lastTz);
+  }
+
+  /** Make a timestamp from epoch millis and its offset in seconds without a Calendar */
+  static HDateTime dateTime(long millis, int offset, HTimeZone tz)
+  {
+    // split local millis into its date and time of day
+    long local = millis + offset * 1000L;
+    long day = floorDiv(local, MILLIS_PER_DAY);
+    HDate date = civil(day);
+    HTime time = toTime((int)(local - day * MILLIS_PER_DAY));
+    return HDateTime.make(date, time, tz, offset);
+  }
+
+  private HCoord readCoord()
+  {
+    int ulat = (int)zigzag(varint() & 0xffffffffL);
+    int ulng = (int)zigzag(varint() & 0xffffffffL);
+    return HCoord.make(toDegrees(ulat), toDegrees(ulng));
+  }
+
+  /**
+   * Convert micro-degrees to degrees, nudged half a micro-degree away
+   * from zero so that HCoord.make truncates back to the same value.
+   */
+  private static double toDegrees(int u)
+  {
+    return (u + (u < 0 ? -0.5 : 0.5)) / 1000000.0;
+  }
+
+  private static HTime toTime(int ms)
+  {
+    return HTime.make(ms / 3600000, (ms / 60000) % 60, (ms / 1000) % 60, ms % 1000);
+  }
+
+  /** Convert days since 1970-01-01 to a date (civil from days algorithm) */
+  private static HDate civil(long days)
+  {
+    long z = days + 719468;
+    long era = floorDiv(z, 146097);
+    long doe = z - era * 146097;
+    long yoe = (doe - doe/1460 + doe/36524 - doe/146096) / 365;
+    long doy = doe - (365*yoe + yoe/4 - yoe/100);
+    long mp = (5*doy + 2) / 153;
+    int d = (int)(doy - (153*mp + 2)/5 + 1);
+    int m = (int)(mp < 10 ? mp + 3 : mp - 9);
+    int y = (int)(yoe + era * 400 + (m <= 2 ? 1 : 0));
+    return HDate.make(y, m, d);
+  }
+
+  private static long floorDiv(long a, long b)
+  {
+    long q = a / b;
+    if ((a % b != 0) && ((a ^ b) < 0)) --q;
+    return q;
+  }
+
+  private static long zigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+//////////////////////////////////////////////////////////////////////////
+// Decoding
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read a string code and resolve it against the dictionary */
+  private String str()
+  {
+    int code = varint();
+    if (code >= BinaryTag.STR_FIRST)
+    {
+      int i = code - BinaryTag.STR_FIRST;
+      if (i >= numStrings) throw new ParseException("Invalid string ref: " + i);
+      return strings[i];
+    }
+    String s = utf8(varint());
+    if (code == BinaryTag.STR_NEW)
+    {
+      if (numStrings == strings.length)
+      {
+        String[] temp = new String[strings.length * 2];
+        System.arraycopy(strings, 0, temp, 0, numStrings);
+        strings = temp;
+      }
+      strings[numStrings++] = s;
+    }
+    return s;
+  }
+
+  private String utf8(int n)
+  {
+    if (n <= buf.length)
+    {
+      ensure(n);
+      String s = new String(buf, pos, n, UTF8);
+      pos += n;
+      return s;
+    }
+
+    // longer than the read buffer
+    byte[] bytes = new byte[n];
+    for (int i=0; i<n; )
+    {
+      ensure(1);
+      int chunk = Math.min(n - i, len - pos);
+      System.arraycopy(buf, pos, bytes, i, chunk);
+      pos += chunk;
+      i += chunk;
+    }
+    return new String(bytes, UTF8);
+  }
+
+  private double readDecimal()
+  {
+    int scale = u8();
+    if (scale < 1 || scale > BinaryTag.MAX_SCALE) throw new ParseException("Invalid decimal scale: " + scale);
+    return zigzag(varlong()) / BinaryTag.POW10[scale];
+  }
+
+  private double readDouble()
+  {
+    ensure(8);
+    long bits = 0;
+    for (int i=0; i<8; ++i) bits = (bits << 8) | (buf[pos++] & 0xff);
+    return Double.longBitsToDouble(bits);
+  }
+
+  private int varint()
+  {
+    int v = 0;
+    for (int shift=0; shift<35; shift+=7)
+    {
+      int b = u8();
+      v |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return v;
+    }
+    throw new ParseException("Invalid varint");
+  }
+
+  private long varlong()
+  {
+    long v = 0;
+    for (int shift=0; shift<70; shift+=7)
+    {
+      int b = u8();
+      v |= (long)(b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return v;
+    }
+    throw new ParseException("Invalid varint");
+  }
+
+  private int u8()
+  {
+    if (pos == len) ensure(1);
+    return buf[pos++] & 0xff;
+  }
+
+  /** Return if there is more input */
+  private boolean more()
+  {
+    return pos < len || fill(1);
+  }
+
+  /** Make sure the next n bytes are in the buffer */
+  private void ensure(int n)
+  {
+    if (len - pos < n && !fill(n)) throw new ParseException("Unexpected end of input");
+  }
+
+  private boolean fill(int n)
+  {
+    if (in == null) return false;
+    try
+    {
+      // shift remaining bytes to the front
+      int rem = len - pos;
+      System.arraycopy(buf, pos, buf, 0, rem);
+      pos = 0;
+      len = rem;
+      while (len < n)
+      {
+        int r = in.read(buf, len, buf.length - len);
+        if (r < 0) return false;
+        len += r;
+      }
+      return true;
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private final InputStream in;
+  private final byte[] buf;
+  private int pos;
+  private int len;
+  private String[] strings = new String[256];
+  private int numStrings;
+  private int numCols;
+  private String lastTzName;
+  private HTimeZone lastTz;
+}
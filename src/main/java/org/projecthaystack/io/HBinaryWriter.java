@@ -0,0 +1,392 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.projecthaystack.*;
+
+/**
+ * HBinaryWriter writes grids in a compact binary format meant for
+ * exchanging data between Java nodes.  Lengths and integers are varints,
+ * tag names and other short strings are written once per grid and then
+ * referenced by index, and timestamps are epoch millis.  Numbers with a
+ * fraction are scaled varints when they have at most a few decimal places
+ * and raw IEEE doubles otherwise.  Nested dicts, lists and grids are
+ * supported.  Read the format back with HBinaryReader.
+ *
+ * @see BinaryTag
+ */
+public class HBinaryWriter extends HGridWriter
+{
+
+  /** Vendor mime type of the binary grid format */
+  public static final String MIME = "application/vnd.haystack.binary";
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write to the given stream */
+  public HBinaryWriter(OutputStream out)
+  {
+    this.out = out;
+    this.buf = new byte[8192];
+  }
+
+  /** Write a grid to an in-memory byte array */
+  public static byte[] gridToBytes(HGrid grid)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(grid.numCols() * grid.numRows() * 8 + 64);
+    HBinaryWriter w = new HBinaryWriter(out);
+    w.writeGrid(grid);
+    w.flush();
+    return out.toByteArray();
+  }
+
+  /** Flush underlying output stream */
+  public void flush()
+  {
+    drain();
+    try { out.flush(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  /** Close underlying output stream */
+  public void close()
+  {
+    drain();
+    try { out.close(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// HGridWriter
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a grid */
+  public void writeGrid(HGrid grid)
+  {
+    if (numCols >= 0) throw new IllegalStateException("Grid already begun");
+    writeMagic();
+    writeGridBody(grid);
+  }
+
+  /** Begin a grid by writing the meta and columns of header */
+  public void beginGrid(HGrid header)
+  {
+    if (numCols >= 0) throw new IllegalStateException("Grid already begun");
+    writeMagic();
+    writeHeader(header);
+    numCols = header.numCols();
+  }
+
+  /** Write the next row of the grid */
+  public void writeRow(HVal[] cells)
+  {
+    if (numCols < 0) throw new IllegalStateException("No grid begun");
+    if (cells.length != numCols) throw new IllegalArgumentException("Row cells size != cols size");
+    u8(BinaryTag.ROW);
+    for (int i=0; i<cells.length; ++i) writeVal(cells[i]);
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (numCols < 0) throw new IllegalStateException("No grid begun");
+    numCols = -1;
+    u8(BinaryTag.END);
+  }
+
+  /** Each top-level grid starts a new string dictionary */
+  private void writeMagic()
+  {
+    strings.clear();
+    u8(BinaryTag.MAGIC1);
+    u8(BinaryTag.MAGIC2);
+    u8(BinaryTag.VERSION);
+  }
+
+  private void writeGridBody(HGrid grid)
+  {
+    writeHeader(grid);
+    int numCols = grid.numCols();
+    for (int r=0; r<grid.numRows(); ++r)
+    {
+      HRow row = grid.row(r);
+      u8(BinaryTag.ROW);
+      for (int c=0; c<numCols; ++c)
+        writeVal(row.get(grid.col(c), false));
+    }
+    u8(BinaryTag.END);
+  }
+
+  private void writeHeader(HGrid grid)
+  {
+    writeDict(grid.meta());
+    varint(grid.numCols());
+    for (int i=0; i<grid.numCols(); ++i)
+    {
+      HCol col = grid.col(i);
+      str(col.name());
+      writeDict(col.meta());
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Values
+//////////////////////////////////////////////////////////////////////////
+
+  private void writeVal(HVal val)
+  {
+    if (val == null) u8(BinaryTag.NULL);
+    else if (val instanceof HMarker) u8(BinaryTag.MARKER);
+    else if (val instanceof HNum) writeNum((HNum)val);
+    else if (val instanceof HStr) { u8(BinaryTag.STR); str(((HStr)val).val); }
+    else if (val instanceof HRef) writeRef((HRef)val);
+    else if (val instanceof HDateTime) writeDateTime((HDateTime)val);
+    else if (val instanceof HBool) u8(((HBool)val).val ? BinaryTag.TRUE : BinaryTag.FALSE);
+    else if (val instanceof HDate) writeDate((HDate)val);
+    else if (val instanceof HTime) writeTime((HTime)val);
+    else if (val instanceof HUri) { u8(BinaryTag.URI); str(((HUri)val).val); }
+    else if (val instanceof HGrid) { u8(BinaryTag.GRID); writeGridBody((HGrid)val); }
+    else if (val instanceof HList) writeList((HList)val);
+    else if (val instanceof HDict) { u8(BinaryTag.DICT); writeDict((HDict)val); }
+    else if (val instanceof HNA) u8(BinaryTag.NA);
+    else if (val instanceof HRemove) u8(BinaryTag.REMOVE);
+    else if (val instanceof HCoord) writeCoord((HCoord)val);
+    else if (val instanceof HXStr) { u8(BinaryTag.XSTR); str(((HXStr)val).type); str(((HXStr)val).val); }
+    else if (val instanceof HBin) { u8(BinaryTag.BIN); str(((HBin)val).mime); }
+    else if (val instanceof HSymbol) { u8(BinaryTag.SYMBOL); str(((HSymbol)val).toZinc().substring(1)); }
+    else throw new IllegalArgumentException("Cannot write " + val.getClass().getName());
+  }
+
+  private void writeDict(HDict dict)
+  {
+    varint(dict.size());
+    for (Iterator it = dict.iterator(); it.hasNext(); )
+    {
+      Map.Entry e = (Map.Entry)it.next();
+      str((String)e.getKey());
+      writeVal((HVal)e.getValue());
+    }
+  }
+
+  private void writeList(HList list)
+  {
+    u8(BinaryTag.LIST);
+    varint(list.size());
+    for (int i=0; i<list.size(); ++i) writeVal(list.get(i));
+  }
+
+  private void writeNum(HNum num)
+  {
+    // whole numbers which fit a double exactly are written as varints
+    double v = num.val;
+    long l = (long)v;
+    if (l == v && l > -MAX_EXACT && l < MAX_EXACT && Double.doubleToRawLongBits(v) != NEG_ZERO)
+    {
+      u8(num.unit == null ? BinaryTag.INT : BinaryTag.INT_UNIT);
+      varlong((l << 1) ^ (l >> 63));
+    }
+    else if (!writeDecimal(num))
+    {
+      u8(num.unit == null ? BinaryTag.DOUBLE : BinaryTag.DOUBLE_UNIT);
+      long bits = Double.doubleToRawLongBits(v);
+      ensure(8);
+      for (int shift=56; shift>=0; shift-=8) buf[pos++] = (byte)(bits >> shift);
+    }
+    if (num.unit != null) str(num.unit);
+  }
+
+  /**
+   * Write a number with a few decimal places as a scaled varint if
+   * dividing it by the power of ten gives back exactly the same double.
+   */
+  private boolean writeDecimal(HNum num)
+  {
+    double v = num.val;
+    if (v == 0 || Double.isNaN(v) || Double.isInfinite(v)) return false;
+    for (int scale=1; scale<=BinaryTag.MAX_SCALE; ++scale)
+    {
+      double scaled = v * BinaryTag.POW10[scale];
+      if (scaled <= -MAX_EXACT || scaled >= MAX_EXACT) return false;
+      long m = Math.round(scaled);
+      if (m / BinaryTag.POW10[scale] == v)
+      {
+        u8(num.unit == null ? BinaryTag.DECIMAL : BinaryTag.DECIMAL_UNIT);
+        u8(scale);
+        varlong((m << 1) ^ (m >> 63));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeRef(HRef ref)
+  {
+    u8(ref.dis == null ? BinaryTag.REF : BinaryTag.REF_DIS);
+    str(ref.val);
+    if (ref.dis != null) str(ref.dis);
+  }
+
+  private void writeDate(HDate date)
+  {
+    u8(BinaryTag.DATE);
+    varint(date.year);
+    u8(date.month);
+    u8(date.day);
+  }
+
+  private void writeTime(HTime time)
+  {
+    u8(BinaryTag.TIME);
+    varint(((time.hour * 60 + time.min) * 60 + time.sec) * 1000 + time.ms);
+  }
+
+  private void writeDateTime(HDateTime ts)
+  {
+    u8(BinaryTag.DATE_TIME);
+    long millis = ts.millis();
+    varlong((millis << 1) ^ (millis >> 63));
+    varint((ts.tzOffset << 1) ^ (ts.tzOffset >> 31));
+    str(ts.tz.name);
+  }
+
+  private void writeCoord(HCoord c)
+  {
+    u8(BinaryTag.COORD);
+    varint((c.ulat << 1) ^ (c.ulat >> 31));
+    varint((c.ulng << 1) ^ (c.ulng >> 31));
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Encoding
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a string as a dictionary reference, or add it to the dictionary */
+  private void str(String s)
+  {
+    Integer code = (Integer)strings.get(s);
+    if (code != null) { varint(code.intValue()); return; }
+    if (s.length() <= BinaryTag.MAX_DICT_STR && strings.size() < BinaryTag.MAX_DICT_SIZE)
+    {
+      strings.put(s, Integer.valueOf(BinaryTag.STR_FIRST + strings.size()));
+      varint(BinaryTag.STR_NEW);
+    }
+    else
+    {
+      varint(BinaryTag.STR_LITERAL);
+    }
+    utf8(s);
+  }
+
+  /** Write the varint UTF-8 length of the string and its bytes */
+  private void utf8(String s)
+  {
+    int n = s.length();
+    int len = n;
+    for (int i=0; i<n; ++i)
+    {
+      char c = s.charAt(i);
+      if (c < 0x80) continue;
+      if (c < 0x800) len += 1;
+      else if (Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1))) { len += 2; ++i; }
+      else len += 2;
+    }
+    varint(len);
+    for (int i=0; i<n; ++i)
+    {
+      char c = s.charAt(i);
+      if (c < 0x80)
+      {
+        if (pos == buf.length) drain();
+        buf[pos++] = (byte)c;
+        continue;
+      }
+      ensure(4);
+      if (c < 0x800)
+      {
+        buf[pos++] = (byte)(0xc0 | (c >> 6));
+        buf[pos++] = (byte)(0x80 | (c & 0x3f));
+      }
+      else if (Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1)))
+      {
+        int cp = Character.toCodePoint(c, s.charAt(++i));
+        buf[pos++] = (byte)(0xf0 | (cp >> 18));
+        buf[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3f));
+        buf[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3f));
+        buf[pos++] = (byte)(0x80 | (cp & 0x3f));
+      }
+      else
+      {
+        // unpaired surrogates were counted as three bytes
+        buf[pos++] = (byte)(0xe0 | (c >> 12));
+        buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+        buf[pos++] = (byte)(0x80 | (c & 0x3f));
+      }
+    }
+  }
+
+  private void varint(int v)
+  {
+    ensure(5);
+    while ((v & ~0x7f) != 0)
+    {
+      buf[pos++] = (byte)((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    buf[pos++] = (byte)v;
+  }
+
+  private void varlong(long v)
+  {
+    ensure(10);
+    while ((v & ~0x7fL) != 0)
+    {
+      buf[pos++] = (byte)((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    buf[pos++] = (byte)v;
+  }
+
+  private void u8(int b)
+  {
+    if (pos == buf.length) drain();
+    buf[pos++] = (byte)b;
+  }
+
+  private void ensure(int n)
+  {
+    if (pos + n > buf.length) drain();
+  }
+
+  /** Write the buffered bytes to the underlying stream */
+  private void drain()
+  {
+    if (pos == 0) return;
+    try { out.write(buf, 0, pos); }
+    catch (IOException e) { throw new RuntimeException(e); }
+    pos = 0;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final long MAX_EXACT = 1L << 53;
+  private static final long NEG_ZERO = Double.doubleToRawLongBits(-0.0);
+
+  private final OutputStream out;
+  private final byte[] buf;
+  private int pos;
+  private final HashMap strings = new HashMap();   // String to Integer code
+  private int numCols = -1;    // columns of grid begun, or -1
+}
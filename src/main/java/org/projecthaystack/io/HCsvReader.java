@@ -0,0 +1,583 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import org.projecthaystack.*;
+
+/**
+ * HCsvReader reads grids in comma separated values format as written
+ * by HCsvWriter and by spreadsheet exports.  The first line holds the
+ * column display names; a column is named after its display name made
+ * into a valid tag name, and keeps the original as its "dis" meta when
+ * the two differ.
+ * <p>
+ * CSV has no types, so the type of each column is inferred from the
+ * first sampleRows rows: a column whose non-empty cells all parse as a
+ * marker, bool, number with optional unit, timestamp, date or ref gets
+ * that type, anything else is a string.  Cells after the sample window
+ * which do not parse as their column's type are read as strings.  An
+ * empty cell is null, except that an empty quoted cell in a string
+ * column is an empty string.
+ * <p>
+ * The input is parsed in a single pass over a byte buffer, and
+ * readGrid(HGridHandler) delivers each row as soon as it is parsed so
+ * that very large files can be imported without holding the grid.
+ *
+ * @see HCsvWriter
+ */
+public class HCsvReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read from UTF-8 input stream */
+  public HCsvReader(InputStream in)
+  {
+    this.in = in;
+    this.buf = new byte[8192];
+  }
+
+  /** Read from a string */
+  public HCsvReader(String s)
+  {
+    this.in = null;
+    this.buf = s.getBytes(UTF8);
+    this.len = buf.length;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read a grid */
+  public HGrid readGrid()
+  {
+    final HGridBuilder b = new HGridBuilder();
+    readGrid(new HGridHandler()
+    {
+      public void onBegin(HGrid header)
+      {
+        for (int i=0; i<header.numCols(); ++i)
+          b.addCol(header.col(i).name()).add(header.col(i).meta());
+      }
+
+      public void onRow(HRow row)
+      {
+        HVal[] cells = new HVal[row.grid().numCols()];
+        for (int i=0; i<cells.length; ++i) cells[i] = row.get(row.grid().col(i), false);
+        b.addRow(cells);
+      }
+    });
+    return b.toGrid();
+  }
+
+  /**
+   * Read a grid and stream each row to the handler as soon as it has
+   * been parsed.  The first sampleRows rows are buffered to infer the
+   * column types before the handler's onBegin is called.  The same row
+   * instance is passed for every row.
+   */
+  public void readGrid(HGridHandler handler)
+  {
+    handler = select(handler);
+    try
+    {
+      // header line
+      ArrayList line = new ArrayList();
+      skipBom();
+      HGrid header = readLine(line) ? toHeader(line) : new HGridBuilder().toGrid();
+      int numCols = header.numCols();
+
+      // sample window
+      ArrayList sample = new ArrayList();
+      while (sample.size() < sampleRows && readLine(line))
+        sample.add(toRaw(line, numCols));
+      Column[] cols = new Column[numCols];
+      for (int i=0; i<numCols; ++i) cols[i] = infer(sample, i);
+
+      // rows
+      HVal[] cells = new HVal[numCols];
+      HRow row = header.makeRow(cells);
+      handler.onBegin(header);
+      for (int r=0; r<sample.size(); ++r)
+      {
+        String[] raw = (String[])sample.get(r);
+        for (int i=0; i<numCols; ++i) cells[i] = toVal(cols[i], raw[i]);
+        handler.onRow(row);
+      }
+      sample = null;
+      while (readLine(line))
+      {
+        checkSize(line, numCols);
+        for (int i=0; i<numCols; ++i)
+          cells[i] = i < line.size() ? toVal(cols[i], (String)line.get(i)) : null;
+        handler.onRow(row);
+      }
+      handler.onEnd();
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /** Close underlying input stream */
+  public void close()
+  {
+    if (in == null) return;
+    try { in.close(); }
+    catch (IOException e) { e.printStackTrace(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Header
+//////////////////////////////////////////////////////////////////////////
+
+  private HGrid toHeader(ArrayList line)
+  {
+    HGridBuilder b = new HGridBuilder();
+    HashSet names = new HashSet();
+    for (int i=0; i<line.size(); ++i)
+    {
+      String dis = (String)line.get(i);
+      if (dis == null) dis = "";
+      String name = toTagName(dis);
+      if (names.contains(name))
+      {
+        int n = 1;
+        while (names.contains(name + n)) ++n;
+        name = name + n;
+      }
+      names.add(name);
+      HDictBuilder meta = b.addCol(name);
+      if (!name.equals(dis)) meta.add("dis", dis);
+    }
+    return b.toGrid();
+  }
+
+  /** Make a display name into a camel case tag name */
+  static String toTagName(String dis)
+  {
+    if (HDict.isTagName(dis)) return dis;
+    StringBuilder s = new StringBuilder(dis.length());
+    boolean upper = false;
+    for (int i=0; i<dis.length(); ++i)
+    {
+      char c = dis.charAt(i);
+      boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+      boolean digit = c >= '0' && c <= '9';
+      if (!alpha && !digit && c != '_') { upper = s.length() > 0; continue; }
+      if (s.length() == 0)
+      {
+        if (!alpha) s.append('v');
+        else c = Character.toLowerCase(c);
+      }
+      else if (upper)
+      {
+        c = Character.toUpperCase(c);
+      }
+      s.append(c);
+      upper = false;
+    }
+    return s.length() == 0 ? "blank" : s.toString();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Types
+//////////////////////////////////////////////////////////////////////////
+
+  /** Pick the first type which parses every non-empty sample cell of column i */
+  private Column infer(ArrayList sample, int i)
+  {
+    Column col = new Column();
+    int mask = MARKER | BOOL | NUM | DATE_TIME | DATE | REF;
+    boolean any = false;
+    for (int r=0; r<sample.size() && mask != 0; ++r)
+    {
+      String s = ((String[])sample.get(r))[i];
+      if (s == null || s.length() == 0) continue;
+      any = true;
+      for (int type=1; type<=REF; type<<=1)
+        if ((mask & type) != 0 && parse(col, type, s) == null) mask &= ~type;
+    }
+    col.type = STR;
+    if (any && mask != 0) col.type = Integer.lowestOneBit(mask);
+    return col;
+  }
+
+  private HVal toVal(Column col, String s)
+  {
+    if (s == null) return null;
+    if (col.type == STR) return HStr.make(s);
+    if (s.length() == 0) return null;
+    HVal val = parse(col, col.type, s);
+    return val != null ? val : HStr.make(s);
+  }
+
+  /** Parse s as the given type or return null */
+  private static HVal parse(Column col, int type, String s)
+  {
+    switch (type)
+    {
+      case MARKER:    return s.equals("\u2713") ? HMarker.VAL : null;
+      case BOOL:      return s.equals("true") ? HBool.TRUE : s.equals("false") ? HBool.FALSE : null;
+      case NUM:       return parseNum(col, s);
+      case DATE_TIME: return parseDateTime(col, s);
+      case DATE:      return parseDate(s);
+      case REF:       return parseRef(s);
+      default:        return HStr.make(s);
+    }
+  }
+
+  /** Number such as "-12.5", "1.0E-5", "72kW" or "INF" */
+  private static HNum parseNum(Column col, String s)
+  {
+    int n = s.length();
+    int i = 0;
+    if (s.charAt(0) == '-') ++i;
+    int start = i;
+    while (i < n && isDigit(s.charAt(i))) ++i;
+    if (i == start)
+    {
+      if (s.equals("INF")) return HNum.POS_INF;
+      if (s.equals("-INF")) return HNum.NEG_INF;
+      if (s.equals("NaN")) return HNum.NaN;
+      return null;
+    }
+    boolean whole = true;
+    if (i < n && s.charAt(i) == '.')
+    {
+      int frac = ++i;
+      while (i < n && isDigit(s.charAt(i))) ++i;
+      if (i == frac) return null;
+      whole = false;
+    }
+    if (i + 1 < n && (s.charAt(i) == 'e' || s.charAt(i) == 'E'))
+    {
+      int e = i + 1;
+      if (s.charAt(e) == '+' || s.charAt(e) == '-') ++e;
+      int exp = e;
+      while (e < n && isDigit(s.charAt(e))) ++e;
+      if (e > exp) { i = e; whole = false; }
+    }
+
+    double val;
+    try
+    {
+      if (whole && i - start <= 18) val = Long.parseLong(s.substring(0, i));
+      else val = Double.parseDouble(s.substring(0, i));
+    }
+    catch (NumberFormatException e)
+    {
+      return null;
+    }
+
+    // unit, reusing the column's last unit string
+    String unit = null;
+    if (i < n)
+    {
+      if (s.charAt(i) == ' ') ++i;
+      String last = col.lastUnit;
+      if (last != null && last.length() == n - i && s.regionMatches(i, last, 0, last.length()))
+      {
+        unit = last;
+      }
+      else
+      {
+        unit = s.substring(i);
+        if (!HNum.isUnitName(unit)) return null;
+        col.lastUnit = unit;
+      }
+    }
+    return HNum.make(val, unit);
+  }
+
+  /**
+   * Timestamp such as "2015-06-08T15:47:41-04:00 New_York", or an ISO
+   * timestamp without a timezone name which ends in "Z" or has a whole
+   * hour offset.  The date and timezone of the previous cell of the
+   * column are reused when they are the same.
+   */
+  private static HDateTime parseDateTime(Column col, String s)
+  {
+    int n = s.length();
+    if (n < 20 || s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':') return null;
+    try
+    {
+      // date
+      HDate date = col.lastDate;
+      if (date == null || !s.regionMatches(0, col.lastDateStr, 0, 10))
+      {
+        String str = s.substring(0, 10);
+        date = HDate.make(str);
+        col.lastDate = date;
+        col.lastDateStr = str;
+      }
+
+      // time
+      int hour = digits(s, 11, 13), min = digits(s, 14, 16), sec = digits(s, 17, 19);
+      int i = 19, ms = 0;
+      if (i < n && s.charAt(i) == '.')
+      {
+        int frac = ++i;
+        while (i < n && isDigit(s.charAt(i))) ++i;
+        if (i == frac) return null;
+        for (int j=frac; j<frac+3; ++j) ms = ms * 10 + (j < i ? s.charAt(j) - '0' : 0);
+      }
+      if (hour < 0 || min < 0 || sec < 0 || i >= n) return null;
+      HTime time = HTime.make(hour, min, sec, ms);
+
+      // offset
+      int offset;
+      char c = s.charAt(i);
+      if (c == 'Z')
+      {
+        offset = 0;
+        ++i;
+      }
+      else if ((c == '+' || c == '-') && i + 6 <= n && s.charAt(i+3) == ':')
+      {
+        int oh = digits(s, i+1, i+3), om = digits(s, i+4, i+6);
+        if (oh < 0 || om < 0) return null;
+        offset = (oh * 3600 + om * 60) * (c == '-' ? -1 : 1);
+        i += 6;
+      }
+      else
+      {
+        return null;
+      }
+
+      // timezone name, or one implied by the offset
+      HTimeZone tz;
+      if (i == n)
+      {
+        if (offset == 0) tz = HTimeZone.UTC;
+        else if (offset % 3600 != 0) return null;
+        else tz = HTimeZone.make("GMT" + (offset < 0 ? "+" : "-") + Math.abs(offset / 3600), false);
+      }
+      else
+      {
+        if (s.charAt(i) != ' ') return null;
+        ++i;
+        tz = col.lastTz;
+        String last = col.lastTzName;
+        if (last == null || last.length() != n - i || !s.regionMatches(i, last, 0, last.length()))
+        {
+          String name = s.substring(i);
+          tz = HTimeZone.make(name, false);
+          col.lastTz = tz;
+          col.lastTzName = name;
+        }
+      }
+      if (tz == null) return null;
+      return HDateTime.make(date, time, tz, offset);
+    }
+    catch (RuntimeException e)
+    {
+      return null;
+    }
+  }
+
+  private static HDate parseDate(String s)
+  {
+    if (s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return null;
+    try { return HDate.make(s); }
+    catch (RuntimeException e) { return null; }
+  }
+
+  /** Ref as "@id" or "@id dis" */
+  private static HRef parseRef(String s)
+  {
+    if (s.charAt(0) != '@') return null;
+    int sp = s.indexOf(' ');
+    String id = sp < 0 ? s.substring(1) : s.substring(1, sp);
+    if (!HRef.isId(id)) return null;
+    return HRef.make(id, sp < 0 ? null : s.substring(sp+1));
+  }
+
+  /** Parse the two digits from start to end or return -1 */
+  private static int digits(String s, int start, int end)
+  {
+    int v = 0;
+    for (int i=start; i<end; ++i)
+    {
+      char c = s.charAt(i);
+      if (!isDigit(c)) return -1;
+      v = v * 10 + (c - '0');
+    }
+    return v;
+  }
+
+  private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+  /** Inferred type and parse caches of a column */
+  private static final class Column
+  {
+    int type;
+    String lastUnit;
+    String lastDateStr;
+    HDate lastDate;
+    String lastTzName;
+    HTimeZone lastTz;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// CSV
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read the cells of the next line into cells, skipping blank lines.
+   * Return false at the end of input.
+   */
+  private boolean readLine(ArrayList cells)
+  {
+    cells.clear();
+    int c = read();
+    while (c == '\n' || c == '\r')
+    {
+      if (c == '\n') ++lineNum;
+      c = read();
+    }
+    if (c < 0) return false;
+
+    while (true)
+    {
+      cellLen = 0;
+      if (c == '"')
+      {
+        // quoted cell; a doubled quote is a literal quote
+        while (true)
+        {
+          c = read();
+          if (c < 0) throw new ParseException("Unterminated quoted cell on line " + (lineNum+1));
+          if (c == '"' && (c = read()) != '"') break;
+          if (c == '\n') ++lineNum;
+          append(c);
+        }
+        while (c == ' ' || c == '\t') c = read();
+        cells.add(cellLen == 0 ? "" : new String(cell, 0, cellLen, UTF8));
+      }
+      else
+      {
+        while (c >= 0 && c != delimiter && c != '\n' && c != '\r')
+        {
+          append(c);
+          c = read();
+        }
+        cells.add(unquoted());
+      }
+
+      if (c == delimiter) { c = read(); continue; }
+      if (c == '\n') ++lineNum;
+      else if (c >= 0 && c != '\r') throw new ParseException("Expected delimiter after quoted cell on line " + (lineNum+1));
+      return true;
+    }
+  }
+
+  /** Unquoted cell with surrounding whitespace trimmed, or null if empty */
+  private String unquoted()
+  {
+    int start = 0, end = cellLen;
+    while (start < end && HCsvWriter.isWhiteSpace(cell[start])) ++start;
+    while (end > start && HCsvWriter.isWhiteSpace(cell[end-1])) --end;
+    if (start == end) return null;
+    return new String(cell, start, end - start, UTF8);
+  }
+
+  private String[] toRaw(ArrayList line, int numCols)
+  {
+    checkSize(line, numCols);
+    String[] raw = new String[numCols];
+    for (int i=0; i<line.size(); ++i) raw[i] = (String)line.get(i);
+    return raw;
+  }
+
+  /** Short lines are padded with nulls, long ones are an error */
+  private void checkSize(ArrayList line, int numCols)
+  {
+    if (line.size() > numCols)
+      throw new ParseException("Line " + lineNum + " has " + line.size() + " cells, expected " + numCols);
+  }
+
+  private void append(int b)
+  {
+    if (cellLen == cell.length)
+    {
+      byte[] temp = new byte[cell.length * 2];
+      System.arraycopy(cell, 0, temp, 0, cellLen);
+      cell = temp;
+    }
+    cell[cellLen++] = (byte)b;
+  }
+
+  /** Skip the UTF-8 byte order mark written by some spreadsheets */
+  private void skipBom()
+  {
+    if (pos == len && !fill()) return;
+    if (len - pos >= 3 && buf[pos] == (byte)0xef && buf[pos+1] == (byte)0xbb && buf[pos+2] == (byte)0xbf)
+      pos += 3;
+  }
+
+  private int read()
+  {
+    if (pos == len && !fill()) return -1;
+    return buf[pos++] & 0xff;
+  }
+
+  private boolean fill()
+  {
+    if (in == null) return false;
+    try
+    {
+      int n = in.read(buf, 0, buf.length);
+      if (n <= 0) return false;
+      pos = 0;
+      len = n;
+      return true;
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  // inferred types in order of preference
+  private static final int STR       = 0;
+  private static final int MARKER    = 0x01;
+  private static final int BOOL      = 0x02;
+  private static final int NUM       = 0x04;
+  private static final int DATE_TIME = 0x08;
+  private static final int DATE      = 0x10;
+  private static final int REF       = 0x20;
+
+  /** Delimiter between cells */
+  public char delimiter = ',';
+
+  /** Number of rows used to infer the type of each column */
+  public int sampleRows = 1000;
+
+  private final InputStream in;
+  private final byte[] buf;
+  private int pos;
+  private int len;
+  private byte[] cell = new byte[256];
+  private int cellLen;
+  private int lineNum;
+}
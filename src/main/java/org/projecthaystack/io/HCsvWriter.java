@@ -50,13 +50,7 @@ public class HCsvWriter extends HGridWriter
   /** Write a grid */
   public void writeGrid(HGrid grid)
   {
-    // cols
-    for (int i=0; i<grid.numCols(); ++i)
-    {
-      if (i > 0) out.write((char)delimiter);
-      writeCell(grid.col(i).dis());
-    }
-    out.write('\n');
+    writeHeader(grid);
 
     // rows
     for (int i=0; i<grid.numRows(); ++i)
@@ -66,6 +60,44 @@ public class HCsvWriter extends HGridWriter
     }
   }
 
+  /** Begin a grid by writing the header line of column display names */
+  public void beginGrid(HGrid header)
+  {
+    if (numCols >= 0) throw new IllegalStateException("Grid already begun");
+    writeHeader(header);
+    numCols = header.numCols();
+  }
+
+  /** Write the next row of the grid */
+  public void writeRow(HVal[] cells)
+  {
+    if (numCols < 0) throw new IllegalStateException("No grid begun");
+    if (cells.length != numCols) throw new IllegalArgumentException("Row cells size != cols size");
+    for (int i=0; i<cells.length; ++i)
+    {
+      if (i > 0) out.write(delimiter);
+      writeCell(valToString(cells[i]));
+    }
+    out.write('\n');
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (numCols < 0) throw new IllegalStateException("No grid begun");
+    numCols = -1;
+  }
+
+  private void writeHeader(HGrid grid)
+  {
+    for (int i=0; i<grid.numCols(); ++i)
+    {
+      if (i > 0) out.write((char)delimiter);
+      writeCell(grid.col(i).dis());
+    }
+    out.write('\n');
+  }
+
   private void writeRow(HGrid grid, HRow row)
   {
     for (int i=0; i<grid.numCols(); ++i)
@@ -165,5 +197,6 @@ public class HCsvWriter extends HGridWriter
   public char delimiter = ',';
 
   private PrintWriter out;
+  private int numCols = -1;    // columns of grid begun, or -1
 
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.util.*;
+import org.projecthaystack.*;
+
+/**
+ * HDictStreamWriter writes a stream of records with differing tags as
+ * grid rows without building the whole grid first, as dictsToGrid
+ * does.  The columns are taken from the tags of the first records in a
+ * bounded window, then the window and every record after it are written
+ * with beginGrid/writeRow/endGrid as they arrive.
+ * <p>
+ * A record after the window with a tag the grid has no column for ends
+ * the grid.  If fallback columns are set, the remaining records are
+ * written in one grid with those columns and any other tags dropped.
+ * Otherwise a new grid is begun with columns found in a new window
+ * starting at that record, so the output may hold several grids.  When
+ * writing to an HZincWriter, its separateGrids is turned on before the
+ * second grid so they read back with HZincReader.readGrids.
+ */
+public class HDictStreamWriter
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write grids to the given writer */
+  public HDictStreamWriter(HGridWriter out)
+  {
+    this.out = out;
+  }
+
+  /** Set the meta written with each grid.  Return this. */
+  public HDictStreamWriter setMeta(HDict meta)
+  {
+    this.meta = meta;
+    return this;
+  }
+
+  /**
+   * Set the number of records buffered to find the columns of a grid;
+   * the default is 1000.  A window of zero uses the fallback columns
+   * from the start.  Return this.
+   */
+  public HDictStreamWriter setWindow(int window)
+  {
+    if (window < 0) throw new IllegalArgumentException("window < 0");
+    this.window = window;
+    return this;
+  }
+
+  /**
+   * Set the columns to fall back to once a record has a tag which is
+   * not a column of the current grid, or null to begin a new grid with
+   * newly found columns instead.  Return this.
+   */
+  public HDictStreamWriter setFallbackCols(String[] cols)
+  {
+    if (cols != null && cols.length == 0) throw new IllegalArgumentException("No fallback cols");
+    this.fallbackCols = cols;
+    return this;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Writing
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Write the HDicts of the iterator, where a null entry is a row of
+   * null cells, and return the number of grids written.  An empty
+   * iterator is written as a grid with one "empty" column and no rows.
+   */
+  public int write(Iterator dicts)
+  {
+    if (window == 0 && fallbackCols == null)
+      throw new IllegalStateException("Window of zero needs fallback cols");
+
+    ArrayList buf = new ArrayList();
+    HDict next = null;
+    boolean hasNext = false;
+    boolean fallback = window == 0;
+    int numGrids = 0;
+    while (true)
+    {
+      // fill the window, starting with a record left by the last grid
+      buf.clear();
+      if (hasNext) { buf.add(next); hasNext = false; }
+      while (buf.size() < window && !fallback && dicts.hasNext()) buf.add(dicts.next());
+
+      // begin grid
+      if (numGrids > 0 && out instanceof HZincWriter) ((HZincWriter)out).separateGrids = true;
+      String[] cols = fallback ? fallbackCols : findCols(buf);
+      HashMap index = begin(cols);
+      HVal[] cells = new HVal[cols.length];
+      ++numGrids;
+
+      // write window then stream the rest until a record doesn't fit
+      for (int i=0; i<buf.size(); ++i) writeRow((HDict)buf.get(i), index, cells, fallback);
+      while (dicts.hasNext())
+      {
+        HDict dict = (HDict)dicts.next();
+        if (!fallback && !fits(dict, index))
+        {
+          next = dict;
+          hasNext = true;
+          break;
+        }
+        writeRow(dict, index, cells, fallback);
+      }
+      out.endGrid();
+      if (!hasNext) break;
+      if (fallbackCols != null) fallback = true;
+    }
+    return numGrids;
+  }
+
+  /** Tag names of the records in first seen order */
+  private static String[] findCols(ArrayList dicts)
+  {
+    LinkedHashSet names = new LinkedHashSet();
+    for (int i=0; i<dicts.size(); ++i)
+    {
+      HDict dict = (HDict)dicts.get(i);
+      if (dict == null) continue;
+      for (Iterator it = dict.iterator(); it.hasNext(); )
+        names.add(((Map.Entry)it.next()).getKey());
+    }
+    if (names.isEmpty()) names.add("empty");
+    return (String[])names.toArray(new String[names.size()]);
+  }
+
+  private HashMap begin(String[] cols)
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(meta);
+    HashMap index = new HashMap(cols.length * 2);
+    for (int i=0; i<cols.length; ++i)
+    {
+      b.addCol(cols[i]);
+      index.put(cols[i], new Integer(i));
+    }
+    out.beginGrid(b.toGrid());
+    return index;
+  }
+
+  private static boolean fits(HDict dict, HashMap index)
+  {
+    if (dict == null) return true;
+    for (Iterator it = dict.iterator(); it.hasNext(); )
+      if (!index.containsKey(((Map.Entry)it.next()).getKey())) return false;
+    return true;
+  }
+
+  private void writeRow(HDict dict, HashMap index, HVal[] cells, boolean drop)
+  {
+    Arrays.fill(cells, null);
+    if (dict != null)
+    {
+      for (Iterator it = dict.iterator(); it.hasNext(); )
+      {
+        Map.Entry entry = (Map.Entry)it.next();
+        Integer i = (Integer)index.get(entry.getKey());
+        if (i != null) cells[i.intValue()] = (HVal)entry.getValue();
+        else if (!drop) throw new IllegalStateException("No column for " + entry.getKey());
+      }
+    }
+    out.writeRow(cells);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final HGridWriter out;
+  private HDict meta = HDict.EMPTY;
+  private int window = 1000;
+  private String[] fallbackCols;
+}
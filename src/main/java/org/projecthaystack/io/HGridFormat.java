@@ -9,11 +9,24 @@ package org.projecthaystack.io;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 /**
  * HGridFormat models a format used to encode/decode HGrid.
+ * <p>
+ * A format is a factory for its readers and writers.  Formats made with
+ * the (mime, reader, writer) constructor create them through the
+ * InputStream or OutputStream constructor of those classes, looked up
+ * once; subclasses may instead override makeReader and makeWriter to
+ * create them directly.  Besides the built-in formats, subclasses
+ * listed in META-INF/services/org.projecthaystack.io.HGridFormat are
+ * registered when this class is loaded, replacing any built-in format
+ * with the same mime type.  The registry is copy-on-write, so find and
+ * list never lock.
  *
  * @see <a href='http://project-haystack.org/doc/Rest#contentNegotiation'>Project Haystack</a>
  */
@@ -32,11 +45,7 @@ public class HGridFormat
     if (semicolon > 0) mime = mime.substring(0, semicolon).trim();
 
     // lookup format
-    HGridFormat format = null;
-    synchronized (registry)
-    {
-      format = (HGridFormat)registry.get(mime);
-    }
+    HGridFormat format = (HGridFormat)registry.get(mime);
     if (format != null) return format;
 
     // handle missing
@@ -45,38 +54,53 @@ public class HGridFormat
   }
 
   /**
-   * List all registered formats
+   * List all registered formats in the order they were registered
    */
   public static HGridFormat[] list()
   {
-    synchronized (registry)
-    {
-      HGridFormat[] acc = new HGridFormat[registry.size()];
-      Iterator it = registry.values().iterator();
-      for (int i=0; it.hasNext(); ++i) acc[i] = (HGridFormat)it.next();
-      return acc;
-    }
+    return formats.clone();
   }
 
   /**
-   * Register a new HGridFormat
+   * Register a new HGridFormat, replacing any format with the same mime type
    */
   public static void register(HGridFormat format)
   {
-    synchronized (registry)
+    synchronized (lock)
     {
-      registry.put(format.mime, format);
+      HashMap map = new HashMap(registry);
+      HGridFormat old = (HGridFormat)map.put(format.mime, format);
+
+      HGridFormat[] list = formats;
+      int i = 0;
+      while (i < list.length && list[i] != old) ++i;
+      HGridFormat[] acc = new HGridFormat[i < list.length ? list.length : list.length + 1];
+      System.arraycopy(list, 0, acc, 0, list.length);
+      acc[i] = format;
+
+      registry = map;
+      formats = acc;
     }
   }
 
-  /** Constructor */
+  /** Constructor with no capability flags */
   public HGridFormat(String mime, Class reader, Class writer)
+  {
+    this(mime, reader, writer, 0);
+  }
+
+  /**
+   * Constructor with capability flags: any of STREAMING, BINARY and
+   * NESTED or'ed together.
+   */
+  public HGridFormat(String mime, Class reader, Class writer, int flags)
   {
     if (mime.indexOf(';') >= 0)
       throw new IllegalArgumentException("mime has semicolon " + mime);
     this.mime = mime;
     this.reader = reader;
     this.writer = writer;
+    this.flags = flags;
   }
 
   /**
@@ -97,17 +121,49 @@ public class HGridFormat
    */
   public final Class writer;
 
+//////////////////////////////////////////////////////////////////////////
+// Capabilities
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Writer streams rows written with beginGrid/writeRow/endGrid and the
+   * reader delivers rows to an HGridHandler as they are read
+   */
+  public static final int STREAMING = 0x01;
+
+  /** Format is binary rather than UTF-8 text */
+  public static final int BINARY = 0x02;
+
+  /** Format can encode grids, lists and dicts nested as values */
+  public static final int NESTED = 0x04;
+
+  /** Capability flags of the format */
+  public final int flags;
+
+  /** Does the format stream rows */
+  public boolean isStreaming() { return (flags & STREAMING) != 0; }
+
+  /** Is the format binary rather than UTF-8 text */
+  public boolean isBinary() { return (flags & BINARY) != 0; }
+
+  /** Can the format encode nested grids, lists and dicts */
+  public boolean isNested() { return (flags & NESTED) != 0; }
+
+//////////////////////////////////////////////////////////////////////////
+// Factory
+//////////////////////////////////////////////////////////////////////////
+
   /**
    * Make instance of "reader"; constructor with InputStream is expected.
    */
   public HGridReader makeReader(InputStream in)
   {
     if (reader == null) throw new RuntimeException("Format doesn't support reader: " + mime);
+    Constructor ctor = readerCtor;
     try
     {
-      return (HGridReader)reader
-        .getConstructor(new Class[] { InputStream.class })
-        .newInstance(new Object[] { in });
+      if (ctor == null) readerCtor = ctor = reader.getConstructor(new Class[] { InputStream.class });
+      return (HGridReader)ctor.newInstance(new Object[] { in });
     }
     catch (Throwable e)
     {
@@ -121,11 +177,11 @@ public class HGridFormat
   public HGridWriter makeWriter(OutputStream out)
   {
     if (writer == null) throw new RuntimeException("Format doesn't support writer: " + mime);
+    Constructor ctor = writerCtor;
     try
     {
-      return (HGridWriter)writer
-        .getConstructor(new Class[] { OutputStream.class })
-        .newInstance(new Object[] { out });
+      if (ctor == null) writerCtor = ctor = writer.getConstructor(new Class[] { OutputStream.class });
+      return (HGridWriter)ctor.newInstance(new Object[] { out });
     }
     catch (Throwable e)
     {
@@ -133,17 +189,74 @@ public class HGridFormat
     }
   }
 
-  private static HashMap registry = new HashMap();
+  public String toString() { return mime; }
+
+  private volatile Constructor readerCtor;
+  private volatile Constructor writerCtor;
+
+//////////////////////////////////////////////////////////////////////////
+// Built-in Formats
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Object lock = new Object();
+  private static volatile HashMap registry = new HashMap();   // never modified once published
+  private static volatile HGridFormat[] formats = new HGridFormat[0];
   static
   {
+    // each built-in format constructs its reader and writer directly
+    try
+    {
+      int text = STREAMING | NESTED;
+      int binary = STREAMING | BINARY | NESTED;
+      register(new HGridFormat("text/plain", HZincReader.class, HZincWriter.class, text)
+      {
+        public HGridReader makeReader(InputStream in) { return new HZincReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HZincWriter(out); }
+      });
+      register(new HGridFormat("text/zinc", HZincReader.class, HZincWriter.class, text)
+      {
+        public HGridReader makeReader(InputStream in) { return new HZincReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HZincWriter(out); }
+      });
+      register(new HGridFormat("text/csv", HCsvReader.class, HCsvWriter.class, STREAMING)
+      {
+        public HGridReader makeReader(InputStream in) { return new HCsvReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HCsvWriter(out); }
+      });
+      register(new HGridFormat("application/json", HJsonReader.class, HJsonWriter.class, text)
+      {
+        public HGridReader makeReader(InputStream in) { return new HJsonReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HJsonWriter(out); }
+      });
+      register(new HGridFormat(HBinaryWriter.MIME, HBinaryReader.class, HBinaryWriter.class, binary)
+      {
+        public HGridReader makeReader(InputStream in) { return new HBinaryReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HBinaryWriter(out); }
+      });
+      register(new HGridFormat(HHisGridWriter.MIME, HHisGridReader.class, HHisGridWriter.class, binary)
+      {
+        public HGridReader makeReader(InputStream in) { return new HHisGridReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HHisGridWriter(out); }
+      });
+      register(new HGridFormat("text/trio", HTrioReader.class, HTrioWriter.class, NESTED)
+      {
+        public HGridReader makeReader(InputStream in) { return new HTrioReader(in); }
+        public HGridWriter makeWriter(OutputStream out) { return new HTrioWriter(out); }
+      });
+    }
+    catch (Throwable e) { e.printStackTrace(); }
+
+    // formats of other libraries
     try
     {
-      register(new HGridFormat("text/plain",       HZincReader.class, HZincWriter.class));
-      register(new HGridFormat("text/zinc",        HZincReader.class, HZincWriter.class));
-      register(new HGridFormat("text/csv",         null,              HCsvWriter.class));
-      register(new HGridFormat("application/json", null,              HJsonWriter.class));
+      Iterator it = ServiceLoader.load(HGridFormat.class).iterator();
+      while (it.hasNext())
+      {
+        try { register((HGridFormat)it.next()); }
+        catch (ServiceConfigurationError e) { e.printStackTrace(); }
+      }
     }
     catch (Throwable e) { e.printStackTrace(); }
   }
 
-}
\ No newline at end of file
+}
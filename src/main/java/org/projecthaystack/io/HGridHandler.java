@@ -0,0 +1,39 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import org.projecthaystack.*;
+
+/**
+ * HGridHandler receives a grid from a streaming HGridReader one
+ * piece at a time: first the grid meta and columns, then each row
+ * as soon as it has been parsed, and finally the end of the grid.
+ *
+ * @see HGridReader#readGrid(HGridHandler)
+ */
+public abstract class HGridHandler
+{
+
+  /**
+   * Called once the grid meta and column definitions have been read.
+   * Use the header grid only for its meta and columns; streaming
+   * readers pass a grid which has no rows.
+   */
+  public void onBegin(HGrid header) {}
+
+  /**
+   * Called for each row of the grid.  Readers may reuse the same row
+   * instance for every call, so the row is only valid until this method
+   * returns; copy any cells which must outlive the callback.
+   */
+  public abstract void onRow(HRow row);
+
+  /** Called after the last row of the grid has been read. */
+  public void onEnd() {}
+
+}
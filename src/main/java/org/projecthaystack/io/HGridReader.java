@@ -20,4 +20,88 @@ public abstract class HGridReader
   /** Read a grid */
   public abstract HGrid readGrid();
 
+  /**
+   * Read only the named columns of the grid, in the grid's order, or
+   * every column if null.  Names the grid does not have are ignored.
+   * The Zinc readers still tokenize the cells of other columns, but do
+   * not build lists, dicts or grids from them or store them; other
+   * formats drop them as each row is decoded.  Return this.
+   */
+  public HGridReader setCols(String[] cols)
+  {
+    this.cols = cols == null ? null : cols.clone();
+    return this;
+  }
+
+  /**
+   * Read only the rows which match the filter, or every row if null.
+   * The filter is tested against every column of the row, including
+   * those left out by setCols; ref paths are not followed.  Return this.
+   */
+  public HGridReader setFilter(HFilter filter)
+  {
+    this.filter = filter;
+    return this;
+  }
+
+  /**
+   * Read a grid and stream its meta, columns and rows to the given
+   * handler.  The default implementation reads the whole grid into
+   * memory first; subclasses which can parse incrementally override
+   * this to deliver each row as soon as it is read.
+   */
+  public void readGrid(HGridHandler handler)
+  {
+    HGrid grid = readGrid();
+    handler.onBegin(grid);
+    for (int i=0; i<grid.numRows(); ++i)
+      handler.onRow(grid.row(i));
+    handler.onEnd();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Selection
+//////////////////////////////////////////////////////////////////////////
+
+  /** Return if columns or a filter have been set */
+  boolean selects() { return cols != null || filter != null; }
+
+  /** Return the selection of a grid with the given header, or null if none is set */
+  GridSelection selection(HGrid header)
+  {
+    if (!selects()) return null;
+    return new GridSelection(header, cols, filter);
+  }
+
+  /** Apply the selection, if any, to a grid which has been read in full */
+  HGrid select(HGrid grid)
+  {
+    GridSelection sel = selection(grid);
+    return sel == null ? grid : sel.select(grid);
+  }
+
+  /** Wrap the handler to receive only the selected columns and rows, if any */
+  HGridHandler select(final HGridHandler handler)
+  {
+    if (!selects()) return handler;
+    return new HGridHandler()
+    {
+      public void onBegin(HGrid header)
+      {
+        GridSelection sel = selection(header);
+        rows = sel.rows(handler);
+        handler.onBegin(sel.header);
+      }
+
+      public void onRow(HRow row) { rows.onRow(row); }
+
+      public void onEnd() { handler.onEnd(); }
+
+      private HGridHandler rows;
+    };
+  }
+
+  String[] cols;
+  HFilter filter;
+
 }
\ No newline at end of file
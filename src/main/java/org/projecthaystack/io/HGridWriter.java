@@ -20,10 +20,47 @@ public abstract class HGridWriter
   /** Write a grid */
   public abstract void writeGrid(HGrid grid);
 
+  /**
+   * Begin writing a grid whose rows are supplied one at a time.  The
+   * meta and columns of the given header grid are used; its rows are
+   * ignored.  Follow with any number of calls to writeRow and finish
+   * with endGrid.  The default implementation collects the rows and
+   * writes them with writeGrid once the grid is ended; subclasses which
+   * can encode rows as they arrive override all three methods.
+   */
+  public void beginGrid(HGrid header)
+  {
+    if (pending != null) throw new IllegalStateException("Grid already begun");
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(header.meta());
+    for (int i=0; i<header.numCols(); ++i)
+      b.addCol(header.col(i).name()).add(header.col(i).meta());
+    pending = b;
+  }
+
+  /** Write the next row of the grid begun with beginGrid.  The cells
+      are in column order and may be reused once this method returns. */
+  public void writeRow(HVal[] cells)
+  {
+    if (pending == null) throw new IllegalStateException("No grid begun");
+    pending.addRow(cells);
+  }
+
+  /** End the grid begun with beginGrid */
+  public void endGrid()
+  {
+    if (pending == null) throw new IllegalStateException("No grid begun");
+    HGrid grid = pending.toGrid();
+    pending = null;
+    writeGrid(grid);
+  }
+
   /** Flush output stream */
   public abstract void flush();
 
   /** Close output stream */
   public abstract void close();
 
+  private HGridBuilder pending;
+
 }
\ No newline at end of file
@@ -0,0 +1,404 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.Map;
+import org.projecthaystack.*;
+
+/**
+ * HHaysonWriter writes grids in the Haystack 4 JSON encoding, also known
+ * as Hayson.  Strings, booleans and unitless numbers map to plain JSON
+ * values while other scalars are objects tagged with a "_kind" name, such
+ * as {@code {"_kind":"ref","val":"abc"}}.  Values are encoded straight
+ * into an internal UTF-8 buffer with a single escape pass, and rows may be
+ * streamed one at a time with beginGrid, writeRow and endGrid.
+ * <p>
+ * The "application/json" format remains the Haystack 3 encoding written
+ * by HJsonWriter; servers which want to offer Hayson register this class
+ * under a mime type of their choosing with HGridFormat.register.
+ *
+ * @see <a href='https://project-haystack.org/doc/docHaystack/Json'>Project Haystack</a>
+ */
+public class HHaysonWriter extends HGridWriter
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write using UTF-8 */
+  public HHaysonWriter(OutputStream out)
+  {
+    this.out = out;
+    this.buf = new byte[8192];
+  }
+
+  /** Write a grid to an in-memory string */
+  public static String gridToString(HGrid grid)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(grid.numCols() * grid.numRows() * 32);
+    new HHaysonWriter(out).writeGrid(grid);
+    return toUtf8String(out);
+  }
+
+  /** Write a value to an in-memory string */
+  public static String valToString(HVal val)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+    new HHaysonWriter(out).writeVal(val).flush();
+    return toUtf8String(out);
+  }
+
+  private static String toUtf8String(ByteArrayOutputStream out)
+  {
+    try { return out.toString("UTF-8"); }
+    catch (UnsupportedEncodingException e) { throw new RuntimeException(e); }
+  }
+
+  /** Flush underlying output stream */
+  public void flush()
+  {
+    drain();
+    try { out.flush(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  /** Close underlying output stream */
+  public void close()
+  {
+    drain();
+    try { out.close(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// HGridWriter
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a grid */
+  public void writeGrid(HGrid grid)
+  {
+    writeGridVal(grid);
+    p('\n').flush();
+  }
+
+  /** Begin a grid by writing the meta and columns of header */
+  public void beginGrid(HGrid header)
+  {
+    if (cols != null) throw new IllegalStateException("Grid already begun");
+    writeHeader(header);
+    cols = new String[header.numCols()];
+    for (int i=0; i<cols.length; ++i) cols[i] = header.col(i).name();
+    numRows = 0;
+  }
+
+  /** Write the next row of the grid as an object of its non-null cells */
+  public void writeRow(HVal[] cells)
+  {
+    if (cols == null) throw new IllegalStateException("No grid begun");
+    if (cells.length != cols.length) throw new IllegalArgumentException("Row cells size != cols size");
+    if (numRows++ > 0) p(',');
+    p('\n').p('{');
+    boolean first = true;
+    for (int i=0; i<cells.length; ++i)
+    {
+      if (cells[i] == null) continue;
+      if (first) first = false; else p(',');
+      str(cols[i]).p(':').writeVal(cells[i]);
+    }
+    p('}');
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (cols == null) throw new IllegalStateException("No grid begun");
+    cols = null;
+    p("\n]}\n").flush();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Values
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write any value, including null, as Hayson */
+  public HHaysonWriter writeVal(HVal val)
+  {
+    if (val == null) p("null");
+    else if (val instanceof HStr) str(((HStr)val).val);
+    else if (val instanceof HBool) p(((HBool)val).val ? "true" : "false");
+    else if (val instanceof HNum) writeNum((HNum)val);
+    else if (val instanceof HMarker) p("{\"_kind\":\"marker\"}");
+    else if (val instanceof HRef) writeRef((HRef)val);
+    else if (val instanceof HDateTime) writeDateTime((HDateTime)val);
+    else if (val instanceof HDate) kind("date").encodedVal(val).p('}');
+    else if (val instanceof HTime) kind("time").encodedVal(val).p('}');
+    else if (val instanceof HUri) kind("uri").p(",\"val\":").str(((HUri)val).val).p('}');
+    else if (val instanceof HGrid) writeGridVal((HGrid)val);
+    else if (val instanceof HList) writeList((HList)val);
+    else if (val instanceof HDict) writeDict((HDict)val);
+    else if (val instanceof HNA) p("{\"_kind\":\"na\"}");
+    else if (val instanceof HRemove) p("{\"_kind\":\"remove\"}");
+    else if (val instanceof HCoord) writeCoord((HCoord)val);
+    else if (val instanceof HXStr) writeXStr(((HXStr)val).type, ((HXStr)val).val);
+    else if (val instanceof HBin) writeXStr("Bin", ((HBin)val).mime);
+    else if (val instanceof HSymbol) kind("symbol").p(",\"val\":").str(((HSymbol)val).toZinc().substring(1)).p('}');
+    else throw new IllegalArgumentException("Cannot write " + val.getClass().getName());
+    return this;
+  }
+
+  private void writeGridVal(HGrid grid)
+  {
+    writeHeader(grid);
+    for (int i=0; i<grid.numRows(); ++i)
+    {
+      if (i > 0) p(',');
+      p('\n');
+      writeDict(grid.row(i));
+    }
+    p("\n]}");
+  }
+
+  private void writeHeader(HGrid grid)
+  {
+    kind("grid").p(",\"meta\":{\"ver\":\"3.0\"");
+    writeTags(grid.meta(), false, "ver");
+    p("},\"cols\":[");
+    for (int i=0; i<grid.numCols(); ++i)
+    {
+      HCol col = grid.col(i);
+      if (i > 0) p(',');
+      p("\n{\"name\":").str(col.name());
+      if (!col.meta().isEmpty())
+      {
+        p(",\"meta\":{");
+        writeTags(col.meta(), true, null);
+        p('}');
+      }
+      p('}');
+    }
+    p("\n],\"rows\":[");
+  }
+
+  private void writeDict(HDict dict)
+  {
+    p('{');
+    writeTags(dict, true, null);
+    p('}');
+  }
+
+  private void writeTags(HDict dict, boolean first, String skip)
+  {
+    for (Iterator it = dict.iterator(); it.hasNext(); )
+    {
+      Map.Entry e = (Map.Entry)it.next();
+      String name = (String)e.getKey();
+      if (name.equals(skip)) continue;
+      if (first) first = false; else p(',');
+      str(name).p(':').writeVal((HVal)e.getValue());
+    }
+  }
+
+  private void writeList(HList list)
+  {
+    p('[');
+    for (int i=0; i<list.size(); ++i)
+    {
+      if (i > 0) p(',');
+      writeVal(list.get(i));
+    }
+    p(']');
+  }
+
+  private void writeNum(HNum num)
+  {
+    double v = num.val;
+    boolean finite = !Double.isInfinite(v) && !Double.isNaN(v);
+    if (finite && num.unit == null) { p(numToStr(v)); return; }
+
+    kind("number").p(",\"val\":");
+    if (finite)
+      p(numToStr(v));
+    else
+      str(v == Double.POSITIVE_INFINITY ? "INF" : v == Double.NEGATIVE_INFINITY ? "-INF" : "NaN");
+    if (num.unit != null) p(",\"unit\":").str(num.unit);
+    p('}');
+  }
+
+  /**
+   * Shortest text which reads back as exactly the same double; unlike
+   * zinc it never rounds.  Whole numbers are written without ".0".
+   */
+  private static String numToStr(double v)
+  {
+    if (v == Math.rint(v) && Math.abs(v) < 1e15 && !(v == 0 && 1 / v < 0))
+      return String.valueOf((long)v);
+    return Double.toString(v);
+  }
+
+  private void writeRef(HRef ref)
+  {
+    kind("ref").p(",\"val\":").str(ref.val);
+    if (ref.dis != null) p(",\"dis\":").str(ref.dis);
+    p('}');
+  }
+
+  private void writeDateTime(HDateTime ts)
+  {
+    // zinc encoding is "<iso> <tz>"
+    StringBuilder s = encode(ts);
+    int sp = s.lastIndexOf(" ");
+    kind("dateTime").p(",\"val\":\"").p(s.subSequence(0, sp)).p("\",\"tz\":").str(ts.tz.name).p('}');
+  }
+
+  private void writeCoord(HCoord c)
+  {
+    kind("coord").p(",\"lat\":").p(String.valueOf(c.lat())).p(",\"lng\":").p(String.valueOf(c.lng())).p('}');
+  }
+
+  private void writeXStr(String type, String val)
+  {
+    kind("xstr").p(",\"type\":").str(type).p(",\"val\":").str(val).p('}');
+  }
+
+  /** Open an object with its "_kind" tag */
+  private HHaysonWriter kind(String kind)
+  {
+    return p("{\"_kind\":\"").p(kind).p('"');
+  }
+
+  /** Write the zinc encoding of a date or time, which needs no escapes */
+  private HHaysonWriter encodedVal(HVal val)
+  {
+    return p(",\"val\":\"").p(encode(val)).p('"');
+  }
+
+  /** Encode a value as zinc into the reusable scratch buffer */
+  private StringBuilder encode(HVal val)
+  {
+    StringBuilder s = this.scratch;
+    s.setLength(0);
+    val.encodeZinc(s);
+    return s;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Utils
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a quoted JSON string, escaping as it is copied */
+  private HHaysonWriter str(String s)
+  {
+    p('"');
+    int n = s.length();
+    for (int i=0; i<n; ++i)
+    {
+      char c = s.charAt(i);
+      if (c >= ' ' && c != '"' && c != '\\' && c < 0x80)
+      {
+        if (pos == buf.length) drain();
+        buf[pos++] = (byte)c;
+        continue;
+      }
+      switch (c)
+      {
+        case '"':  p("\\\""); break;
+        case '\\': p("\\\\"); break;
+        case '\n': p("\\n"); break;
+        case '\r': p("\\r"); break;
+        case '\t': p("\\t"); break;
+        case '\b': p("\\b"); break;
+        case '\f': p("\\f"); break;
+        default:
+          if (c < ' ')
+          {
+            p("\\u00").p(hex[c >> 4]).p(hex[c & 0xf]);
+          }
+          else if (Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1)))
+          {
+            utf8(Character.toCodePoint(c, s.charAt(++i)));
+          }
+          else
+          {
+            utf8(Character.isSurrogate(c) ? '?' : c);
+          }
+      }
+    }
+    return p('"');
+  }
+
+  /** Write chars which are known to be ASCII and need no escapes */
+  private HHaysonWriter p(CharSequence s)
+  {
+    int n = s.length();
+    for (int i=0; i<n; ++i)
+    {
+      if (pos == buf.length) drain();
+      buf[pos++] = (byte)s.charAt(i);
+    }
+    return this;
+  }
+
+  private HHaysonWriter p(char c)
+  {
+    if (pos == buf.length) drain();
+    buf[pos++] = (byte)c;
+    return this;
+  }
+
+  private void utf8(int c)
+  {
+    if (pos + 4 > buf.length) drain();
+    if (c < 0x80)
+    {
+      buf[pos++] = (byte)c;
+    }
+    else if (c < 0x800)
+    {
+      buf[pos++] = (byte)(0xc0 | (c >> 6));
+      buf[pos++] = (byte)(0x80 | (c & 0x3f));
+    }
+    else if (c < 0x10000)
+    {
+      buf[pos++] = (byte)(0xe0 | (c >> 12));
+      buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+      buf[pos++] = (byte)(0x80 | (c & 0x3f));
+    }
+    else
+    {
+      buf[pos++] = (byte)(0xf0 | (c >> 18));
+      buf[pos++] = (byte)(0x80 | ((c >> 12) & 0x3f));
+      buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+      buf[pos++] = (byte)(0x80 | (c & 0x3f));
+    }
+  }
+
+  /** Write the buffered bytes to the underlying stream */
+  private void drain()
+  {
+    if (pos == 0) return;
+    try { out.write(buf, 0, pos); }
+    catch (IOException e) { throw new RuntimeException(e); }
+    pos = 0;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final char[] hex = "0123456789abcdef".toCharArray();
+
+  private final OutputStream out;
+  private final byte[] buf;
+  private int pos;
+  private final StringBuilder scratch = new StringBuilder(64);
+  private String[] cols;       // names of grid begun, or null
+  private int numRows;
+}
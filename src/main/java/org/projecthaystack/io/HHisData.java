@@ -0,0 +1,125 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import org.projecthaystack.*;
+
+/**
+ * HHisData holds numeric history samples in primitive arrays: the
+ * timestamps as epoch millis and the values as doubles.  All samples
+ * share one timezone and unit.  It is what HHisGridReader.readHis
+ * decodes compressed history into without creating an HDateTime or
+ * HNum per sample.
+ */
+public final class HHisData
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Construct from the first size elements of the arrays, which are
+   * not copied.  Unit may be null.
+   */
+  public HHisData(HDict meta, HTimeZone tz, String unit, long[] ts, double[] vals, int size)
+  {
+    if (ts.length < size || vals.length < size) throw new IllegalArgumentException("arrays shorter than size");
+    this.meta = meta;
+    this.tz = tz;
+    this.unit = unit;
+    this.ts = ts;
+    this.vals = vals;
+    this.size = size;
+  }
+
+  /**
+   * Convert a grid with "ts" and "val" columns.  Every val must be a
+   * number with the same unit and every ts must be in the same timezone;
+   * a grid with no rows gets the UTC timezone.
+   */
+  public static HHisData make(HGrid grid)
+  {
+    HCol tsCol = grid.col("ts");
+    HCol valCol = grid.col("val");
+    int n = grid.numRows();
+    long[] ts = new long[n];
+    double[] vals = new double[n];
+    HTimeZone tz = null;
+    String unit = null;
+    for (int i=0; i<n; ++i)
+    {
+      HRow row = grid.row(i);
+      HDateTime t = (HDateTime)row.get(tsCol, true);
+      HVal v = row.get(valCol, false);
+      if (!(v instanceof HNum)) throw new IllegalArgumentException("Not a number at row " + i + ": " + v);
+      HNum num = (HNum)v;
+      if (i == 0) { tz = t.tz; unit = num.unit; }
+      else if (t.tz != tz && !t.tz.name.equals(tz.name)) throw new IllegalArgumentException("Mixed timezones: " + tz + ", " + t.tz);
+      else if (unit == null ? num.unit != null : !unit.equals(num.unit)) throw new IllegalArgumentException("Mixed units: " + unit + ", " + num.unit);
+      ts[i] = t.millis();
+      vals[i] = num.val;
+    }
+    return new HHisData(grid.meta(), tz == null ? HTimeZone.UTC : tz, unit, ts, vals, n);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  /** Get the timestamp of sample i */
+  public HDateTime ts(int i)
+  {
+    return HHisGridReader.toDateTime(ts[i], tz);
+  }
+
+  /** Get the value of sample i */
+  public HNum val(int i)
+  {
+    return HNum.make(vals[i], unit);
+  }
+
+  /** Convert to a grid with "ts" and "val" columns */
+  public HGrid toGrid()
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(meta);
+    b.addCol("ts");
+    b.addCol("val");
+    for (int i=0; i<size; ++i)
+      b.addRow(new HVal[] { ts(i), val(i) });
+    return b.toGrid();
+  }
+
+  public String toString()
+  {
+    return "HHisData[" + size + " samples, " + tz + ", " + unit + "]";
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  /** Grid meta such as id, hisStart and hisEnd */
+  public final HDict meta;
+
+  /** Timezone of every timestamp */
+  public final HTimeZone tz;
+
+  /** Unit of every value or null */
+  public final String unit;
+
+  /** Timestamps as Java millis since epoch; only the first size are used */
+  public final long[] ts;
+
+  /** Values; only the first size are used */
+  public final double[] vals;
+
+  /** Number of samples */
+  public final int size;
+}
@@ -0,0 +1,321 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import org.projecthaystack.*;
+
+/**
+ * HHisGridReader reads grids written by HHisGridWriter.  Besides
+ * reading an ordinary grid it can decode numeric history straight into
+ * the primitive arrays of an HHisData with readHis.
+ *
+ * @see HHisGridWriter
+ */
+public class HHisGridReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read from the given stream */
+  public HHisGridReader(InputStream in)
+  {
+    this.in = new BufferedInputStream(in, 8192);
+  }
+
+  /** Read from an in-memory byte array */
+  public HHisGridReader(byte[] in)
+  {
+    this.in = new ByteArrayInputStream(in);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read the grid meta and columns, which is a grid without rows.  This
+   * may be called before readGrid or readHis, for example to check for
+   * an error grid.
+   */
+  public HGrid readHeader()
+  {
+    if (header != null) return header;
+    if (u8() != HHisGridWriter.MAGIC1 || u8() != HHisGridWriter.MAGIC2)
+      throw new ParseException("Not a his grid");
+    int version = u8();
+    if (version != HHisGridWriter.VERSION)
+      throw new ParseException("Unsupported his grid version: " + version);
+    header = new HBinaryReader(bytes()).readGrid();
+    return header;
+  }
+
+  /** Read a grid */
+  public HGrid readGrid()
+  {
+    final HGridBuilder b = new HGridBuilder();
+    readGrid(new HGridHandler()
+    {
+      public void onBegin(HGrid header)
+      {
+        b.meta().add(header.meta());
+        for (int i=0; i<header.numCols(); ++i)
+          b.addCol(header.col(i).name()).add(header.col(i).meta());
+      }
+
+      public void onRow(HRow row)
+      {
+        HVal[] cells = new HVal[row.grid().numCols()];
+        for (int i=0; i<cells.length; ++i) cells[i] = row.get(row.grid().col(i), false);
+        b.addRow(cells);
+      }
+    });
+    return b.toGrid();
+  }
+
+  /**
+   * Read a grid and stream each row to the handler as soon as it has
+   * been decoded.  The same row instance is passed for every row.
+   */
+  public void readGrid(HGridHandler target)
+  {
+    final HGridHandler handler = select(target);
+    try
+    {
+      HGrid header = readHeader();
+      final HVal[] cells = new HVal[header.numCols()];
+      final HRow row = header.makeRow(cells);
+      handler.onBegin(header);
+      for (int tag; (tag = u8()) != HHisGridWriter.END; )
+      {
+        if (tag == HHisGridWriter.SAMPLES)
+        {
+          if (cells.length != 2) throw new ParseException("Samples in grid without ts, val");
+          readSamples();
+          for (int i=0; i<size; ++i)
+          {
+            cells[0] = toDateTime(ts[i], tz);
+            cells[1] = HNum.make(vals[i], unit);
+            handler.onRow(row);
+          }
+        }
+        else
+        {
+          readRows(tag, new HGridHandler()
+          {
+            public void onRow(HRow r)
+            {
+              for (int i=0; i<cells.length; ++i) cells[i] = r.get(r.grid().col(i), false);
+              handler.onRow(row);
+            }
+          });
+        }
+      }
+      handler.onEnd();
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /**
+   * Read a grid with "ts" and "val" columns into primitive arrays.
+   * Throw ParseException if it has other columns or if any value is not
+   * a number with the same unit and timezone as the others.
+   */
+  public HHisData readHis()
+  {
+    try
+    {
+      HGrid header = readHeader();
+      if (header.numCols() != 2 || !header.col(0).name().equals("ts") || !header.col(1).name().equals("val"))
+        throw new ParseException("Not a his grid: " + header.meta());
+
+      final HisAcc acc = new HisAcc();
+      for (int tag; (tag = u8()) != HHisGridWriter.END; )
+      {
+        if (tag == HHisGridWriter.SAMPLES)
+        {
+          readSamples();
+          acc.check(tz, unit);
+          acc.grow(size);
+          System.arraycopy(ts, 0, acc.ts, acc.size, size);
+          System.arraycopy(vals, 0, acc.vals, acc.size, size);
+          acc.size += size;
+        }
+        else
+        {
+          readRows(tag, new HGridHandler()
+          {
+            public void onRow(HRow r)
+            {
+              HVal t = r.get("ts", false);
+              HVal v = r.get("val", false);
+              if (!(t instanceof HDateTime) || !(v instanceof HNum))
+                throw new ParseException("Not a numeric sample: " + t + ", " + v);
+              acc.check(((HDateTime)t).tz, ((HNum)v).unit);
+              acc.grow(1);
+              acc.ts[acc.size] = ((HDateTime)t).millis();
+              acc.vals[acc.size] = ((HNum)v).val;
+              acc.size++;
+            }
+          });
+        }
+      }
+      HTimeZone tz = acc.tz == null ? HTimeZone.UTC : acc.tz;
+      return new HHisData(header.meta(), tz, acc.unit, acc.ts, acc.vals, acc.size);
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /** Close underlying input stream */
+  public void close()
+  {
+    try { in.close(); }
+    catch (IOException e) { e.printStackTrace(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Chunks
+//////////////////////////////////////////////////////////////////////////
+
+  /** Decode a SAMPLES chunk into ts, vals, size, tz and unit */
+  private void readSamples()
+  {
+    String tzName = str();
+    if (!tzName.equals(tzNameLast)) { tz = HTimeZone.make(tzName); tzNameLast = tzName; }
+    int flag = u8();
+    unit = flag == 0 ? null : str();
+    size = varint();
+    if (size > HHisGridWriter.CHUNK) throw new ParseException("Invalid sample count: " + size);
+    GorillaCodec.decode(bytes(), size, ts, vals, 0);
+  }
+
+  private void readRows(int tag, HGridHandler handler)
+  {
+    if (tag != HHisGridWriter.ROWS) throw new ParseException("Unknown chunk tag: " + tag);
+    byte[] bytes = bytes();
+    new HBinaryReader(bytes).readGrid(handler);
+  }
+
+  /** Timestamp with the offset its timezone has at that instant */
+  static HDateTime toDateTime(long millis, HTimeZone tz)
+  {
+    return HBinaryReader.dateTime(millis, tz.java.getOffset(millis) / 1000, tz);
+  }
+
+  /** Growable arrays for readHis */
+  private static final class HisAcc
+  {
+    void check(HTimeZone t, String u)
+    {
+      if (size == 0 && tz == null) { tz = t; unit = u; return; }
+      if (t != tz) throw new ParseException("Mixed timezones: " + tz + ", " + t);
+      if (u == null ? unit != null : !u.equals(unit)) throw new ParseException("Mixed units: " + unit + ", " + u);
+    }
+
+    void grow(int n)
+    {
+      if (size + n <= ts.length) return;
+      int cap = Math.max(ts.length * 2, size + n);
+      long[] t = new long[cap];
+      double[] v = new double[cap];
+      System.arraycopy(ts, 0, t, 0, size);
+      System.arraycopy(vals, 0, v, 0, size);
+      ts = t;
+      vals = v;
+    }
+
+    HTimeZone tz;
+    String unit;
+    long[] ts = new long[1024];
+    double[] vals = new double[1024];
+    int size;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Decoding
+//////////////////////////////////////////////////////////////////////////
+
+  private String str()
+  {
+    return new String(bytes(), UTF8);
+  }
+
+  /** Read a varint length and that many bytes */
+  private byte[] bytes()
+  {
+    int n = varint();
+    if (n < 0) throw new ParseException("Invalid length: " + n);
+    byte[] b = new byte[n];
+    try
+    {
+      for (int i=0; i<n; )
+      {
+        int r = in.read(b, i, n - i);
+        if (r < 0) throw new ParseException("Unexpected end of input");
+        i += r;
+      }
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+    return b;
+  }
+
+  private int varint()
+  {
+    int v = 0;
+    for (int shift=0; shift<35; shift+=7)
+    {
+      int b = u8();
+      v |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return v;
+    }
+    throw new ParseException("Invalid varint");
+  }
+
+  private int u8()
+  {
+    try
+    {
+      int b = in.read();
+      if (b < 0) throw new ParseException("Unexpected end of input");
+      return b;
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final InputStream in;
+  private HGrid header;
+
+  // last samples chunk
+  private final long[] ts = new long[HHisGridWriter.CHUNK];
+  private final double[] vals = new double[HHisGridWriter.CHUNK];
+  private int size;
+  private HTimeZone tz;
+  private String tzNameLast;
+  private String unit;
+}
@@ -0,0 +1,268 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import org.projecthaystack.*;
+
+/**
+ * HHisGridWriter writes history grids in a compressed binary format.
+ * Runs of rows whose "ts" is a timestamp and whose "val" is a number
+ * are packed with GorillaCodec, which typically needs a couple of bits
+ * per sample for regular intervals.  Any other grid, or any row which
+ * does not fit, is written as an embedded HBinaryWriter grid so that
+ * every grid still round trips exactly.  Read the format back with
+ * HHisGridReader.
+ * <p>
+ * The stream starts with the magic bytes "HG" and the format version,
+ * followed by the varint length and bytes of a binary grid with the
+ * meta and columns but no rows.  Then come chunks in row order: SAMPLES
+ * is the timezone name, a unit flag byte and unit, the varint number of
+ * samples and the varint length and bytes of the packed samples; ROWS
+ * is the varint length and bytes of a binary grid with the same columns.
+ * The stream ends with an END byte.  Sample timestamps are stored as
+ * epoch millis, so a timestamp is only packed when its offset is the one
+ * its timezone rules give for that instant.
+ */
+public class HHisGridWriter extends HGridWriter
+{
+
+  /** Vendor mime type of the compressed history format */
+  public static final String MIME = "application/vnd.haystack.his";
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write to the given stream */
+  public HHisGridWriter(OutputStream out)
+  {
+    this.out = out;
+  }
+
+  /** Write a grid to an in-memory byte array */
+  public static byte[] gridToBytes(HGrid grid)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(grid.numRows() * 4 + 64);
+    HHisGridWriter w = new HHisGridWriter(out);
+    w.writeGrid(grid);
+    w.flush();
+    return out.toByteArray();
+  }
+
+  /** Flush underlying output stream */
+  public void flush()
+  {
+    try { out.flush(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  /** Close underlying output stream */
+  public void close()
+  {
+    try { out.close(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// HGridWriter
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a grid */
+  public void writeGrid(HGrid grid)
+  {
+    beginGrid(grid);
+    HVal[] cells = new HVal[grid.numCols()];
+    for (int r=0; r<grid.numRows(); ++r)
+    {
+      HRow row = grid.row(r);
+      for (int c=0; c<cells.length; ++c) cells[c] = row.get(grid.col(c), false);
+      writeRow(cells);
+    }
+    endGrid();
+  }
+
+  /** Begin a grid by writing the meta and columns of header */
+  public void beginGrid(HGrid header)
+  {
+    if (rowHeader != null) throw new IllegalStateException("Grid already begun");
+
+    // full header, then the bare columns used by row chunks
+    HGridBuilder hb = new HGridBuilder();
+    HGridBuilder rb = new HGridBuilder();
+    hb.meta().add(header.meta());
+    for (int i=0; i<header.numCols(); ++i)
+    {
+      HCol col = header.col(i);
+      hb.addCol(col.name()).add(col.meta());
+      rb.addCol(col.name());
+    }
+    numCols = header.numCols();
+    his = numCols == 2 && header.col(0).name().equals("ts") && header.col(1).name().equals("val");
+    rowHeader = rb.toGrid();
+
+    buf.write(MAGIC1);
+    buf.write(MAGIC2);
+    buf.write(VERSION);
+    bytes(HBinaryWriter.gridToBytes(hb.toGrid()));
+    drain();
+  }
+
+  /**
+   * Write the next row of the grid.  The cells are copied, so the
+   * array may be reused for the next row.
+   */
+  public void writeRow(HVal[] cells)
+  {
+    if (rowHeader == null) throw new IllegalStateException("No grid begun");
+    if (cells.length != numCols) throw new IllegalArgumentException("Row cells size != cols size");
+    if (his && isSample(cells[0], cells[1])) addSample((HDateTime)cells[0], (HNum)cells[1]);
+    else addRow(cells);
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (rowHeader == null) throw new IllegalStateException("No grid begun");
+    if (numSamples > 0) writeSamples();
+    if (numRows > 0) writeRows();
+    buf.write(END);
+    drain();
+    rowHeader = null;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Chunks
+//////////////////////////////////////////////////////////////////////////
+
+  /** Can the pair be packed without losing its offset */
+  private static boolean isSample(HVal ts, HVal val)
+  {
+    if (!(ts instanceof HDateTime) || !(val instanceof HNum)) return false;
+    HDateTime t = (HDateTime)ts;
+    return t.tzOffset * 1000 == t.tz.java.getOffset(t.millis());
+  }
+
+  private void addSample(HDateTime t, HNum num)
+  {
+    if (numRows > 0) writeRows();
+    if (numSamples > 0 && (t.tz != tz || !eq(num.unit, unit))) writeSamples();
+    if (numSamples == 0) { tz = t.tz; unit = num.unit; }
+    ts[numSamples] = t.millis();
+    vals[numSamples] = num.val;
+    if (++numSamples == CHUNK) writeSamples();
+  }
+
+  private void addRow(HVal[] cells)
+  {
+    if (numSamples > 0) writeSamples();
+    if (rowWriter == null) rowWriter = new HBinaryWriter(rowBytes);
+    if (numRows == 0) rowWriter.beginGrid(rowHeader);
+    rowWriter.writeRow(cells);
+    if (++numRows == CHUNK) writeRows();
+  }
+
+  private void writeSamples()
+  {
+    buf.write(SAMPLES);
+    str(tz.name);
+    if (unit == null) buf.write(0);
+    else { buf.write(1); str(unit); }
+    varint(numSamples);
+    bytes(GorillaCodec.encode(ts, vals, numSamples));
+    numSamples = 0;
+    drain();
+  }
+
+  private void writeRows()
+  {
+    rowWriter.endGrid();
+    rowWriter.flush();
+    buf.write(ROWS);
+    bytes(rowBytes.toByteArray());
+    rowBytes.reset();
+    numRows = 0;
+    drain();
+  }
+
+  private static boolean eq(String a, String b)
+  {
+    return a == null ? b == null : a.equals(b);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Encoding
+//////////////////////////////////////////////////////////////////////////
+
+  private void str(String s)
+  {
+    bytes(s.getBytes(UTF8));
+  }
+
+  /** Write the varint length and the bytes */
+  private void bytes(byte[] b)
+  {
+    varint(b.length);
+    buf.write(b, 0, b.length);
+  }
+
+  private void varint(int v)
+  {
+    while ((v & ~0x7f) != 0)
+    {
+      buf.write((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    buf.write(v);
+  }
+
+  /** Write the buffered chunk to the underlying stream */
+  private void drain()
+  {
+    try { buf.writeTo(out); }
+    catch (IOException e) { throw new RuntimeException(e); }
+    buf.reset();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int MAGIC1  = 'H';
+  static final int MAGIC2  = 'G';
+  static final int VERSION = 1;
+
+  // chunk tags
+  static final int END     = 0;
+  static final int SAMPLES = 1;
+  static final int ROWS    = 2;
+
+  /** Most samples or rows in one chunk */
+  static final int CHUNK = 4096;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final OutputStream out;
+  private final ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+  private HGrid rowHeader;     // columns of grid begun, or null
+  private int numCols;
+  private boolean his;         // columns are exactly ts, val
+
+  // pending samples
+  private final long[] ts = new long[CHUNK];
+  private final double[] vals = new double[CHUNK];
+  private int numSamples;
+  private HTimeZone tz;
+  private String unit;
+
+  // pending rows
+  private final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+  private HBinaryWriter rowWriter;
+  private int numRows;
+}
@@ -0,0 +1,573 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.util.*;
+import org.projecthaystack.*;
+
+/**
+ * HJsonReader reads grids in the JSON format written by HJsonWriter.
+ * It is a hand written pull parser which decodes each row of the
+ * top-level "rows" array straight into the cells of the grid, so
+ * readGrid(HGridHandler) can stream rows of a large document without
+ * ever holding the whole text or a JSON tree in memory.
+ * <p>
+ * Rows are only streamed when "meta" and "cols" come before "rows"
+ * in the document, which is always the case for HJsonWriter; any other
+ * key order is still read correctly, but the rows are buffered first.
+ *
+ * @see <a href='http://project-haystack.org/doc/Json'>Project Haystack</a>
+ */
+public class HJsonReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read using UTF-8 */
+  public HJsonReader(InputStream in)
+  {
+    try
+    {
+      this.in = new InputStreamReader(in, "UTF-8");
+    }
+    catch (UnsupportedEncodingException e)
+    {
+      throw new RuntimeException(e.toString());
+    }
+  }
+
+  /** Read from in-memory string */
+  public HJsonReader(String in)
+  {
+    this.in = new StringReader(in);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read a grid */
+  public HGrid readGrid()
+  {
+    final HGridBuilder b = new HGridBuilder();
+    readGrid(new HGridHandler()
+    {
+      public void onBegin(HGrid header)
+      {
+        b.meta().add(header.meta());
+        for (int i=0; i<header.numCols(); ++i)
+          b.addCol(header.col(i).name()).add(header.col(i).meta());
+      }
+
+      public void onRow(HRow row)
+      {
+        HVal[] cells = new HVal[row.grid().numCols()];
+        for (int i=0; i<cells.length; ++i) cells[i] = row.get(row.grid().col(i), false);
+        b.addRow(cells);
+      }
+    });
+    return b.toGrid();
+  }
+
+  /**
+   * Read a grid and stream each row to the handler as soon as it has
+   * been parsed.  The same row instance is passed for every row.
+   */
+  public void readGrid(HGridHandler handler)
+  {
+    handler = select(handler);
+    try
+    {
+      HDict meta = null;
+      HDict[] cols = null;
+      HList pending = null;
+      boolean begun = false;
+
+      consume('{');
+      if (!tryConsume('}'))
+      {
+        do
+        {
+          String key = readKey();
+          if (key.equals("meta"))
+          {
+            meta = toDict(readVal(), "meta");
+          }
+          else if (key.equals("cols"))
+          {
+            cols = toCols(readVal());
+          }
+          else if (key.equals("rows"))
+          {
+            // stream the rows if we have seen the header
+            if (meta != null && cols != null && !begun)
+            {
+              begin(handler, meta, cols);
+              begun = true;
+              readRows(handler);
+            }
+            else
+            {
+              pending = toList(readVal(), "rows");
+            }
+          }
+          else
+          {
+            readVal();
+          }
+        }
+        while (tryConsume(','));
+        consume('}');
+      }
+      skipSpace();
+      if (peek() >= 0) throw err("Expected end of input, not " + curToStr());
+
+      if (!begun)
+      {
+        if (cols == null) throw err("Missing grid 'cols'");
+        begin(handler, meta == null ? HDict.EMPTY : meta, cols);
+        for (int i=0; pending != null && i<pending.size(); ++i)
+        {
+          HDict dict = toDict(pending.get(i), "row");
+          Arrays.fill(cells, null);
+          for (Iterator it = dict.iterator(); it.hasNext(); )
+          {
+            Map.Entry e = (Map.Entry)it.next();
+            Integer c = (Integer)colIndex.get(e.getKey());
+            if (c == null) throw err("Row has unknown column: " + e.getKey());
+            cells[c.intValue()] = (HVal)e.getValue();
+          }
+          handler.onRow(row);
+        }
+      }
+      handler.onEnd();
+    }
+    finally
+    {
+      close();
+    }
+  }
+
+  /** Close underlying input stream */
+  public void close()
+  {
+    try { in.close(); }
+    catch (IOException e) { e.printStackTrace(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Grid
+//////////////////////////////////////////////////////////////////////////
+
+  private void begin(HGridHandler handler, HDict meta, HDict[] cols)
+  {
+    this.header = toHeader(meta, cols);
+    this.cells = new HVal[header.numCols()];
+    this.row = header.makeRow(cells);
+    this.colIndex = new HashMap(cols.length * 2);
+    for (int i=0; i<cols.length; ++i)
+      colIndex.put(header.col(i).name(), new Integer(i));
+    handler.onBegin(header);
+  }
+
+  /** Read the rows array, decoding each object into the cells */
+  private void readRows(HGridHandler handler)
+  {
+    consume('[');
+    if (tryConsume(']')) return;
+    do
+    {
+      Arrays.fill(cells, null);
+      consume('{');
+      if (!tryConsume('}'))
+      {
+        int hint = 0;
+        do
+        {
+          skipSpace();
+          readStr(key);
+          int i = colIndex(hint);
+          consume(':');
+          cells[i] = readVal();
+          hint = i + 1;
+        }
+        while (tryConsume(','));
+        consume('}');
+      }
+      handler.onRow(row);
+    }
+    while (tryConsume(','));
+    consume(']');
+  }
+
+  /**
+   * Find the column named by the key buffer.  Rows normally list their
+   * cells in column order, so check the column after the last one first
+   * to avoid making a string for each key.
+   */
+  private int colIndex(int hint)
+  {
+    if (hint < cells.length && contentEquals(header.col(hint).name(), key)) return hint;
+    Integer i = (Integer)colIndex.get(key.toString());
+    if (i == null) throw err("Row has unknown column: " + key);
+    return i.intValue();
+  }
+
+  private static boolean contentEquals(String s, StringBuilder b)
+  {
+    int n = s.length();
+    if (n != b.length()) return false;
+    for (int i=0; i<n; ++i)
+      if (s.charAt(i) != b.charAt(i)) return false;
+    return true;
+  }
+
+  private HGrid toHeader(HDict meta, HDict[] cols)
+  {
+    HGridBuilder b = new HGridBuilder();
+    for (Iterator it = meta.iterator(); it.hasNext(); )
+    {
+      Map.Entry e = (Map.Entry)it.next();
+      if (!e.getKey().equals("ver")) b.meta().add((String)e.getKey(), (HVal)e.getValue());
+    }
+    for (int i=0; i<cols.length; ++i)
+    {
+      HVal name = cols[i].get("name", false);
+      if (!(name instanceof HStr)) throw err("Column missing 'name'");
+      HDictBuilder colMeta = b.addCol(((HStr)name).val);
+      for (Iterator it = cols[i].iterator(); it.hasNext(); )
+      {
+        Map.Entry e = (Map.Entry)it.next();
+        if (!e.getKey().equals("name")) colMeta.add((String)e.getKey(), (HVal)e.getValue());
+      }
+    }
+    return b.toGrid();
+  }
+
+  private HDict[] toCols(HVal val)
+  {
+    HList list = toList(val, "cols");
+    HDict[] cols = new HDict[list.size()];
+    for (int i=0; i<cols.length; ++i) cols[i] = toDict(list.get(i), "col");
+    return cols;
+  }
+
+  private HDict toDict(HVal val, String what)
+  {
+    if (val instanceof HDict) return (HDict)val;
+    throw err("Expected object for " + what);
+  }
+
+  private HList toList(HVal val, String what)
+  {
+    if (val instanceof HList) return (HList)val;
+    throw err("Expected array for " + what);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Values
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read any JSON value and decode it to its Haystack value */
+  private HVal readVal()
+  {
+    skipSpace();
+    int c = peek();
+    switch (c)
+    {
+      case '{': return readObject();
+      case '[': return readArray();
+      case '"':
+        StringBuilder s = this.str;
+        s.setLength(0);
+        readStr(s);
+        return decodeStr(s);
+      case 't': literal("true");  return HBool.TRUE;
+      case 'f': literal("false"); return HBool.FALSE;
+      case 'n': literal("null");  return null;
+    }
+    if (c == '-' || (c >= '0' && c <= '9')) return readNum();
+    throw err("Unexpected " + curToStr());
+  }
+
+  /** Read an object as a dict, or as a grid if it has meta/cols/rows */
+  private HVal readObject()
+  {
+    consume('{');
+    HDictBuilder b = new HDictBuilder();
+    if (!tryConsume('}'))
+    {
+      do
+      {
+        String name = readKey();
+        HVal val = readVal();
+        if (val != null) b.add(name, val);
+      }
+      while (tryConsume(','));
+      consume('}');
+    }
+
+    // nested grid
+    HVal meta = b.get("meta", false);
+    HVal cols = b.get("cols", false);
+    HVal rows = b.get("rows", false);
+    if (meta instanceof HDict && ((HDict)meta).has("ver") && cols instanceof HList && rows instanceof HList)
+    {
+      HGrid header = toHeader((HDict)meta, toCols(cols));
+      HGridBuilder gb = new HGridBuilder();
+      gb.meta().add(header.meta());
+      for (int i=0; i<header.numCols(); ++i)
+        gb.addCol(header.col(i).name()).add(header.col(i).meta());
+      HList list = (HList)rows;
+      for (int i=0; i<list.size(); ++i)
+      {
+        HDict dict = toDict(list.get(i), "row");
+        HVal[] cells = new HVal[header.numCols()];
+        for (int c=0; c<cells.length; ++c)
+          cells[c] = dict.get(header.col(c).name(), false);
+        gb.addRow(cells);
+      }
+      return gb.toGrid();
+    }
+    return b.toDict();
+  }
+
+  private HList readArray()
+  {
+    consume('[');
+    if (tryConsume(']')) return HList.EMPTY;
+    ArrayList acc = new ArrayList();
+    do { acc.add(readVal()); } while (tryConsume(','));
+    consume(']');
+    return HList.make(acc);
+  }
+
+  /** Read a bare JSON number */
+  private HNum readNum()
+  {
+    StringBuilder s = this.str;
+    s.setLength(0);
+    while (true)
+    {
+      int c = peek();
+      if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') s.append((char)read());
+      else break;
+    }
+    try { return HNum.make(Double.parseDouble(s.toString())); }
+    catch (NumberFormatException e) { throw err("Invalid number: " + s); }
+  }
+
+  /**
+   * Decode a JSON string using its type prefix such as "n:" or "r:";
+   * strings without a known prefix are plain Str values.
+   */
+  private HVal decodeStr(StringBuilder s)
+  {
+    if (s.length() < 2 || s.charAt(1) != ':') return HStr.make(s.toString());
+    try
+    {
+      switch (s.charAt(0))
+      {
+        case 'm': return HMarker.VAL;
+        case 'z': return HNA.VAL;
+        case '-': return HRemove.VAL;
+        case 's': return HStr.make(s.substring(2));
+        case 'n': return decodeNum(s);
+        case 'r': return decodeRef(s);
+        case 'd': return HDate.make(s.substring(2));
+        case 'h': return HTime.make(s.substring(2));
+        case 't': return HDateTime.make(s.substring(2));
+        case 'u': return HUri.make(s.substring(2));
+        case 'b': return HBin.make(s.substring(2));
+        case 'c': return HCoord.make("C(" + s.substring(2) + ")");
+        case 'y': return HSymbol.make(s.substring(2));
+        case 'x': return decodeXStr(s);
+      }
+    }
+    catch (RuntimeException e) { throw err("Invalid value: " + s, e); }
+    return HStr.make(s.toString());
+  }
+
+  private HNum decodeNum(StringBuilder s)
+  {
+    int sp = s.indexOf(" ", 2);
+    String num = sp < 0 ? s.substring(2) : s.substring(2, sp);
+    String unit = sp < 0 ? null : s.substring(sp+1);
+    double val;
+    if (num.equals("INF")) val = Double.POSITIVE_INFINITY;
+    else if (num.equals("-INF")) val = Double.NEGATIVE_INFINITY;
+    else if (num.equals("NaN")) val = Double.NaN;
+    else val = Double.parseDouble(num);
+    return HNum.make(val, unit);
+  }
+
+  private HRef decodeRef(StringBuilder s)
+  {
+    int sp = s.indexOf(" ", 2);
+    if (sp < 0) return HRef.make(s.substring(2));
+    return HRef.make(s.substring(2, sp), s.substring(sp+1));
+  }
+
+  /** HJsonWriter writes Remove as "x:", otherwise "x:Type:val" is an XStr */
+  private HVal decodeXStr(StringBuilder s)
+  {
+    if (s.length() == 2) return HRemove.VAL;
+    int colon = s.indexOf(":", 2);
+    if (colon < 0) throw err("Invalid XStr: " + s);
+    return HXStr.decode(s.substring(2, colon), s.substring(colon+1));
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Tokens
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read an object key and its colon */
+  private String readKey()
+  {
+    skipSpace();
+    StringBuilder s = this.key;
+    readStr(s);
+    consume(':');
+    return s.toString();
+  }
+
+  /** Read a quoted string into the buffer, decoding escapes */
+  private void readStr(StringBuilder s)
+  {
+    s.setLength(0);
+    if (read() != '"') throw err("Expected string");
+    while (true)
+    {
+      // copy runs of plain chars straight from the read buffer
+      int start = pos;
+      char[] buf = this.buf;
+      int i = start;
+      while (i < len && buf[i] != '"' && buf[i] != '\\' && buf[i] != '\n') ++i;
+      s.append(buf, start, i - start);
+      pos = i;
+
+      int c = read();
+      if (c == '"') return;
+      if (c < 0) throw err("Unexpected end of string");
+      if (c == '\n') { ++line; s.append('\n'); continue; }
+      if (c != '\\') { s.append((char)c); continue; }
+      c = read();
+      switch (c)
+      {
+        case '"':  s.append('"'); break;
+        case '\\': s.append('\\'); break;
+        case '/':  s.append('/'); break;
+        case 'b':  s.append('\b'); break;
+        case 'f':  s.append('\f'); break;
+        case 'n':  s.append('\n'); break;
+        case 'r':  s.append('\r'); break;
+        case 't':  s.append('\t'); break;
+        case 'u':
+          int u = 0;
+          for (int j=0; j<4; ++j)
+          {
+            int h = Character.digit(read(), 16);
+            if (h < 0) throw err("Invalid unicode escape");
+            u = (u << 4) | h;
+          }
+          s.append((char)u);
+          break;
+        default: throw err("Invalid escape sequence: \\" + (char)c);
+      }
+    }
+  }
+
+  private void literal(String s)
+  {
+    for (int i=0; i<s.length(); ++i)
+      if (read() != s.charAt(i)) throw err("Expected " + s);
+  }
+
+  private void consume(char c)
+  {
+    skipSpace();
+    if (peek() != c) throw err("Expected '" + c + "', not " + curToStr());
+    ++pos;
+  }
+
+  private boolean tryConsume(char c)
+  {
+    skipSpace();
+    if (peek() != c) return false;
+    ++pos;
+    return true;
+  }
+
+  private void skipSpace()
+  {
+    while (true)
+    {
+      int c = peek();
+      if (c == ' ' || c == '\t' || c == '\r') ++pos;
+      else if (c == '\n') { ++pos; ++line; }
+      else return;
+    }
+  }
+
+  private String curToStr()
+  {
+    int c = peek();
+    return c < 0 ? "end of input" : "'" + (char)c + "'";
+  }
+
+  private int peek()
+  {
+    if (pos == len && !fill()) return -1;
+    return buf[pos];
+  }
+
+  private int read()
+  {
+    if (pos == len && !fill()) return -1;
+    return buf[pos++];
+  }
+
+  private boolean fill()
+  {
+    try
+    {
+      int n = in.read(buf, 0, buf.length);
+      if (n <= 0) return false;
+      pos = 0;
+      len = n;
+      return true;
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private ParseException err(String msg) { return err(msg, null); }
+  private ParseException err(String msg, Exception e) { return new ParseException(msg + " [line " + line + "]", e); }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final Reader in;
+  private final char[] buf = new char[8192];
+  private int pos;
+  private int len;
+  private int line = 1;
+  private final StringBuilder key = new StringBuilder(32);
+  private final StringBuilder str = new StringBuilder(64);
+
+  private HGrid header;        // top-level grid once begun
+  private HVal[] cells;        // cells of the current row
+  private HRow row;            // row over cells passed to handler
+  private HashMap colIndex;    // column name to Integer index
+}
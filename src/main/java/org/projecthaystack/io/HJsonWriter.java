@@ -55,6 +55,57 @@ public class HJsonWriter extends HGridWriter
 
   /** Write a grid */
   public void writeGrid(HGrid grid)
+  {
+    writeHeader(grid);
+
+    // rows
+    for (int i=0; i<grid.numRows(); ++i)
+    {
+      if (i > 0) out.print(",\n");
+      writeDict(grid.row(i));
+    }
+    writeEnd();
+  }
+
+  /** Begin a grid by writing the meta and columns of header */
+  public void beginGrid(HGrid header)
+  {
+    if (colNames != null) throw new IllegalStateException("Grid already begun");
+    writeHeader(header);
+    colNames = new String[header.numCols()];
+    for (int i=0; i<colNames.length; ++i)
+      colNames[i] = HStr.toCode(header.col(i).name());
+    numRows = 0;
+  }
+
+  /** Write the next row of the grid as an object of its non-null cells */
+  public void writeRow(HVal[] cells)
+  {
+    if (colNames == null) throw new IllegalStateException("No grid begun");
+    if (cells.length != colNames.length) throw new IllegalArgumentException("Row cells size != cols size");
+    if (numRows++ > 0) out.print(",\n");
+    out.print("{");
+    boolean first = true;
+    for (int i=0; i<cells.length; ++i)
+    {
+      if (cells[i] == null) continue;
+      if (first) first = false; else out.print(", ");
+      out.print(colNames[i]);
+      out.print(":");
+      writeVal(cells[i]);
+    }
+    out.print("}");
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (colNames == null) throw new IllegalStateException("No grid begun");
+    colNames = null;
+    writeEnd();
+  }
+
+  private void writeHeader(HGrid grid)
   {
     // grid begin
     out.print("{\n");
@@ -81,11 +132,10 @@ public class HJsonWriter extends HGridWriter
 
     // rows
     out.print("\"rows\":[\n");
-    for (int i=0; i<grid.numRows(); ++i)
-    {
-      if (i > 0) out.print(",\n");
-      writeDict(grid.row(i));
-    }
+  }
+
+  private void writeEnd()
+  {
     out.print("\n]\n");
 
     // grid end
@@ -121,7 +171,26 @@ public class HJsonWriter extends HGridWriter
     else if(val instanceof HDict) writeDict((HDict) val);
     else if(val instanceof HGrid) writeGrid((HGrid) val);
     else if(val instanceof HList) writeList((HList) val);
-    else out.print(HStr.toCode(val.toJson()));
+    else writeScalar(val);
+  }
+
+  /** Write the JSON string value of a scalar as a quoted JSON string */
+  private void writeScalar(HVal val)
+  {
+    StringBuilder s = this.scratch;
+    s.setLength(0);
+    val.encodeJson(s);
+    int n = s.length();
+    for (int i=0; i<n; ++i)
+    {
+      char c = s.charAt(i);
+      if (c < ' ' || c == '"' || c == '\\') { out.print(HStr.toCode(s.toString())); return; }
+    }
+    if (chars.length < n) chars = new char[Math.max(n, chars.length * 2)];
+    s.getChars(0, n, chars, 0);
+    out.write('"');
+    out.write(chars, 0, n);
+    out.write('"');
   }
 
   private void writeList(HList list)
@@ -151,5 +220,9 @@ public class HJsonWriter extends HGridWriter
 //////////////////////////////////////////////////////////////////////////
 
   private PrintWriter out;
+  private String[] colNames;   // quoted names of grid begun, or null
+  private int numRows;
+  private final StringBuilder scratch = new StringBuilder(64);
+  private char[] chars = new char[64];
 
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.util.*;
+import org.projecthaystack.*;
+
+/**
+ * HTrioReader reads records in the Trio format one HDict at a time,
+ * so a site database of any size can be loaded into a store without
+ * building a grid first:
+ * <pre>
+ *   HTrioReader r = new HTrioReader(in);
+ *   HDict rec;
+ *   while ((rec = r.readDict()) != null) store.add(rec);
+ * </pre>
+ * Records are separated by lines starting with "---".  Each line of a
+ * record is a marker tag name or a {@code name: value} pair where the
+ * value is a Zinc scalar, or a string if it does not parse as one.
+ * A tag with nothing after its colon takes the following indented lines
+ * as a multi-line string, and {@code name: Zinc:} takes them as a Zinc
+ * value such as a nested grid.  Blank lines and lines starting with "//"
+ * are skipped.
+ *
+ * @see HTrioWriter
+ * @see <a href='http://project-haystack.org/doc/Trio'>Project Haystack</a>
+ */
+public class HTrioReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read from UTF-8 input stream */
+  public HTrioReader(InputStream in)
+  {
+    try
+    {
+      this.in = new BufferedReader(new InputStreamReader(in, "UTF-8"), 8192);
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** Read from in-memory string */
+  public HTrioReader(String in)
+  {
+    this.in = new BufferedReader(new StringReader(in));
+  }
+
+  /**
+   * Canonicalize the tag names and values read from now on through the
+   * given interner, or pass null to stop interning.  Return this.
+   */
+  public HTrioReader setInterner(HaystackInterner interner)
+  {
+    this.interner = interner;
+    return this;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read the next record, or return null and close the stream if there
+   * are no more.
+   */
+  public HDict readDict()
+  {
+    HDictBuilder b = new HDictBuilder();
+    String line;
+    while ((line = readLine()) != null)
+    {
+      // indented lines and blank lines inside them make up a block
+      if (blockName != null)
+      {
+        if (line.length() == 0) { ++blockBlanks; continue; }
+        if (isIndent(line.charAt(0)))
+        {
+          for (; blockBlanks > 0; --blockBlanks) block.add("");
+          block.add(unindent(line));
+          continue;
+        }
+        endBlock(b);
+      }
+
+      if (line.startsWith("---"))
+      {
+        if (!b.isEmpty()) return b.toDict();
+        continue;
+      }
+      if (line.trim().length() == 0 || line.startsWith("//")) continue;
+      if (isIndent(line.charAt(0))) throw err("Unexpected indentation");
+      parseTag(b, line);
+    }
+    if (blockName != null) endBlock(b);
+    if (!b.isEmpty()) return b.toDict();
+    close();
+    return null;
+  }
+
+  /**
+   * Read all the records into a grid with a column for every tag, or
+   * only the records and tags selected with setFilter and setCols.
+   */
+  public HGrid readGrid()
+  {
+    HashSet wanted = cols == null ? null : new HashSet(Arrays.asList(cols));
+    ArrayList acc = new ArrayList();
+    HDict rec;
+    while ((rec = readDict()) != null)
+    {
+      if (filter != null && !filter.include(rec, null)) continue;
+      if (wanted != null) rec = project(rec, wanted);
+      acc.add(rec);
+    }
+    return HGridBuilder.dictsToGrid((HDict[])acc.toArray(new HDict[acc.size()]));
+  }
+
+  private static HDict project(HDict rec, HashSet wanted)
+  {
+    HDictBuilder b = new HDictBuilder();
+    for (Iterator it = rec.iterator(); it.hasNext(); )
+    {
+      Map.Entry entry = (Map.Entry)it.next();
+      if (wanted.contains(entry.getKey())) b.add((String)entry.getKey(), (HVal)entry.getValue());
+    }
+    return b.toDict();
+  }
+
+  /** Close underlying input stream */
+  public void close()
+  {
+    try { in.close(); }
+    catch (IOException e) { e.printStackTrace(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Parsing
+//////////////////////////////////////////////////////////////////////////
+
+  private void parseTag(HDictBuilder b, String line)
+  {
+    int colon = line.indexOf(':');
+    String name = (colon < 0 ? line : line.substring(0, colon)).trim();
+    if (!HDict.isTagName(name)) throw err("Invalid tag name: " + name);
+    if (interner != null) name = interner.string(name, 0, name.length());
+    if (colon < 0) { b.add(name); return; }
+
+    String rest = line.substring(colon+1).trim();
+    if (rest.length() == 0 || rest.equals("Zinc:"))
+    {
+      blockName = name;
+      blockZinc = rest.length() > 0;
+      blockLine = lineNum;
+      return;
+    }
+    b.add(name, parseVal(rest));
+  }
+
+  /** Parse a Zinc value, or fall back to an unquoted string */
+  private HVal parseVal(String s)
+  {
+    try
+    {
+      return new HZincReader(s).setInterner(interner).readVal();
+    }
+    catch (RuntimeException e)
+    {
+      return interner != null ? interner.str(s) : HStr.make(s);
+    }
+  }
+
+  private void endBlock(HDictBuilder b)
+  {
+    StringBuilder s = new StringBuilder();
+    for (int i=0; i<block.size(); ++i)
+    {
+      if (i > 0) s.append('\n');
+      s.append((String)block.get(i));
+    }
+
+    HVal val;
+    if (blockZinc)
+    {
+      try { val = new HZincReader(s.toString()).setInterner(interner).readVal(); }
+      catch (ParseException e) { throw new ParseException("Invalid Zinc for '" + blockName + "' [line " + blockLine + "]", e); }
+    }
+    else
+    {
+      val = HStr.make(s.toString());
+    }
+    b.add(blockName, val);
+
+    blockName = null;
+    blockBlanks = 0;
+    block.clear();
+  }
+
+  private static boolean isIndent(char c) { return c == ' ' || c == '\t'; }
+
+  /** Strip the two space or one tab indentation of a block line */
+  private static String unindent(String line)
+  {
+    if (line.charAt(0) == '\t') return line.substring(1);
+    if (line.length() > 1 && line.charAt(1) == ' ') return line.substring(2);
+    return line.substring(1);
+  }
+
+  private String readLine()
+  {
+    try
+    {
+      String line = in.readLine();
+      if (line != null) ++lineNum;
+      return line;
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private ParseException err(String msg) { return new ParseException(msg + " [line " + lineNum + "]"); }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final BufferedReader in;
+  private HaystackInterner interner;
+  private int lineNum;
+
+  // multi-line value being read
+  private String blockName;
+  private boolean blockZinc;
+  private int blockLine;
+  private int blockBlanks;
+  private final ArrayList block = new ArrayList();
+}
@@ -0,0 +1,207 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.util.*;
+import org.projecthaystack.*;
+
+/**
+ * HTrioWriter writes records in the Trio format one HDict at a time.
+ * Values are written in Zinc; multi-line strings and values whose Zinc
+ * spans several lines, such as nested grids, are written as indented
+ * blocks.  Written as a grid, each row becomes a record with its null
+ * cells left out, and the grid and column meta are dropped.
+ *
+ * @see HTrioReader
+ * @see <a href='http://project-haystack.org/doc/Trio'>Project Haystack</a>
+ */
+public class HTrioWriter extends HGridWriter
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write using UTF-8 */
+  public HTrioWriter(OutputStream out)
+  {
+    this.out = new BufferedOutputStream(out, 8192);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Records
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a record */
+  public HTrioWriter writeDict(HDict dict)
+  {
+    beginRecord();
+    for (Iterator it = dict.iterator(); it.hasNext(); )
+    {
+      Map.Entry entry = (Map.Entry)it.next();
+      writeTag((String)entry.getKey(), (HVal)entry.getValue());
+    }
+    return this;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// HGridWriter
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write each row of a grid as a record */
+  public void writeGrid(HGrid grid)
+  {
+    for (int i=0; i<grid.numRows(); ++i)
+      writeDict(grid.row(i));
+  }
+
+  /** Begin a grid whose rows are written as records */
+  public void beginGrid(HGrid header)
+  {
+    if (names != null) throw new IllegalStateException("Grid already begun");
+    String[] names = new String[header.numCols()];
+    for (int i=0; i<names.length; ++i) names[i] = header.col(i).name();
+    this.names = names;
+  }
+
+  /** Write the next row of the grid as a record */
+  public void writeRow(HVal[] cells)
+  {
+    if (names == null) throw new IllegalStateException("No grid begun");
+    if (cells.length != names.length) throw new IllegalArgumentException("Row cells size != cols size");
+    beginRecord();
+    for (int i=0; i<cells.length; ++i)
+      if (cells[i] != null) writeTag(names[i], cells[i]);
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (names == null) throw new IllegalStateException("No grid begun");
+    names = null;
+  }
+
+  /** Flush underlying output stream */
+  public void flush()
+  {
+    try { out.flush(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  /** Close underlying output stream */
+  public void close()
+  {
+    try { out.close(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Encoding
+//////////////////////////////////////////////////////////////////////////
+
+  private void beginRecord()
+  {
+    if (numRecords++ > 0) ascii("---\n");
+  }
+
+  private void writeTag(String name, HVal val)
+  {
+    ascii(name);
+    if (val == HMarker.VAL) { write('\n'); return; }
+
+    // multi-line strings are written as is
+    if (val instanceof HStr && isBlock(((HStr)val).val))
+    {
+      ascii(":\n");
+      writeBlock(utf8(((HStr)val).val), false);
+      return;
+    }
+
+    // everything else as Zinc, in a block if it has several lines
+    zincBuf.reset();
+    zinc.writeVal(val);
+    zinc.flush();
+    byte[] bytes = zincBuf.toByteArray();
+    if (indexOf(bytes, '\n') < 0)
+    {
+      ascii(": ");
+      write(bytes, 0, bytes.length);
+      write('\n');
+    }
+    else
+    {
+      ascii(": Zinc:\n");
+      writeBlock(bytes, true);
+    }
+  }
+
+  /** Strings with a newline and no other control chars use a block */
+  private static boolean isBlock(String s)
+  {
+    return s.indexOf('\n') >= 0 && s.indexOf('\r') < 0;
+  }
+
+  /** Write each line of bytes indented, dropping a final empty line if trim */
+  private void writeBlock(byte[] bytes, boolean trim)
+  {
+    int start = 0;
+    while (true)
+    {
+      int nl = indexOf(bytes, start, '\n');
+      int end = nl < 0 ? bytes.length : nl;
+      if (nl < 0 && trim && start == end) break;
+      ascii("  ");
+      write(bytes, start, end - start);
+      write('\n');
+      if (nl < 0) break;
+      start = nl + 1;
+    }
+  }
+
+  private static int indexOf(byte[] bytes, int c) { return indexOf(bytes, 0, c); }
+
+  private static int indexOf(byte[] bytes, int from, int c)
+  {
+    for (int i=from; i<bytes.length; ++i) if (bytes[i] == c) return i;
+    return -1;
+  }
+
+  private static byte[] utf8(String s)
+  {
+    try { return s.getBytes("UTF-8"); }
+    catch (UnsupportedEncodingException e) { throw new RuntimeException(e); }
+  }
+
+  private void ascii(String s)
+  {
+    for (int i=0; i<s.length(); ++i) write(s.charAt(i));
+  }
+
+  private void write(int b)
+  {
+    try { out.write(b); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  private void write(byte[] b, int off, int len)
+  {
+    try { out.write(b, off, len); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final OutputStream out;
+  private final ByteArrayOutputStream zincBuf = new ByteArrayOutputStream(256);
+  private final HZincWriter zinc = new HZincWriter(zincBuf, 1024);
+  private String[] names;
+  private int numRecords;
+}
@@ -0,0 +1,291 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.projecthaystack.*;
+
+/**
+ * HZincFileReader provides random access to the rows of a Zinc grid
+ * stored in a file.  The file is memory mapped and indexed in a single
+ * pass which records where each row starts; rows are then parsed
+ * straight from the mapped bytes only when they are requested.  Opening
+ * a file costs one scan of its bytes and eight bytes per row, no matter
+ * how many cells the rows contain.
+ * <p>
+ * The file must contain one top-level grid.  Newlines inside strings,
+ * uris and nested grids are handled, but comments are not.  All methods
+ * are thread safe.
+ *
+ * @see <a href='http://project-haystack.org/doc/Zinc'>Project Haystack</a>
+ */
+public class HZincFileReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Map and index the given Zinc file */
+  public HZincFileReader(File file) throws IOException
+  {
+    this.file = new RandomAccessFile(file, "r");
+    this.channel = this.file.getChannel();
+    try
+    {
+      // map the file in segments, scanning each for row boundaries
+      long size = channel.size();
+      int numSegs = (int)((size + segmentSize - 1) / segmentSize);
+      ByteBuffer[] segs = new ByteBuffer[numSegs];
+      ZincRowIndex index = new ZincRowIndex();
+      for (int i=0; i<numSegs; ++i)
+      {
+        long off = (long)i * segmentSize;
+        segs[i] = channel.map(FileChannel.MapMode.READ_ONLY, off, Math.min(segmentSize, size - off));
+        if (!index.scan(segs[i], off)) break;
+      }
+      index.finish(size);
+      this.segments = segs;
+      this.index = index;
+
+      // parse the header
+      HZincReader r = new HZincReader(region(0, index.headerEnd()), 3, 1);
+      HGridBuilder gb = new HGridBuilder();
+      this.numCols = r.readHeader(gb);
+      this.version = r.version();
+      this.header = gb.toGrid();
+    }
+    catch (IOException e)
+    {
+      close();
+      throw e;
+    }
+    catch (RuntimeException e)
+    {
+      close();
+      throw e;
+    }
+  }
+
+  /** Close the underlying file */
+  public void close()
+  {
+    try { file.close(); } catch (IOException e) {}
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Get a grid with the meta and columns of the file, but no rows.
+   * Rows returned by this reader are bound to this grid.
+   */
+  public HGrid header() { return header; }
+
+  /** Return number of rows in the file */
+  public int numRows() { return index.numRows(); }
+
+  /** Parse the row with the given zero based index */
+  public HRow row(int i)
+  {
+    checkRange(i, i+1);
+    HVal[] cells = new HVal[numCols];
+    HZincReader r = new HZincReader(region(index.rowStart(i), index.rowEnd(i)), version, i + 3);
+    r.readRow(cells);
+    return header.makeRow(cells);
+  }
+
+  /** Parse the rows from start inclusive to end exclusive into a grid */
+  public HGrid rows(int start, int end)
+  {
+    checkRange(start, end);
+    final HGridBuilder gb = headerBuilder();
+    scan(start, end, null, new HGridHandler()
+    {
+      public void onRow(HRow row) { gb.addRow(cells(row)); }
+    });
+    return gb.toGrid();
+  }
+
+  /**
+   * Parse every row in the file into a grid, or only the columns and
+   * rows selected with setCols and setFilter.
+   */
+  public HGrid readGrid()
+  {
+    GridSelection sel = selection(header);
+    if (sel == null) return rows(0, numRows());
+    final HGridBuilder gb = sel.builder();
+    scan(0, numRows(), sel, new HGridHandler()
+    {
+      public void onRow(HRow row) { gb.addRow(cells(row)); }
+    });
+    return gb.toGrid();
+  }
+
+  /**
+   * Stream every row in file order to the handler.  One row instance
+   * is reused for every call to onRow.
+   */
+  public void readGrid(HGridHandler handler)
+  {
+    GridSelection sel = selection(header);
+    handler.onBegin(sel == null ? header : sel.header);
+    scan(0, numRows(), sel, handler);
+    handler.onEnd();
+  }
+
+  /**
+   * Parse the rows in chunks on the given pool and stream them to the
+   * handler.  The handler's onBegin and onEnd are called once from the
+   * calling thread, but onRow is called concurrently from the pool's
+   * threads in no particular order, so the handler must be thread safe.
+   * Each thread reuses its own row instance.
+   */
+  public void readGridParallel(final HGridHandler handler, ForkJoinPool pool)
+  {
+    int n = numRows();
+    int chunk = Math.max(minChunkRows, n / (pool.getParallelism() * 4) + 1);
+    GridSelection sel = selection(header);
+    handler.onBegin(sel == null ? header : sel.header);
+    pool.invoke(new ScanTask(0, n, chunk, sel, handler));
+    handler.onEnd();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Scanning
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Parse rows [start, end) sequentially, one mapped region at a time,
+   * passing on only the columns and rows of the selection if not null
+   */
+  private void scan(int start, int end, GridSelection sel, HGridHandler handler)
+  {
+    GridSelection.Cursor cursor = sel == null ? null : sel.cursor();
+    HVal[] cells = cursor == null ? new HVal[numCols] : cursor.cells;
+    boolean[] read = sel == null ? null : sel.read;
+    HRow row = cursor == null ? header.makeRow(cells) : cursor.row;
+    while (start < end)
+    {
+      // extend the run of rows while it fits in one mapping
+      long off = index.rowStart(start);
+      int last = start + 1;
+      while (last < end && index.rowEnd(last) - off <= segmentSize) ++last;
+
+      HZincReader r = new HZincReader(region(off, index.rowEnd(last-1)), version, start + 3);
+      for (int i=start; i<last; ++i)
+      {
+        r.readRow(cells, read);
+        if (cursor == null || cursor.select()) handler.onRow(row);
+      }
+      start = last;
+    }
+  }
+
+  class ScanTask extends RecursiveAction
+  {
+    ScanTask(int start, int end, int chunk, GridSelection sel, HGridHandler handler)
+    {
+      this.start = start; this.end = end; this.chunk = chunk; this.sel = sel; this.handler = handler;
+    }
+
+    protected void compute()
+    {
+      if (end - start <= chunk)
+      {
+        scan(start, end, sel, handler);
+      }
+      else
+      {
+        int mid = (start + end) >>> 1;
+        invokeAll(new ScanTask(start, mid, chunk, sel, handler),
+                  new ScanTask(mid, end, chunk, sel, handler));
+      }
+    }
+
+    final int start, end, chunk;
+    final GridSelection sel;
+    final HGridHandler handler;
+
+    private static final long serialVersionUID = 1L;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Utils
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Get the bytes [start, end) of the file.  Regions within one mapped
+   * segment are sliced from it; regions which cross a segment boundary
+   * are mapped on demand.
+   */
+  private ByteBuffer region(long start, long end)
+  {
+    int seg = (int)(start / segmentSize);
+    if (seg < segments.length && segments[seg] != null && (end - 1) / segmentSize == seg)
+    {
+      ByteBuffer buf = segments[seg].duplicate();
+      int base = (int)(start - (long)seg * segmentSize);
+      buf.limit(base + (int)(end - start));
+      buf.position(base);
+      return buf;
+    }
+    try
+    {
+      return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException("Cannot map " + start + "-" + end, e);
+    }
+  }
+
+  private HGridBuilder headerBuilder()
+  {
+    HGridBuilder gb = new HGridBuilder();
+    gb.meta().add(header.meta());
+    for (int i=0; i<numCols; ++i)
+      gb.addCol(header.col(i).name()).add(header.col(i).meta());
+    return gb;
+  }
+
+  private static HVal[] cells(HRow row)
+  {
+    HGrid grid = row.grid();
+    HVal[] cells = new HVal[grid.numCols()];
+    for (int i=0; i<cells.length; ++i) cells[i] = row.get(grid.col(i), false);
+    return cells;
+  }
+
+  private void checkRange(int start, int end)
+  {
+    if (start < 0 || end > numRows() || start > end)
+      throw new IndexOutOfBoundsException(start + "-" + end + " of " + numRows());
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final long segmentSize = 1L << 30;
+  private static final int minChunkRows = 1024;
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private ByteBuffer[] segments;
+  private ZincRowIndex index;
+  private HGrid header;
+  private int numCols;
+  private int version;
+}
@@ -0,0 +1,200 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import org.projecthaystack.*;
+
+/**
+ * HZincLazyReader reads a top-level Zinc grid from memory without
+ * decoding its cells up front.  One byte scan finds each row line and
+ * the header is parsed, but each row only keeps the offsets of its raw
+ * Zinc text.  A cell is parsed the first time it is accessed through
+ * the row and then cached, so columns which are never read cost nothing
+ * beyond their bytes.  The input buffer is retained by the grid until
+ * every cell of every row has been accessed.
+ * <p>
+ * Syntax errors inside a row are only reported when one of its cells
+ * is first accessed, as a ParseException from HRow.get.
+ *
+ * @see <a href='http://project-haystack.org/doc/Zinc'>Project Haystack</a>
+ */
+public class HZincLazyReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read from UTF-8 bytes */
+  public HZincLazyReader(byte[] in)
+  {
+    this(ByteBuffer.wrap(in));
+  }
+
+  /**
+   * Read from the UTF-8 bytes between the buffer's position and limit.
+   * The buffer must not be modified while the grid is in use.
+   */
+  public HZincLazyReader(ByteBuffer in)
+  {
+    this.in = in.slice();
+  }
+
+  /** Read from in-memory string */
+  public HZincLazyReader(String in)
+  {
+    this(utf8(in));
+  }
+
+  private static byte[] utf8(String s)
+  {
+    try { return s.getBytes("UTF-8"); }
+    catch (UnsupportedEncodingException e) { throw new RuntimeException(e.toString()); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read the grid, leaving its cells to be decoded on demand.  If
+   * columns or a filter are set, the cells they need are decoded now
+   * and the selected rows are returned fully decoded.
+   */
+  public HGrid readGrid()
+  {
+    ZincRowIndex index = new ZincRowIndex();
+    index.scan(in, 0);
+    index.finish(in.limit());
+    for (int i=(int)index.end(); i<in.limit(); ++i)
+      if (!isSpace(in.get(i))) throw new ParseException("Unexpected content after grid");
+
+    HZincReader r = new HZincReader(region(0, (int)index.headerEnd()), 3, 1);
+    HGridBuilder gb = new HGridBuilder();
+    this.numCols = r.readHeader(gb);
+    this.version = r.version();
+
+    for (int i=0; i<index.numRows(); ++i)
+      gb.addLazyRow(new LazyRow((int)index.rowStart(i), (int)index.rowEnd(i), i + 3));
+    return select(gb.toGrid());
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// LazyRow
+//////////////////////////////////////////////////////////////////////////
+
+  /** Decodes the cells of one row line from its raw bytes */
+  class LazyRow implements HRow.Decoder
+  {
+    LazyRow(int start, int end, int line)
+    {
+      this.start = start; this.end = end; this.line = line;
+    }
+
+    public HVal decode(int col)
+    {
+      if (bounds == null) bounds = split();
+      int s = bounds[col*2];
+      int e = bounds[col*2+1];
+      if (s == e) return null;
+      return new HZincReader(region(s, e), version, line).readCell();
+    }
+
+    /**
+     * Find the trimmed [start, end) of each cell by scanning for the
+     * commas which are not inside a string, uri or nested value.
+     */
+    private int[] split()
+    {
+      int[] bounds = new int[numCols*2];
+      int n = 0;
+      int depth = 0;
+      int quote = 0;
+      int cellStart = start;
+      for (int i=start; i<end; ++i)
+      {
+        int b = in.get(i);
+        if (quote != 0)
+        {
+          if (b == '\\') ++i;
+          else if (b == quote) quote = 0;
+          continue;
+        }
+        switch (b)
+        {
+          case '"':
+          case '`':
+            quote = b; break;
+          case '[': case '{': case '(':
+            ++depth; break;
+          case ']': case '}': case ')':
+            --depth; break;
+          case '<':
+            if (i+1 < end && in.get(i+1) == '<') { ++depth; ++i; }
+            break;
+          case '>':
+            if (i+1 < end && in.get(i+1) == '>') { --depth; ++i; }
+            break;
+          case ',':
+            if (depth > 0) break;
+            if (n+1 == numCols) throw err("Too many cells in row");
+            trim(bounds, n++, cellStart, i);
+            cellStart = i + 1;
+            break;
+        }
+      }
+      if (n+1 != numCols) throw err("Expected " + numCols + " cells in row, not " + (n+1));
+      trim(bounds, n, cellStart, end);
+      return bounds;
+    }
+
+    private void trim(int[] bounds, int n, int s, int e)
+    {
+      while (s < e && isSpace(in.get(s))) ++s;
+      while (e > s && isSpace(in.get(e-1))) --e;
+      bounds[n*2] = s;
+      bounds[n*2+1] = e;
+    }
+
+    private ParseException err(String msg)
+    {
+      return new ParseException(msg + " [line " + line + "]");
+    }
+
+    final int start, end, line;
+    private int[] bounds;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Utils
+//////////////////////////////////////////////////////////////////////////
+
+  /** Get the bytes [start, end) of the input */
+  private ByteBuffer region(int start, int end)
+  {
+    ByteBuffer buf = in.duplicate();
+    buf.limit(end);
+    buf.position(start);
+    return buf;
+  }
+
+  private static boolean isSpace(int b)
+  {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final ByteBuffer in;
+  private int numCols;
+  private int version;
+}
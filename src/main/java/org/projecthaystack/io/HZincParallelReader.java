@@ -0,0 +1,163 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.projecthaystack.*;
+
+/**
+ * HZincParallelReader parses one large in-memory Zinc grid using all
+ * the threads of a fork/join pool.  A single byte scan finds where each
+ * row line starts, the header is parsed once, and then chunks of rows
+ * are tokenized concurrently.  The resulting grid has its rows in their
+ * original order and is identical to what HZincReader produces.
+ * <p>
+ * Grids which contain nested grids or strings spanning several lines,
+ * or which are too small to be worth splitting, are parsed sequentially
+ * with HZincReader instead.
+ *
+ * @see <a href='http://project-haystack.org/doc/Zinc'>Project Haystack</a>
+ */
+public class HZincParallelReader extends HGridReader
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read from UTF-8 bytes using the given pool */
+  public HZincParallelReader(byte[] in, ForkJoinPool pool)
+  {
+    this(ByteBuffer.wrap(in), pool);
+  }
+
+  /**
+   * Read from the UTF-8 bytes between the buffer's position and limit
+   * using the given pool.  The buffer itself is not modified.
+   */
+  public HZincParallelReader(ByteBuffer in, ForkJoinPool pool)
+  {
+    this.in = in.slice();
+    this.pool = pool;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /** Read the grid */
+  public HGrid readGrid()
+  {
+    ZincRowIndex index = new ZincRowIndex();
+    index.scan(in, 0);
+    index.finish(in.limit());
+    int n = index.numRows();
+    if (index.nested || index.multiLine || n < minChunkRows * 2 || !blankAfter(index.end()))
+      return new HZincReader(in.duplicate()).setCols(cols).setFilter(filter).readGrid();
+
+    // header
+    HZincReader r = new HZincReader(region(0, index.headerEnd()), 3, 1);
+    HGridBuilder gb = new HGridBuilder();
+    int numCols = r.readHeader(gb);
+    int version = r.version();
+
+    // rows, where rows dropped by the selection are left null
+    GridSelection sel = selects() ? selection(gb.toGrid()) : null;
+    if (sel != null) gb = sel.builder();
+    HVal[][] rows = new HVal[n][];
+    int chunk = Math.max(minChunkRows, n / (pool.getParallelism() * 4) + 1);
+    pool.invoke(new ParseTask(index, version, numCols, sel, rows, 0, n, chunk));
+    for (int i=0; i<n; ++i) if (rows[i] != null) gb.addRow(rows[i]);
+    return gb.toGrid();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Parsing
+//////////////////////////////////////////////////////////////////////////
+
+  class ParseTask extends RecursiveAction
+  {
+    ParseTask(ZincRowIndex index, int version, int numCols, GridSelection sel, HVal[][] rows, int start, int end, int chunk)
+    {
+      this.index = index; this.version = version; this.numCols = numCols; this.sel = sel;
+      this.rows = rows; this.start = start; this.end = end; this.chunk = chunk;
+    }
+
+    protected void compute()
+    {
+      if (end - start <= chunk)
+      {
+        HZincReader r = new HZincReader(region(index.rowStart(start), index.rowEnd(end-1)), version, start + 3);
+        GridSelection.Cursor cursor = sel == null ? null : sel.cursor();
+        for (int i=start; i<end; ++i)
+        {
+          if (cursor == null)
+          {
+            HVal[] cells = new HVal[numCols];
+            r.readRow(cells);
+            rows[i] = cells;
+          }
+          else
+          {
+            r.readRow(cursor.cells, sel.read);
+            if (cursor.select()) rows[i] = cursor.selected.clone();
+          }
+        }
+      }
+      else
+      {
+        int mid = (start + end) >>> 1;
+        invokeAll(new ParseTask(index, version, numCols, sel, rows, start, mid, chunk),
+                  new ParseTask(index, version, numCols, sel, rows, mid, end, chunk));
+      }
+    }
+
+    final ZincRowIndex index;
+    final int version, numCols;
+    final GridSelection sel;
+    final HVal[][] rows;
+    final int start, end, chunk;
+
+    private static final long serialVersionUID = 1L;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Utils
+//////////////////////////////////////////////////////////////////////////
+
+  /** Get the bytes [start, end) of the input */
+  private ByteBuffer region(long start, long end)
+  {
+    ByteBuffer buf = in.duplicate();
+    buf.limit((int)end);
+    buf.position((int)start);
+    return buf;
+  }
+
+  /** Return if only whitespace follows the given offset */
+  private boolean blankAfter(long offset)
+  {
+    for (int i=(int)offset; i<in.limit(); ++i)
+    {
+      int b = in.get(i);
+      if (b != ' ' && b != '\t' && b != '\r' && b != '\n') return false;
+    }
+    return true;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final int minChunkRows = 1024;
+
+  private final ByteBuffer in;
+  private final ForkJoinPool pool;
+}
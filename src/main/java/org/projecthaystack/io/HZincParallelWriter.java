@@ -0,0 +1,257 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import org.projecthaystack.*;
+
+/**
+ * HZincParallelWriter writes large grids in the Zinc format using the
+ * threads of a fork/join pool.  The rows of a grid are split into
+ * ranges which are encoded concurrently into their own byte buffers,
+ * and the buffers are written to the output in order as soon as they
+ * are done.  The output is byte for byte what HZincWriter writes.
+ * <p>
+ * Only a bounded number of ranges are encoded ahead of the output, so
+ * memory use does not grow with the grid.  When writing to a
+ * GatheringByteChannel, the ranges which are ready are written with one
+ * gathering write.  Small grids and rows written with beginGrid,
+ * writeRow and endGrid are encoded sequentially.
+ *
+ * @see HZincParallelReader
+ */
+public class HZincParallelWriter extends HGridWriter
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write to the output stream using the given pool */
+  public HZincParallelWriter(OutputStream out, ForkJoinPool pool)
+  {
+    this.out = out;
+    this.channel = null;
+    this.pool = pool;
+  }
+
+  /** Write to the channel using the given pool */
+  public HZincParallelWriter(WritableByteChannel out, ForkJoinPool pool)
+  {
+    this.out = Channels.newOutputStream(out);
+    this.channel = out;
+    this.pool = pool;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// HGridWriter
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write a grid */
+  public void writeGrid(HGrid grid)
+  {
+    separate();
+    int n = grid.numRows();
+    if (n < minChunkRows * 2)
+    {
+      HZincWriter w = writer(out);
+      w.writeGrid(grid);
+      w.flush();
+      return;
+    }
+
+    int chunk = Math.max(minChunkRows, n / (pool.getParallelism() * 4) + 1);
+    int numChunks = (n + chunk - 1) / chunk;
+    int ahead = pool.getParallelism() * 2;
+    ForkJoinTask[] tasks = new ForkJoinTask[numChunks];
+    int submitted = 0;
+    int written = 0;
+    try
+    {
+      while (written < numChunks)
+      {
+        // keep a bounded number of ranges encoding ahead of the output
+        while (submitted < numChunks && submitted < written + ahead)
+        {
+          int start = submitted * chunk;
+          tasks[submitted] = pool.submit(new EncodeTask(grid, start, Math.min(n, start + chunk), submitted == 0));
+          ++submitted;
+        }
+
+        // wait for the next range, then take any after it already done
+        int end = written + 1;
+        tasks[written].join();
+        while (end < submitted && tasks[end].isDone()) ++end;
+        ByteBuffer[] bufs = new ByteBuffer[end - written];
+        for (int i=written; i<end; ++i)
+        {
+          bufs[i - written] = ((Chunk)tasks[i].join()).toByteBuffer();
+          tasks[i] = null;
+        }
+        write(bufs);
+        written = end;
+      }
+    }
+    finally
+    {
+      for (int i=written; i<submitted; ++i)
+        if (tasks[i] != null) tasks[i].cancel(false);
+    }
+    flush();
+  }
+
+  /** Begin a grid whose rows are written sequentially */
+  public void beginGrid(HGrid header)
+  {
+    if (rowWriter != null) throw new IllegalStateException("Grid already begun");
+    separate();
+    rowWriter = writer(out);
+    rowWriter.beginGrid(header);
+  }
+
+  /** Write the next row of the grid */
+  public void writeRow(HVal[] cells)
+  {
+    if (rowWriter == null) throw new IllegalStateException("No grid begun");
+    rowWriter.writeRow(cells);
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (rowWriter == null) throw new IllegalStateException("No grid begun");
+    rowWriter.endGrid();
+    rowWriter.flush();
+    rowWriter = null;
+  }
+
+  /** Flush underlying output */
+  public void flush()
+  {
+    try { out.flush(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  /** Close underlying output */
+  public void close()
+  {
+    try { out.close(); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Encoding
+//////////////////////////////////////////////////////////////////////////
+
+  /** Encodes a range of rows, and the header for the first range */
+  class EncodeTask extends RecursiveTask
+  {
+    EncodeTask(HGrid grid, int start, int end, boolean header)
+    {
+      this.grid = grid; this.start = start; this.end = end; this.header = header;
+    }
+
+    protected Object compute()
+    {
+      Chunk chunk = new Chunk((end - start) * grid.numCols() * 8 + 256);
+      HZincWriter w = writer(chunk);
+      if (header) w.writeHeader(grid);
+      w.writeRows(grid, start, end);
+      w.flush();
+      return chunk;
+    }
+
+    final HGrid grid;
+    final int start, end;
+    final boolean header;
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  /** Byte buffer whose contents can be wrapped without a copy */
+  static final class Chunk extends ByteArrayOutputStream
+  {
+    Chunk(int size) { super(size); }
+
+    ByteBuffer toByteBuffer() { return ByteBuffer.wrap(buf, 0, count); }
+  }
+
+  private HZincWriter writer(OutputStream out)
+  {
+    HZincWriter w = new HZincWriter(out);
+    w.version = version;
+    return w;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Output
+//////////////////////////////////////////////////////////////////////////
+
+  /** Write the blank line between grids if separateGrids is set, as HZincWriter does */
+  private void separate()
+  {
+    if (numGrids++ == 0 || !separateGrids) return;
+    try { out.write('\n'); }
+    catch (IOException e) { throw new RuntimeException(e); }
+  }
+
+  /** Write the buffers in order, gathered into one write if possible */
+  private void write(ByteBuffer[] bufs)
+  {
+    try
+    {
+      if (channel instanceof GatheringByteChannel)
+      {
+        GatheringByteChannel ch = (GatheringByteChannel)channel;
+        int i = 0;
+        while (i < bufs.length)
+        {
+          ch.write(bufs, i, bufs.length - i);
+          while (i < bufs.length && !bufs[i].hasRemaining()) ++i;
+        }
+      }
+      else if (channel != null)
+      {
+        for (int i=0; i<bufs.length; ++i)
+          while (bufs[i].hasRemaining()) channel.write(bufs[i]);
+      }
+      else
+      {
+        for (int i=0; i<bufs.length; ++i)
+          out.write(bufs[i].array(), bufs[i].position(), bufs[i].remaining());
+      }
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  /** Version of Zinc to write */
+  public int version = 3;
+
+  /** Write a blank line between top-level grids; see HZincWriter.separateGrids */
+  public boolean separateGrids = false;
+
+  private static final int minChunkRows = 1024;
+
+  private final OutputStream out;
+  private final WritableByteChannel channel;
+  private final ForkJoinPool pool;
+  private HZincWriter rowWriter;
+  private int numGrids;
+}
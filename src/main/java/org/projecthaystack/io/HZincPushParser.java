@@ -0,0 +1,290 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.nio.ByteBuffer;
+import org.projecthaystack.*;
+
+/**
+ * HZincPushParser parses Zinc grids from bytes which are pushed to it
+ * in fragments of any size, such as the buffers read from a non-blocking
+ * channel or a Servlet 3.1 ReadListener.  It never blocks and holds no
+ * thread between calls, so one thread can drive the parsers of many
+ * connections.
+ * <p>
+ * Bytes are buffered only until a logical Zinc line is complete: the
+ * ver/meta and column lines of the header, or a single row.  Strings,
+ * uris and nested grids which span fragments or lines are tracked by a
+ * small byte scanner, so a split anywhere (even inside a multi-byte
+ * UTF-8 character) is handled.  As each line completes the handler
+ * receives {@link HGridHandler#onBegin} with the grid meta and columns,
+ * {@link HGridHandler#onRow} for each row and {@link HGridHandler#onEnd}
+ * after the blank line or end of input which closes the grid.  Several
+ * grids separated by blank lines are reported in turn.  One row instance
+ * is reused for every onRow call of a grid.
+ * <p>
+ * A parser is not thread safe; it may be fed by different threads over
+ * its life as long as calls do not overlap.  Once a ParseException has
+ * been thrown the parser must be discarded.
+ *
+ * @see <a href='http://project-haystack.org/doc/Zinc'>Project Haystack</a>
+ */
+public class HZincPushParser
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Construct to report grids to the given handler */
+  public HZincPushParser(HGridHandler handler)
+  {
+    this.handler = handler;
+  }
+
+  /**
+   * Canonicalize the ids, tag names, units, strings and refs read from
+   * now on through the given interner, or pass null to stop interning.
+   * Return this.
+   */
+  public HZincPushParser setInterner(HaystackInterner interner)
+  {
+    this.interner = interner;
+    return this;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /** Maximum number of bytes buffered for one header or row line */
+  public int maxLineSize = 16 * 1024 * 1024;
+
+  /**
+   * Push the UTF-8 bytes between the buffer's position and limit.  All
+   * of them are consumed and the position is advanced to the limit.
+   * Handler callbacks for every line completed by these bytes are made
+   * before this method returns.
+   */
+  public void feed(ByteBuffer buf)
+  {
+    if (finished) throw new IllegalStateException("Parser is finished");
+    int lim = buf.limit();
+    int start = buf.position();
+    for (int i=start; i<lim; ++i)
+    {
+      if (!scan(buf.get(i))) continue;
+      append(buf, start, i+1);
+      start = i+1;
+      endLine();
+    }
+    append(buf, start, lim);
+    buf.position(lim);
+  }
+
+  /** Push the given range of UTF-8 bytes */
+  public void feed(byte[] buf, int off, int len)
+  {
+    feed(ByteBuffer.wrap(buf, off, len));
+  }
+
+  /**
+   * Signal the end of input.  A last row without a trailing newline is
+   * parsed and an open grid is ended.  Throw ParseException if the input
+   * stopped in the middle of a grid header, string or nested grid.
+   */
+  public void finish()
+  {
+    if (finished) return;
+    finished = true;
+    if (!blank || state != NORMAL || depth > 0) endLine();
+    if (phase == COLS) throw new ParseException("Unexpected end of grid header [line " + lineNum + "]");
+    if (phase == ROWS) endGrid();
+  }
+
+  /** Return true if the header of a grid has been read but not its end */
+  public boolean inGrid() { return phase == ROWS; }
+
+//////////////////////////////////////////////////////////////////////////
+// Scanning
+//////////////////////////////////////////////////////////////////////////
+
+  /** Scan the next byte; return true if it ends a logical line */
+  private boolean scan(int b)
+  {
+    switch (state)
+    {
+      case STR:
+        if (b == '\\') state = STR_ESC;
+        else if (b == '"') state = NORMAL;
+        else if (b == '\n') ++newlines;
+        return false;
+      case STR_ESC:
+        state = STR;
+        return false;
+      case URI:
+        if (b == '\\') state = URI_ESC;
+        else if (b == '`') state = NORMAL;
+        else if (b == '\n') ++newlines;
+        return false;
+      case URI_ESC:
+        state = URI;
+        return false;
+    }
+
+    if (b == '\n')
+    {
+      ++newlines;
+      prev = 0;
+      return depth == 0;
+    }
+
+    if (b != ' ' && b != '\t' && b != '\r') blank = false;
+    if (b == '"') state = STR;
+    else if (b == '`') state = URI;
+    else if (b == '<' && prev == '<') { ++depth; b = 0; }
+    else if (b == '>' && prev == '>' && depth > 0) { --depth; b = 0; }
+    prev = b;
+    return false;
+  }
+
+  /** Buffer the bytes of buf between from and to */
+  private void append(ByteBuffer buf, int from, int to)
+  {
+    int n = to - from;
+    if (n == 0) return;
+    if (size + n > maxLineSize)
+      throw new ParseException("Line exceeds " + maxLineSize + " bytes [line " + lineNum + "]");
+    if (size + n > line.length)
+    {
+      byte[] temp = new byte[Math.min(maxLineSize, Math.max(size + n, line.length * 2))];
+      System.arraycopy(line, 0, temp, 0, size);
+      line = temp;
+    }
+    ByteBuffer src = buf.duplicate();
+    src.limit(to).position(from);
+    src.get(line, size, n);
+    size += n;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lines
+//////////////////////////////////////////////////////////////////////////
+
+  /** Handle the complete logical line which has been buffered */
+  private void endLine()
+  {
+    boolean wasBlank = blank;
+    blank = true;
+    switch (phase)
+    {
+      case VER:
+        // skip blank lines between grids; keep the ver line buffered
+        // until the column line which completes the header arrives
+        if (wasBlank) { reset(); return; }
+        verLines = newlines;
+        newlines = 0;
+        phase = COLS;
+        return;
+      case COLS:
+        parseHeader();
+        return;
+      default:
+        if (wasBlank) { endGrid(); reset(); return; }
+        parseRow();
+    }
+  }
+
+  private void parseHeader()
+  {
+    HZincReader r = reader(3);
+    HGridBuilder gb = new HGridBuilder();
+    cells = new HVal[r.readHeader(gb)];
+    version = r.version();
+    header = gb.toGrid();
+    row = header.makeRow(cells);
+    lineNum += verLines;
+    reset();
+    phase = ROWS;
+    handler.onBegin(header);
+  }
+
+  private void parseRow()
+  {
+    reader(version).readRow(cells);
+    reset();
+    handler.onRow(row);
+  }
+
+  private void endGrid()
+  {
+    phase = VER;
+    header = null;
+    cells = null;
+    row = null;
+    handler.onEnd();
+  }
+
+  /** Reader over the buffered line, reporting errors at its line number */
+  private HZincReader reader(int version)
+  {
+    return new HZincReader(ByteBuffer.wrap(line, 0, size), version, lineNum).setInterner(interner);
+  }
+
+  /** Drop the buffered line, shrinking the buffer if a huge line grew it */
+  private void reset()
+  {
+    lineNum += newlines;
+    newlines = 0;
+    size = 0;
+    if (line.length > MAX_IDLE_BUF) line = new byte[INIT_BUF];
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final int INIT_BUF = 256;
+  private static final int MAX_IDLE_BUF = 64 * 1024;
+
+  // scanner states
+  private static final int NORMAL  = 0;
+  private static final int STR     = 1;
+  private static final int STR_ESC = 2;
+  private static final int URI     = 3;
+  private static final int URI_ESC = 4;
+
+  // phases
+  private static final int VER  = 0;
+  private static final int COLS = 1;
+  private static final int ROWS = 2;
+
+  private final HGridHandler handler;
+  private HaystackInterner interner;
+
+  // buffered line
+  private byte[] line = new byte[INIT_BUF];
+  private int size;
+  private int lineNum = 1;
+  private int newlines;
+  private int verLines;
+
+  // scanner
+  private int state = NORMAL;
+  private int depth;
+  private int prev;
+  private boolean blank = true;
+
+  // grid
+  private int phase = VER;
+  private int version = 3;
+  private HGrid header;
+  private HVal[] cells;
+  private HRow row;
+  private boolean finished;
+}
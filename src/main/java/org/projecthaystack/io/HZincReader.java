@@ -10,6 +10,7 @@
 package org.projecthaystack.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 import org.projecthaystack.*;
 
@@ -28,15 +29,15 @@ public class HZincReader extends HGridReader
   /** Read from UTF-8 input stream. */
   public HZincReader(InputStream in)
   {
-    try
-    {
-      this.tokenizer = new HaystackTokenizer(new BufferedReader(new InputStreamReader(in, "UTF-8")));
-      init();
-    }
-    catch (IOException e)
-    {
-      throw err("init failed", e);
-    }
+    this.tokenizer = new HaystackTokenizer(in);
+    init();
+  }
+
+  /** Read UTF-8 bytes between the buffer's position and limit. */
+  public HZincReader(ByteBuffer in)
+  {
+    this.tokenizer = new HaystackTokenizer(in);
+    init();
   }
 
   /** Read from in-memory string. */
@@ -46,6 +47,18 @@ public class HZincReader extends HGridReader
     init();
   }
 
+  /**
+   * Read a fragment of a larger Zinc document, such as a single row,
+   * using the given version and starting line number for errors.
+   */
+  HZincReader(ByteBuffer in, int version, int line)
+  {
+    this.tokenizer = new HaystackTokenizer(in);
+    this.tokenizer.line = line;
+    this.version = version;
+    init();
+  }
+
   private void init()
   {
     consume();
@@ -62,6 +75,32 @@ public class HZincReader extends HGridReader
     tokenizer.close();
   }
 
+  /**
+   * Canonicalize the ids, tag names, units, strings and refs read from
+   * now on through the given interner, or pass null to stop interning.
+   * Sharing one interner across readers lets values repeated between
+   * responses share instances too.  Return this.
+   */
+  public HZincReader setInterner(HaystackInterner interner)
+  {
+    tokenizer.interner = interner;
+    return this;
+  }
+
+  /**
+   * Read only the named columns of each top-level grid; the cells of
+   * other columns are tokenized but not built into values or stored.
+   * See {@link HGridReader#setCols}.  Return this.
+   */
+  public HZincReader setCols(String[] cols) { super.setCols(cols); return this; }
+
+  /**
+   * Read only the rows of each top-level grid which match the filter,
+   * dropping the others before they reach the grid builder or handler.
+   * See {@link HGridReader#setFilter}.  Return this.
+   */
+  public HZincReader setFilter(HFilter filter) { super.setFilter(filter); return this; }
+
 
   /** Read a value and auto-close the stream */
   public HVal readVal() { return readVal(true); }
@@ -92,6 +131,29 @@ public class HZincReader extends HGridReader
     return (HGrid)readVal(true);
   }
 
+  /**
+   * Read a grid and stream it to the given handler without building the
+   * grid in memory.  The handler receives the grid meta and columns
+   * first, then each row as soon as it is parsed.  One row instance is
+   * reused for every call to {@link HGridHandler#onRow}, so scanning a
+   * grid of any size runs in constant memory.  The stream is closed
+   * when done.
+   */
+  public void readGrid(HGridHandler handler)
+  {
+    try
+    {
+      if (cur != HaystackToken.id || !"ver".equals(curVal))
+        throw err("Expecting grid 'ver' identifier, not " + curToStr());
+      parseGrid(handler);
+      verify(HaystackToken.eof);
+    }
+    finally
+    {
+      close();
+    }
+  }
+
   /** Read a list of grids separated by blank line from stream */
   public HGrid[] readGrids()
   {
@@ -100,6 +162,37 @@ public class HZincReader extends HGridReader
     return (HGrid[])acc.toArray(new HGrid[acc.size()]);
   }
 
+  /**
+   * Read the next grid of a list of grids separated by blank line, or
+   * return null and close the stream if there are no more.  Each grid
+   * is returned once its blank line and the start of the next grid have
+   * been read, so only one grid is held at a time.
+   */
+  public HGrid readNextGrid()
+  {
+    if (cur == HaystackToken.id) return parseGrid();
+    close();
+    return null;
+  }
+
+  /**
+   * Read a list of grids separated by blank line and stream each one to
+   * the handler: onBegin, onRow for each row and onEnd are called for
+   * every grid in turn.  The stream is closed when done, including when
+   * the handler throws an exception to stop early.
+   */
+  public void readGrids(HGridHandler handler)
+  {
+    try
+    {
+      while (cur == HaystackToken.id) parseGrid(handler);
+    }
+    finally
+    {
+      close();
+    }
+  }
+
   /**
    * Read a set of tags as {@code name:val} pairs separated by space. The
    * tags may optionally be surrounded by '{' and '}'
@@ -119,6 +212,52 @@ public class HZincReader extends HGridReader
     return parseVal();
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Fragments
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read the ver, grid meta and column definitions of a top-level grid
+   * into the given builder and return the number of columns.
+   */
+  int readHeader(HGridBuilder gb)
+  {
+    return parseHeader(gb, false);
+  }
+
+  /**
+   * Read the next row of a top-level grid into cells.  Return false
+   * if there are no more rows.
+   */
+  boolean readRow(HVal[] cells)
+  {
+    return parseRow(cells, null, false);
+  }
+
+  /**
+   * Read the next row of a top-level grid into cells, skipping the
+   * cells of columns which are false in read if not null.
+   */
+  boolean readRow(HVal[] cells, boolean[] read)
+  {
+    return parseRow(cells, read, false);
+  }
+
+  /**
+   * Read a single cell which must make up the rest of the input.
+   * Return null if the input is empty.
+   */
+  HVal readCell()
+  {
+    if (cur == HaystackToken.eof) return null;
+    HVal val = parseVal();
+    verify(HaystackToken.eof);
+    return val;
+  }
+
+  /** Zinc version of the grid being read */
+  int version() { return version; }
+
 //////////////////////////////////////////////////////////////////////////
 // Utils
 //////////////////////////////////////////////////////////////////////////
@@ -212,7 +351,9 @@ public class HZincReader extends HGridReader
     Object val = this.curVal;
     if (cur == HaystackToken.ref && peek == HaystackToken.str)
     {
-      val = HRef.make(((HRef)val).val, ((HStr)peekVal).val);
+      HaystackInterner interner = tokenizer.interner;
+      String dis = ((HStr)peekVal).val;
+      val = interner != null ? interner.ref((HRef)val, dis) : HRef.make(((HRef)val).val, dis);
       consume(HaystackToken.ref);
     }
     consume();
@@ -261,6 +402,51 @@ public class HZincReader extends HGridReader
   private HGrid parseGrid()
   {
     boolean nested = cur == HaystackToken.lt2;
+    HGridBuilder gb = new HGridBuilder();
+    HVal[] cells = new HVal[parseHeader(gb, nested)];
+    GridSelection sel = nested || !selects() ? null : selection(gb.toGrid());
+    if (sel == null)
+    {
+      while (parseRow(cells, null, nested)) gb.addRow(cells);
+    }
+    else
+    {
+      // skip unread cells and drop filtered rows before the builder
+      gb = sel.builder();
+      GridSelection.Cursor cursor = sel.cursor();
+      while (parseRow(cursor.cells, sel.read, false))
+        if (cursor.select()) gb.addRow(cursor.selected);
+    }
+    parseEnd(nested);
+    return gb.toGrid();
+  }
+
+  private void parseGrid(HGridHandler handler)
+  {
+    HGridBuilder gb = new HGridBuilder();
+    HVal[] cells = new HVal[parseHeader(gb, false)];
+    HGrid header = gb.toGrid();
+    GridSelection sel = selection(header);
+    if (sel == null)
+    {
+      HRow row = header.makeRow(cells);
+      handler.onBegin(header);
+      while (parseRow(cells, null, false)) handler.onRow(row);
+    }
+    else
+    {
+      GridSelection.Cursor cursor = sel.cursor();
+      handler.onBegin(sel.header);
+      while (parseRow(cursor.cells, sel.read, false))
+        if (cursor.select()) handler.onRow(cursor.row);
+    }
+    parseEnd(false);
+    handler.onEnd();
+  }
+
+  /** Parse the ver, grid meta and column definitions; return number of cols */
+  private int parseHeader(HGridBuilder gb, boolean nested)
+  {
     if (nested)
     {
       consume(HaystackToken.lt2);
@@ -275,7 +461,6 @@ public class HZincReader extends HGridReader
     this.version = checkVersion(consumeStr());
 
     // grid meta
-    HGridBuilder gb = new HGridBuilder();
     if (cur == HaystackToken.id)
       gb.meta().add(parseDict());
     consume(HaystackToken.nl);
@@ -295,35 +480,73 @@ public class HZincReader extends HGridReader
     }
     if (numCols == 0) throw err("No columns defined");
     consume(HaystackToken.nl);
+    return numCols;
+  }
 
-    // grid rows
-    while (true)
-    {
-      if (cur == HaystackToken.nl) break;
-      if (cur == HaystackToken.eof) break;
-      if (nested && cur == HaystackToken.gt2) break;
+  /**
+   * Parse the next row into cells, skipping the cells of columns which
+   * are false in read if not null; return false if there are no more rows
+   */
+  private boolean parseRow(HVal[] cells, boolean[] read, boolean nested)
+  {
+    if (cur == HaystackToken.nl) return false;
+    if (cur == HaystackToken.eof) return false;
+    if (nested && cur == HaystackToken.gt2) return false;
 
-      // read cells
-      HVal[] cells = new HVal[numCols];
-      for (int i = 0; i < numCols; ++i)
+    // read cells
+    int numCols = cells.length;
+    for (int i = 0; i < numCols; ++i)
+    {
+      if (cur == HaystackToken.comma || cur == HaystackToken.nl || cur == HaystackToken.eof)
+        cells[i] = null;
+      else if (read != null && !read[i])
       {
-        if (cur == HaystackToken.comma || cur == HaystackToken.nl || cur == HaystackToken.eof)
-          cells[i] = null;
-        else
-          cells[i] = parseVal();
-        if (i+1 < numCols) consume(HaystackToken.comma);
+        skipVal();
+        cells[i] = null;
       }
-      gb.addRow(cells);
+      else
+        cells[i] = parseVal();
+      if (i+1 < numCols) consume(HaystackToken.comma);
+    }
 
-      // newline or end
-      if (nested && cur == HaystackToken.gt2) break;
-      if (cur == HaystackToken.eof) break;
-      consume(HaystackToken.nl);
+    // newline or end
+    if (nested && cur == HaystackToken.gt2) return true;
+    if (cur == HaystackToken.eof) return true;
+    consume(HaystackToken.nl);
+    return true;
+  }
+
+  /**
+   * Consume the tokens of a cell without building its value: everything
+   * up to the next comma or newline outside of brackets and nested grids
+   */
+  private void skipVal()
+  {
+    int depth = 0;
+    while (true)
+    {
+      if (cur == HaystackToken.eof)
+      {
+        if (depth > 0) throw err("Unexpected end of value");
+        return;
+      }
+      if (depth == 0 && (cur == HaystackToken.comma || cur == HaystackToken.nl)) return;
+      if (cur == HaystackToken.lbracket || cur == HaystackToken.lbrace ||
+          cur == HaystackToken.lparen || cur == HaystackToken.lt2)
+        ++depth;
+      else if (cur == HaystackToken.rbracket || cur == HaystackToken.rbrace ||
+               cur == HaystackToken.rparen || cur == HaystackToken.gt2)
+      {
+        if (--depth < 0) throw err("Unexpected " + curToStr());
+      }
+      consume();
     }
+  }
 
+  private void parseEnd(boolean nested)
+  {
     if (cur == HaystackToken.nl) consume(HaystackToken.nl);
     if (nested) consume(HaystackToken.gt2);
-    return gb.toGrid();
   }
 
   private int checkVersion(String s)
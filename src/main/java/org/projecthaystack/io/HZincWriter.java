@@ -8,13 +8,14 @@
 package org.projecthaystack.io;
 
 import java.io.*;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.*;
 import org.projecthaystack.*;
 
 /**
- * HZincWriter is used to write grids in the Zinc format
+ * HZincWriter is used to write grids in the Zinc format.  Output is
+ * encoded as UTF-8 straight into an internal byte buffer which is
+ * reused for the life of the writer and written to the underlying
+ * stream whenever it fills up or on flush.
  *
  * @see <a href='http://project-haystack.org/doc/Zinc'>Project Haystack</a>
  */
@@ -28,14 +29,15 @@ public class HZincWriter extends HGridWriter
   /** Write using UTF-8 */
   public HZincWriter(OutputStream out)
   {
-    try
-    {
-      this.out = new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
-    }
-    catch (IOException e)
-    {
-      throw new RuntimeException(e);
-    }
+    this(out, bufferSize);
+  }
+
+  /** Write using UTF-8, buffering up to the given number of bytes */
+  public HZincWriter(OutputStream out, int bufferSize)
+  {
+    if (bufferSize < 16) throw new IllegalArgumentException("Invalid bufferSize: " + bufferSize);
+    this.out = out;
+    this.buf = new byte[bufferSize];
   }
 
 
@@ -54,34 +56,44 @@ public class HZincWriter extends HGridWriter
   public static String gridToString(HGrid grid, final int version)
   {
     if (version != 2 && version != 3) throw new IllegalArgumentException("Invalid version: " + version);
-    StringWriter out = new StringWriter(grid.numCols() * grid.numRows() * 16);
-    HZincWriter w = new HZincWriter(out);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(grid.numCols() * grid.numRows() * 16);
+    HZincWriter w = new HZincWriter(out, stringBufferSize);
     w.version = version;
     w.writeGrid(grid);
-    return out.toString();
+    return w.toUtf8String(out);
   }
 
   public static String valToString(HVal val)
   {
-    StringWriter out = (val instanceof HGrid)
-      ? new StringWriter(((HGrid)val).numCols() * ((HGrid)val).numRows() * 16)
-      : new StringWriter();
-    new HZincWriter(out).writeVal(val);
-    return out.toString();
+    ByteArrayOutputStream out = (val instanceof HGrid)
+      ? new ByteArrayOutputStream(((HGrid)val).numCols() * ((HGrid)val).numRows() * 16)
+      : new ByteArrayOutputStream(32);
+    HZincWriter w = new HZincWriter(out, stringBufferSize);
+    w.writeVal(val);
+    return w.toUtf8String(out);
   }
 
-  private HZincWriter(StringWriter out) { this.out = new PrintWriter(out); }
+  private String toUtf8String(ByteArrayOutputStream out)
+  {
+    drain();
+    try { return out.toString("UTF-8"); }
+    catch (UnsupportedEncodingException e) { throw new RuntimeException(e); }
+  }
 
   /** Flush underlying output stream */
   public void flush()
   {
-    out.flush();
+    drain();
+    try { out.flush(); }
+    catch (IOException e) { throw new RuntimeException(e); }
   }
 
   /** Close underlying output stream */
   public void close()
   {
-    out.close();
+    drain();
+    try { out.close(); }
+    catch (IOException e) { throw new RuntimeException(e); }
   }
 
   /** Write a zinc value */
@@ -138,7 +150,7 @@ public class HZincWriter extends HGridWriter
     else if (val instanceof HBin) writeBin((HBin)val);
     else if (val instanceof HXStr) writeXStr((HXStr)val);
     else if (val instanceof HSymbol) writeSymbol((HSymbol)val);
-    else p(val.toZinc());
+    else p(encode(val));
   }
 
   private void writeBin(HBin bin)
@@ -170,8 +182,52 @@ public class HZincWriter extends HGridWriter
 // HGridWriter
 //////////////////////////////////////////////////////////////////////////
 
-  /** Write a grid */
+  /**
+   * Write a grid.  If separateGrids is set, grids after the first
+   * written to the stream are separated from the one before by a blank
+   * line.
+   */
   public void writeGrid(HGrid grid)
+  {
+    if (gridDepth == 0) separate();
+    writeHeader(grid);
+    writeRows(grid, 0, grid.numRows());
+  }
+
+  /** Begin a grid by writing the ver, meta and columns of header */
+  public void beginGrid(HGrid header)
+  {
+    if (numCols >= 0) throw new IllegalStateException("Grid already begun");
+    separate();
+    writeHeader(header);
+    numCols = header.numCols();
+  }
+
+  /** Write the next row of the grid */
+  public void writeRow(HVal[] cells)
+  {
+    if (numCols < 0) throw new IllegalStateException("No grid begun");
+    if (cells.length != numCols) throw new IllegalArgumentException("Row cells size != cols size");
+    for (int i=0; i<cells.length; ++i)
+      writeCell(i, cells[i]);
+    nl();
+  }
+
+  /** End the grid */
+  public void endGrid()
+  {
+    if (numCols < 0) throw new IllegalStateException("No grid begun");
+    numCols = -1;
+  }
+
+  /** Write the blank line between top-level grids if separateGrids is set */
+  private void separate()
+  {
+    if (numGrids++ > 0 && separateGrids) nl();
+  }
+
+  /** Write the ver, meta and column lines of a grid */
+  void writeHeader(HGrid grid)
   {
     // meta
     p("ver:\"").p(version).p(".0\"").writeMeta(grid.meta()).nl();
@@ -191,13 +247,6 @@ public class HZincWriter extends HGridWriter
       }
     }
     nl();
-
-    // rows
-    for (int i=0; i<grid.numRows(); ++i)
-    {
-      writeRow(grid, grid.row(i));
-      nl();
-    }
   }
 
   private HZincWriter writeMeta(HDict meta)
@@ -232,20 +281,32 @@ public class HZincWriter extends HGridWriter
     p(col.name()).writeMeta(col.meta());
   }
 
+  /** Write the lines of rows [start, end) of a grid */
+  void writeRows(HGrid grid, int start, int end)
+  {
+    for (int i=start; i<end; ++i)
+    {
+      writeRow(grid, grid.row(i));
+      nl();
+    }
+  }
+
   private void writeRow(HGrid grid, HRow row)
   {
     for (int i=0; i<grid.numCols(); ++i)
+      writeCell(i, row.get(grid.col(i), false));
+  }
+
+  private void writeCell(int i, HVal val)
+  {
+    if (i > 0) p(',');
+    if (val == null)
     {
-      HVal val = row.get(grid.col(i), false);
-      if (i > 0) out.write(',');
-      if (val == null)
-      {
-        if (i == 0) out.write('N');
-      }
-      else
-      {
-        out.write(val.toZinc());
-      }
+      if (i == 0) p('N');
+    }
+    else
+    {
+      p(encode(val));
     }
   }
 
@@ -253,10 +314,100 @@ public class HZincWriter extends HGridWriter
 // Utils
 //////////////////////////////////////////////////////////////////////////
 
-  private HZincWriter p(int i) { out.print(i); return this; }
-  private HZincWriter p(char c) { out.print(c); return this; }
-  private HZincWriter p(Object obj) { out.print(obj); return this; }
-  private HZincWriter nl() { out.print('\n'); return this; }
+  private HZincWriter p(int i)
+  {
+    if (i < 0 || i > 9) return p(String.valueOf(i));
+    return p((char)('0' + i));
+  }
+
+  private HZincWriter p(char c)
+  {
+    if (c < 0x80)
+    {
+      if (pos == buf.length) drain();
+      buf[pos++] = (byte)c;
+      return this;
+    }
+    return p(String.valueOf(c));
+  }
+
+  /** Encode a value into the reusable scratch buffer */
+  private StringBuilder encode(HVal val)
+  {
+    StringBuilder s = this.scratch;
+    s.setLength(0);
+    val.encodeZinc(s);
+    return s;
+  }
+
+  private HZincWriter p(CharSequence s)
+  {
+    int n = s.length();
+    for (int i=0; i<n; ++i)
+    {
+      int c = s.charAt(i);
+
+      // ASCII runs are copied until the buffer is full
+      if (c < 0x80)
+      {
+        if (pos == buf.length) drain();
+        byte[] buf = this.buf;
+        int pos = this.pos;
+        buf[pos++] = (byte)c;
+        while (i+1 < n && pos < buf.length && (c = s.charAt(i+1)) < 0x80) { buf[pos++] = (byte)c; ++i; }
+        this.pos = pos;
+        continue;
+      }
+
+      // combine surrogate pairs into one code point
+      if (Character.isHighSurrogate((char)c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1)))
+        c = Character.toCodePoint((char)c, s.charAt(++i));
+      else if (Character.isSurrogate((char)c))
+        c = '?';
+      utf8(c);
+    }
+    return this;
+  }
+
+  private HZincWriter p(Object obj) { return p(String.valueOf(obj)); }
+
+  private HZincWriter nl() { return p('\n'); }
+
+  private void utf8(int c)
+  {
+    if (pos + 4 > buf.length) drain();
+    if (c < 0x80)
+    {
+      buf[pos++] = (byte)c;
+    }
+    else if (c < 0x800)
+    {
+      buf[pos++] = (byte)(0xc0 | (c >> 6));
+      buf[pos++] = (byte)(0x80 | (c & 0x3f));
+    }
+    else if (c < 0x10000)
+    {
+      buf[pos++] = (byte)(0xe0 | (c >> 12));
+      buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+      buf[pos++] = (byte)(0x80 | (c & 0x3f));
+    }
+    else
+    {
+      buf[pos++] = (byte)(0xf0 | (c >> 18));
+      buf[pos++] = (byte)(0x80 | ((c >> 12) & 0x3f));
+      buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+      buf[pos++] = (byte)(0x80 | (c & 0x3f));
+    }
+  }
+
+  /** Write the buffered bytes to the underlying stream */
+  private void drain()
+  {
+    if (pos == 0) return;
+    try { out.write(buf, 0, pos); }
+    catch (IOException e) { throw new RuntimeException(e); }
+    pos = 0;
+  }
 
 //////////////////////////////////////////////////////////////////////////
 // Fields
@@ -265,7 +416,22 @@ public class HZincWriter extends HGridWriter
   /** Version of Zinc to write */
   public int version = 3;
 
-  private PrintWriter out;
+  /**
+   * Write a blank line between top-level grids so a stream of several
+   * grids reads back with HZincReader.readGrids.  Off by default, which
+   * writes each grid straight after the one before.
+   */
+  public boolean separateGrids = false;
+
+  private static final int bufferSize = 8192;
+  private static final int stringBufferSize = 1024;
+
+  private final OutputStream out;
+  private final byte[] buf;
+  private int pos;
+  private final StringBuilder scratch = new StringBuilder(64);
   private int gridDepth = 0;
+  private int numCols = -1;    // columns of grid begun, or -1
+  private int numGrids = 0;    // top-level grids written
 
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import org.projecthaystack.*;
+
+/**
+ * HaystackInterner is a bounded symbol table which canonicalizes the
+ * identifiers, tag names, units, strings and refs decoded by a reader,
+ * so a grid repeating the same values across many rows retains one
+ * instance of each.  Lookups are made straight from the tokenizer's
+ * buffer and only allocate on a miss.
+ * <p>
+ * Each table is direct mapped: a value evicts whatever occupied its slot
+ * before, so memory stays bounded by the capacity no matter how many
+ * distinct values are seen.  Strings longer than 64 chars are never
+ * interned.  An interner may be shared by readers on different threads;
+ * a race can only cost a cache miss.
+ *
+ * @see HZincReader#setInterner
+ */
+public final class HaystackInterner
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Construct with a capacity of 4096 entries per table */
+  public HaystackInterner() { this(4096); }
+
+  /** Construct with the given number of entries per table */
+  public HaystackInterner(int capacity)
+  {
+    if (capacity <= 0) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) size <<= 1;
+    this.mask = size - 1;
+    this.strings = new String[size];
+    this.strs = new HStr[size];
+    this.refs = new HRef[size];
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Interning
+//////////////////////////////////////////////////////////////////////////
+
+  /** Get the canonical string for the chars [start, end) */
+  String string(CharSequence s, int start, int end)
+  {
+    if (end - start > maxLen) return s.subSequence(start, end).toString();
+    int hash = hash(s, start, end);
+    int slot = slot(hash);
+    String x = strings[slot];
+    if (x != null && matches(x, hash, s, start, end)) return x;
+    x = s.subSequence(start, end).toString();
+    strings[slot] = x;
+    return x;
+  }
+
+  /** Get the canonical HStr for the given chars */
+  HStr str(CharSequence s)
+  {
+    int end = s.length();
+    if (end == 0) return HStr.make("");
+    if (end > maxLen) return HStr.make(s.toString());
+    int hash = hash(s, 0, end);
+    int slot = slot(hash);
+    HStr x = strs[slot];
+    if (x != null && matches(x.val, hash, s, 0, end)) return x;
+    x = HStr.make(s.toString());
+    strs[slot] = x;
+    return x;
+  }
+
+  /** Get the canonical HRef without a display string for the given chars */
+  HRef ref(CharSequence s)
+  {
+    int end = s.length();
+    if (end > maxLen) return HRef.make(s.toString(), null);
+    int hash = hash(s, 0, end);
+    int slot = slot(hash);
+    HRef x = refs[slot];
+    if (x != null && x.dis == null && matches(x.val, hash, s, 0, end)) return x;
+    x = HRef.make(string(s, 0, end), null);
+    refs[slot] = x;
+    return x;
+  }
+
+  /** Get the canonical HRef with the id of ref and the given display string */
+  HRef ref(HRef ref, String dis)
+  {
+    if (dis.length() > maxLen) return HRef.make(ref.val, dis);
+    int slot = slot(ref.val.hashCode() * 31 + dis.hashCode());
+    HRef x = refs[slot];
+    if (x != null && x.val.equals(ref.val) && dis.equals(x.dis)) return x;
+    x = HRef.make(ref.val, dis);
+    refs[slot] = x;
+    return x;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Utils
+//////////////////////////////////////////////////////////////////////////
+
+  /** Same hash as String.hashCode for the chars [start, end) */
+  private static int hash(CharSequence s, int start, int end)
+  {
+    int hash = 0;
+    for (int i=start; i<end; ++i) hash = 31 * hash + s.charAt(i);
+    return hash;
+  }
+
+  private int slot(int hash) { return (hash ^ (hash >>> 16)) & mask; }
+
+  private static boolean matches(String x, int hash, CharSequence s, int start, int end)
+  {
+    if (x.hashCode() != hash || x.length() != end - start) return false;
+    for (int i=0; i<x.length(); ++i)
+      if (x.charAt(i) != s.charAt(start + i)) return false;
+    return true;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final int maxLen = 64;
+
+  private final int mask;
+  private final String[] strings;
+  private final HStr[] strs;
+  private final HRef[] refs;
+}
@@ -10,10 +10,17 @@ package org.projecthaystack.io;
 import org.projecthaystack.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
 /**
- * Stream based tokenizer for Haystack formats such as Zinc and Filters
+ * Stream based tokenizer for Haystack formats such as Zinc and Filters.
+ * The tokenizer reads either chars from a Reader or UTF-8 encoded bytes
+ * from an InputStream, byte array, or ByteBuffer.  When reading bytes,
+ * runs of ASCII in identifiers, strings, refs and symbols are scanned
+ * directly in the byte buffer and multi-byte sequences are only decoded
+ * when they are encountered.
  */
 public class HaystackTokenizer
 {
@@ -30,11 +37,57 @@ public class HaystackTokenizer
     consume();
   }
 
+  /** Tokenize UTF-8 encoded bytes read from the given input stream */
+  public HaystackTokenizer(InputStream in)
+  {
+    this.src = in;
+    this.bytes = new byte[bufferSize];
+    this.tok = HaystackToken.eof;
+    consume();
+    consume();
+  }
+
+  /** Tokenize UTF-8 encoded bytes in the given range of a byte array */
+  public HaystackTokenizer(byte[] buf, int off, int len)
+  {
+    if (off < 0 || len < 0 || off + len > buf.length) throw new IndexOutOfBoundsException();
+    this.bytes = buf;
+    this.pos = off;
+    this.lim = off + len;
+    this.tok = HaystackToken.eof;
+    consume();
+    consume();
+  }
+
+  /**
+   * Tokenize the UTF-8 encoded bytes between the buffer's position and
+   * limit.  The buffer itself is not modified.  Heap buffers are scanned
+   * in place; direct and mapped buffers are copied out in blocks.
+   */
+  public HaystackTokenizer(ByteBuffer buf)
+  {
+    if (buf.hasArray())
+    {
+      this.bytes = buf.array();
+      this.pos = buf.arrayOffset() + buf.position();
+      this.lim = buf.arrayOffset() + buf.limit();
+    }
+    else
+    {
+      this.srcBuf = buf.duplicate();
+      this.bytes = new byte[Math.min(bufferSize, Math.max(16, buf.remaining()))];
+    }
+    this.tok = HaystackToken.eof;
+    consume();
+    consume();
+  }
+
   boolean close()
   {
     try
     {
-      in.close();
+      if (in != null) in.close();
+      if (src != null) src.close();
       return true;
     }
     catch (IOException e)
@@ -96,13 +149,9 @@ public class HaystackTokenizer
 
   private HaystackToken id()
   {
-    StringBuffer s = new StringBuffer();
-    while (isIdPart(cur))
-    {
-      s.append((char)cur);
-      consume();
-    }
-    this.val = s.toString();
+    StringBuilder s = chars();
+    appendRun(s, idChars);
+    this.val = interner != null ? interner.string(s, 0, s.length()) : s.toString();
     return HaystackToken.id;
   }
 
@@ -134,19 +183,29 @@ public class HaystackTokenizer
     {
       consume('0');
       consume('x');
-      StringBuffer s = new StringBuffer();
+      long v = 0;
+      int digits = 0;
       while (true)
       {
-        if (isHex(cur)) { s.append((char)cur); consume(); continue; }
+        if (isHex(cur))
+        {
+          if (v >>> 59 != 0) throw err("Invalid Number literal: hex overflow");
+          v = (v << 4) | Character.digit(cur, 16);
+          if (v < 0) throw err("Invalid Number literal: hex overflow");
+          ++digits;
+          consume();
+          continue;
+        }
         if (cur == '_') { consume(); continue; }
         break;
       }
-      this.val = HNum.make(Long.parseLong(s.toString(), 16));
+      if (digits == 0) throw err("Invalid Number literal: 0x");
+      this.val = HNum.make(v);
       return HaystackToken.num;
     }
 
     // consume all things that might be part of this number token
-    StringBuffer s = new StringBuffer().append((char)cur);
+    StringBuilder s = chars().append((char)cur);
     consume();
     int colons = 0;
     int dashes = 0;
@@ -170,10 +229,10 @@ public class HaystackTokenizer
       consume();
     }
 
-    if (dashes == 2 && colons == 0) return date(s.toString());
+    if (dashes == 2 && colons == 0) return date(s);
     if (dashes == 0 && colons >= 1) return time(s, colons == 1);
     if (dashes >= 2) return dateTime(s);
-    return number(s.toString(), unitIndex);
+    return number(s, unitIndex);
   }
 
   private static boolean isHex(int cur)
@@ -184,11 +243,18 @@ public class HaystackTokenizer
     return false;
   }
 
-  private HaystackToken date(String s)
+  private HaystackToken date(StringBuilder s)
   {
     try
     {
-      this.val = HDate.make(s);
+      // fast path for fixed width YYYY-MM-DD
+      int year, month, day;
+      if (s.length() == 10 && s.charAt(4) == '-' && s.charAt(7) == '-' &&
+          (year = digits(s, 0, 4)) >= 0 && (month = digits(s, 5, 2)) >= 0 &&
+          (day = digits(s, 8, 2)) >= 0)
+        this.val = HDate.make(year, month, day);
+      else
+        this.val = HDate.make(s.toString());
       return HaystackToken.date;
     }
     catch (ParseException e)
@@ -198,13 +264,14 @@ public class HaystackTokenizer
   }
 
   /** we don't require hour to be two digits and we don't require seconds */
-  private HaystackToken time(StringBuffer s, boolean addSeconds)
+  private HaystackToken time(StringBuilder s, boolean addSeconds)
   {
     try
     {
       if (s.charAt(1) == ':') s.insert(0, '0');
       if (addSeconds) s.append(":00");
-      this.val = HTime.make(s.toString());
+      HTime time = parseTime(s, 0, s.length());
+      this.val = time != null ? time : HTime.make(s.toString());
       return HaystackToken.time;
     }
     catch (ParseException e)
@@ -213,7 +280,7 @@ public class HaystackTokenizer
     }
   }
 
-  private HaystackToken dateTime(StringBuffer s)
+  private HaystackToken dateTime(StringBuilder s)
   {
     // xxx timezone
     if (cur != ' ' || !Character.isUpperCase(peek))
@@ -228,7 +295,7 @@ public class HaystackTokenizer
       while (isIdPart(cur)) { s.append((char)cur); consume(); }
 
       // handle GMT+xx or GMT-xx
-      if ((cur == '+' || cur == '-') && s.toString().endsWith("GMT"))
+      if ((cur == '+' || cur == '-') && endsWith(s, "GMT"))
       {
         s.append((char)cur); consume();
         while (isDigit(cur)) { s.append((char)cur); consume(); }
@@ -236,7 +303,8 @@ public class HaystackTokenizer
     }
     try
     {
-      this.val = HDateTime.make(s.toString());
+      HDateTime ts = parseDateTime(s);
+      this.val = ts != null ? ts : HDateTime.make(s.toString());
       return HaystackToken.dateTime;
     }
     catch (ParseException e)
@@ -245,60 +313,291 @@ public class HaystackTokenizer
     }
   }
 
-  private HaystackToken number(String s, int unitIndex)
+  /**
+   * Decode "YYYY-MM-DD'T'hh:mm:ss[.FFF](Z|+HH:MM) Tz" in place, or
+   * return null to let HDateTime.make report anything irregular.
+   */
+  private HDateTime parseDateTime(StringBuilder s)
+  {
+    int len = s.length();
+    if (len < 22 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T') return null;
+    int year  = digits(s, 0, 4);
+    int month = digits(s, 5, 2);
+    int day   = digits(s, 8, 2);
+    if (year < 0 || month < 0 || day < 0) return null;
+
+    // time runs up to the offset
+    int i = 19;
+    while (i < len && (isDigit(s.charAt(i)) || s.charAt(i) == '.')) ++i;
+    HTime time = parseTime(s, 11, i);
+    if (time == null || i >= len) return null;
+
+    // offset
+    int offset;
+    char c = s.charAt(i);
+    if (c == 'Z')
+    {
+      offset = 0;
+      i += 1;
+    }
+    else if (c == '+' || c == '-')
+    {
+      if (i + 7 >= len || s.charAt(i+3) != ':') return null;
+      int hours = digits(s, i+1, 2);
+      int mins  = digits(s, i+4, 2);
+      if (hours < 0 || mins < 0) return null;
+      offset = hours * 3600 + mins * 60;
+      if (c == '-') offset = -offset;
+      i += 6;
+    }
+    else return null;
+
+    // timezone name
+    if (i + 1 >= len || s.charAt(i) != ' ') return null;
+    HTimeZone tz = this.lastTz;
+    if (tz == null || !matches(tz.name, s, i+1, len))
+      this.lastTz = tz = HTimeZone.make(s.substring(i+1, len));
+
+    return HDateTime.make(HDate.make(year, month, day), time, tz, offset);
+  }
+
+  /** Decode "hh:mm:ss[.FFF]" between start and end, or return null */
+  private static HTime parseTime(StringBuilder s, int start, int end)
+  {
+    if (end - start < 8 || s.charAt(start+2) != ':' || s.charAt(start+5) != ':') return null;
+    int hour = digits(s, start, 2);
+    int min  = digits(s, start+3, 2);
+    int sec  = digits(s, start+6, 2);
+    if (hour < 0 || min < 0 || sec < 0) return null;
+    int i = start + 8;
+    if (i == end) return HTime.make(hour, min, sec, 0);
+
+    // HTime only stores ms precision, so truncate anything after that
+    if (s.charAt(i) != '.' || ++i == end) return null;
+    int ms = 0;
+    int places = 0;
+    for (; i < end; ++i)
+    {
+      char c = s.charAt(i);
+      if (!isDigit(c)) return null;
+      if (places < 3) { ms = ms * 10 + (c - '0'); ++places; }
+    }
+    while (places++ < 3) ms *= 10;
+    return HTime.make(hour, min, sec, ms);
+  }
+
+  /** Parse n decimal digits at start, or return -1 */
+  private static int digits(CharSequence s, int start, int n)
+  {
+    int v = 0;
+    for (int i = start; i < start + n; ++i)
+    {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') return -1;
+      v = v * 10 + (c - '0');
+    }
+    return v;
+  }
+
+  private static boolean endsWith(CharSequence s, String suffix)
+  {
+    int off = s.length() - suffix.length();
+    if (off < 0) return false;
+    for (int i = 0; i < suffix.length(); ++i)
+      if (s.charAt(off + i) != suffix.charAt(i)) return false;
+    return true;
+  }
+
+  private HaystackToken number(StringBuilder s, int unitIndex)
   {
+    int end = unitIndex == 0 ? s.length() : unitIndex;
+    double d;
+    try
+    {
+      d = parseDouble(s, end);
+    }
+    catch (NumberFormatException e)
+    {
+      throw err("Invalid Number literal: " + s);
+    }
+    String unit = unitIndex == 0 ? null : unit(s, unitIndex);
     try
     {
-      if (unitIndex == 0)
+      this.val = HNum.make(d, unit);
+    }
+    catch (Exception e)
+    {
+      throw err("Invalid Number literal: " + s);
+    }
+    return HaystackToken.num;
+  }
+
+  /**
+   * Parse the decimal literal in s[0, end).  Literals with at most 15
+   * significant digits and a decimal exponent within +/-22 are computed
+   * exactly with a single multiply or divide of two exactly representable
+   * doubles, which never allocates; anything else falls back to
+   * Double.parseDouble.
+   */
+  private static double parseDouble(StringBuilder s, int end)
+  {
+    int i = 0;
+    boolean neg = s.charAt(0) == '-';
+    if (neg) ++i;
+
+    long mantissa = 0;
+    int digits = 0;
+    int exp = 0;
+    boolean dot = false;
+    boolean exact = true;
+    for (; i<end; ++i)
+    {
+      int c = s.charAt(i);
+      if ('0' <= c && c <= '9')
       {
-        this.val = HNum.make(Double.parseDouble(s));
+        if (digits < 15)
+        {
+          mantissa = mantissa * 10 + (c - '0');
+          if (mantissa != 0) ++digits;
+          if (dot) --exp;
+        }
+        else exact = false;
       }
-      else
+      else if (c == '.' && !dot) dot = true;
+      else if (c == 'e' || c == 'E') break;
+      else exact = false;
+    }
+
+    // exponent
+    if (i < end)
+    {
+      int j = i + 1;
+      boolean expNeg = false;
+      if (j < end && (s.charAt(j) == '-' || s.charAt(j) == '+')) expNeg = s.charAt(j++) == '-';
+      if (j == end) exact = false;
+      int e = 0;
+      for (; j<end; ++j)
       {
-        String doubleStr = s.substring(0, unitIndex);
-        String unitStr   = s.substring(unitIndex);
-        this.val = HNum.make(Double.parseDouble(doubleStr), unitStr);
+        int c = s.charAt(j);
+        if (c < '0' || c > '9' || e > 1000) { exact = false; break; }
+        e = e * 10 + (c - '0');
       }
+      exp += expNeg ? -e : e;
     }
-    catch (Exception e)
+
+    if (!exact || exp < -22 || exp > 22)
+      return Double.parseDouble(s.substring(0, end));
+
+    double d = (double)mantissa;
+    if (exp > 0) d *= pow10[exp];
+    else if (exp < 0) d /= pow10[-exp];
+    return neg ? -d : d;
+  }
+
+  private static final double[] pow10 = new double[23];
+  static
+  {
+    pow10[0] = 1.0;
+    for (int i=1; i<pow10.length; ++i) pow10[i] = pow10[i-1] * 10.0;
+  }
+
+  /**
+   * Resolve the unit in s[start, end) to a shared String.  Common units
+   * come from a pre-interned table and other units are cached per
+   * tokenizer, so only the first occurrence of a unit allocates.
+   */
+  private String unit(StringBuilder s, int start)
+  {
+    int end = s.length();
+    int hash = 0;
+    for (int i=start; i<end; ++i) hash = 31 * hash + s.charAt(i);
+
+    // pre-interned units
+    int mask = knownUnits.length - 1;
+    for (int i=hash & mask; knownUnits[i] != null; i = (i+1) & mask)
+      if (matches(knownUnits[i], hash, s, start, end)) return knownUnits[i];
+
+    // units seen earlier by this tokenizer
+    int slot = (hash ^ (hash >>> 16)) & (unitCache.length - 1);
+    String unit = unitCache[slot];
+    if (unit != null && matches(unit, hash, s, start, end)) return unit;
+    unit = interner != null ? interner.string(s, start, end) : s.substring(start, end);
+    unitCache[slot] = unit;
+    return unit;
+  }
+
+  private static boolean matches(String x, int hash, CharSequence s, int start, int end)
+  {
+    return x.hashCode() == hash && matches(x, s, start, end);
+  }
+
+  private static boolean matches(String x, CharSequence s, int start, int end)
+  {
+    if (x.length() != end - start) return false;
+    for (int i=0; i<x.length(); ++i)
+      if (x.charAt(i) != s.charAt(start + i)) return false;
+    return true;
+  }
+
+  private static final String[] knownUnits = new String[512];
+  static
+  {
+    String[] units = {
+      // ratio, energy, power
+      "%", "%RH", "ppm", "ppb", "W", "kW", "MW", "Wh", "kWh", "MWh", "VA", "kVA", "var", "kvar",
+      "kVAh", "kvarh", "J", "kJ", "MJ", "GJ", "BTU", "kBTU", "MBTU", "Btu", "kBtu", "MBtu",
+      "tonref", "tonrefh", "hp", "therm", "cal", "kcal",
+      // electrical
+      "V", "kV", "mV", "A", "kA", "mA", "\u03a9", "k\u03a9", "Hz", "kHz", "pf",
+      // temperature
+      "\u00b0F", "\u00b0C", "K", "\u0394\u00b0F", "\u0394\u00b0C", "\u0394K",
+      // pressure
+      "Pa", "kPa", "hPa", "bar", "mbar", "psi", "inH\u2082O", "inHg", "mmHg", "atm",
+      // flow and volume
+      "cfm", "gpm", "gph", "L/s", "L/min", "m\u00b3/h", "m\u00b3/s", "ft\u00b3/min",
+      "gal", "L", "m\u00b3", "ft\u00b3", "mL",
+      // length, area, speed, mass
+      "m", "cm", "mm", "km", "ft", "in", "mi", "m\u00b2", "ft\u00b2", "m/s", "km/h", "mph", "ft/min",
+      "kg", "g", "lb", "kg/s", "kg/h", "lb/h",
+      // time
+      "ms", "s", "sec", "min", "h", "hr", "day", "wk", "mo", "yr",
+      // intensity and lighting
+      "kWh/ft\u00b2", "kWh/m\u00b2", "W/ft\u00b2", "W/m\u00b2", "lx", "fc", "lm", "cd",
+      // misc
+      "$", "\u00a3", "\u20ac", "rpm", "dB", "pH",
+    };
+    for (int i=0; i<units.length; ++i)
     {
-      throw err("Invalid Number literal: " + s);
+      String unit = units[i];
+      int mask = knownUnits.length - 1;
+      int j = unit.hashCode() & mask;
+      while (knownUnits[j] != null) j = (j+1) & mask;
+      knownUnits[j] = unit;
     }
-    return HaystackToken.num;
   }
 
   private HaystackToken str()
   {
     consume('"');
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = chars();
     while (true)
     {
+      if (cur < 128 && cur >= 0 && strChars[cur]) { appendRun(s, strChars); continue; }
       if (cur == eof) throw err("Unexpected end of str");
       if (cur == '"') { consume('"'); break; }
       if (cur == '\\') { s.append(escape()); continue; }
       s.append((char)cur);
       consume();
     }
-    this.val = HStr.make(s.toString());
+    this.val = interner != null ? interner.str(s) : HStr.make(s.toString());
     return HaystackToken.str;
   }
 
   private HaystackToken symbol()
   {
     consume('^');
-    StringBuffer s = new StringBuffer();
-    while (true)
-    {
-      if (HRef.isIdChar((char)cur))
-      {
-        s.append((char)cur);
-        consume();
-      }
-      else
-      {
-        break;
-      }
-    }
+    StringBuilder s = chars();
+    appendRun(s, refChars);
     if (s.length() == 0) throw err("Invalid empty symbol");
     this.val = HSymbol.make(s.toString());
     return HaystackToken.symbol;
@@ -307,27 +606,16 @@ public class HaystackTokenizer
   private HaystackToken ref()
   {
     consume('@');
-    StringBuffer s = new StringBuffer();
-    while (true)
-    {
-      if (HRef.isIdChar((char)cur))
-      {
-        s.append((char)cur);
-        consume();
-      }
-      else
-      {
-        break;
-      }
-    }
-    this.val = HRef.make(s.toString(), null);
+    StringBuilder s = chars();
+    appendRun(s, refChars);
+    this.val = interner != null ? interner.ref(s) : HRef.make(s.toString(), null);
     return HaystackToken.ref;
   }
 
   private HaystackToken uri()
   {
     consume('`');
-    StringBuffer s = new StringBuffer();
+    StringBuilder s = chars();
     while (true)
     {
       if (cur == '`') { consume('`'); break; }
@@ -384,22 +672,19 @@ public class HaystackTokenizer
     }
 
     // check for uxxxx
-    StringBuffer esc = new StringBuffer();
     if (cur == 'u')
     {
       consume('u');
-      esc.append((char)cur); consume();
-      esc.append((char)cur); consume();
-      esc.append((char)cur); consume();
-      esc.append((char)cur); consume();
-      try
-      {
-        return (char) Integer.parseInt(esc.toString(), 16);
-      }
-      catch (NumberFormatException e)
+      int code = 0;
+      for (int i=0; i<4; ++i)
       {
-        throw new ParseException("Invalid unicode escape: " + esc.toString());
+        int digit = Character.digit(cur, 16);
+        if (cur < 0 || digit < 0)
+          throw new ParseException("Invalid unicode escape: " + (cur < 0 ? "eof" : String.valueOf((char)cur)));
+        code = (code << 4) | digit;
+        consume();
       }
+      return (char)code;
     }
     throw err("Invalid escape sequence: " + (char)cur);
   }
@@ -507,7 +792,7 @@ public class HaystackTokenizer
     try
     {
       cur = peek;
-      peek = in.read();
+      peek = read();
     }
     catch (IOException e)
     {
@@ -516,6 +801,120 @@ public class HaystackTokenizer
     }
   }
 
+  /**
+   * Append cur and every following char which is an ASCII char accepted
+   * by the given table.  When reading bytes, runs of accepted ASCII are
+   * scanned directly in the byte buffer rather than char by char.
+   */
+  private void appendRun(StringBuilder s, boolean[] accept)
+  {
+    while (cur >= 0 && cur < 128 && accept[cur])
+    {
+      s.append((char)cur);
+      if (bytes != null && peek >= 0 && peek < 128 && accept[peek])
+      {
+        s.append((char)peek);
+        byte[] bytes = this.bytes;
+        int p = pos;
+        int lim = this.lim;
+        while (p < lim)
+        {
+          int b = bytes[p];
+          if (b < 0 || !accept[b]) break;
+          s.append((char)b);
+          ++p;
+        }
+        pos = p;
+        consume();
+      }
+      consume();
+    }
+  }
+
+  /** Clear and return the shared token char buffer */
+  private StringBuilder chars()
+  {
+    chars.setLength(0);
+    return chars;
+  }
+
+  /** Read the next char from the underlying chars or UTF-8 bytes */
+  private int read() throws IOException
+  {
+    if (in != null) return in.read();
+
+    // second half of a surrogate pair
+    if (pendingLow >= 0)
+    {
+      int c = pendingLow;
+      pendingLow = -1;
+      return c;
+    }
+
+    // ASCII fast path
+    if (pos >= lim && !fill()) return eof;
+    int b = bytes[pos++];
+    if (b >= 0) return b;
+    return readUtf8(b & 0xff);
+  }
+
+  /** Decode a multi-byte UTF-8 sequence given its lead byte */
+  private int readUtf8(int b) throws IOException
+  {
+    int n;
+    int c;
+    if ((b & 0xe0) == 0xc0)      { n = 1; c = b & 0x1f; }
+    else if ((b & 0xf0) == 0xe0) { n = 2; c = b & 0x0f; }
+    else if ((b & 0xf8) == 0xf0) { n = 3; c = b & 0x07; }
+    else return 0xfffd;
+
+    for (int i=0; i<n; ++i)
+    {
+      if (pos >= lim && !fill()) return 0xfffd;
+      int x = bytes[pos];
+      if ((x & 0xc0) != 0x80) return 0xfffd;
+      c = (c << 6) | (x & 0x3f);
+      ++pos;
+    }
+
+    if (c < 0x10000) return c;
+    if (c > 0x10ffff) return 0xfffd;
+    pendingLow = Character.lowSurrogate(c);
+    return Character.highSurrogate(c);
+  }
+
+  /** Refill the byte buffer from the byte source; return false on end of input */
+  private boolean fill() throws IOException
+  {
+    int n = -1;
+    if (src != null)
+    {
+      n = src.read(bytes, 0, bytes.length);
+    }
+    else if (srcBuf != null && srcBuf.hasRemaining())
+    {
+      n = Math.min(bytes.length, srcBuf.remaining());
+      srcBuf.get(bytes, 0, n);
+    }
+    if (n <= 0) return false;
+    pos = 0;
+    lim = n;
+    return true;
+  }
+
+  private static boolean[] idChars  = new boolean[128];
+  private static boolean[] refChars = new boolean[128];
+  private static boolean[] strChars = new boolean[128];
+  static
+  {
+    for (int i=0; i<128; ++i)
+    {
+      idChars[i]  = isIdPart(i);
+      refChars[i] = HRef.isIdChar((char)i);
+      strChars[i] = i != '"' && i != '\\';
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Fields
 //////////////////////////////////////////////////////////////////////////
@@ -524,8 +923,19 @@ public class HaystackTokenizer
   public Object val;        //token literal or identifier
   int line = 1;             // current line number
 
-  private final Reader in;   // underlying stream
-  private int cur;           // current char
-  private int peek;          // next char
+  private Reader in;          // underlying char stream or null
+  private InputStream src;    // underlying byte stream or null
+  private ByteBuffer srcBuf;  // underlying direct byte buffer or null
+  private byte[] bytes;       // UTF-8 bytes if not reading chars
+  private int pos;            // next byte to read in bytes
+  private int lim;            // end of valid bytes
+  private int pendingLow = -1; // low surrogate of decoded pair
+  private int cur;            // current char
+  private int peek;           // next char
+  private final StringBuilder chars = new StringBuilder(); // token text
+  private final String[] unitCache = new String[64];        // recent units
+  private HTimeZone lastTz;   // timezone of last dateTime
+  HaystackInterner interner;  // canonicalizes repeated values or null
   private static final int eof = -1;
+  private static final int bufferSize = 8192;
 }
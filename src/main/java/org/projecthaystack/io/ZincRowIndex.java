@@ -0,0 +1,154 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ZincRowIndex finds the logical line boundaries of a top-level Zinc
+ * grid in one pass over its UTF-8 bytes without tokenizing them.  The
+ * first two lines are the grid header (ver/meta and columns) and each
+ * line after that is one row, up to the first blank line or end of input.
+ * Newlines inside strings, uris and nested grids do not end a line.
+ * Bytes may be fed in any number of blocks.
+ */
+final class ZincRowIndex
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Scanning
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Scan the bytes between the buffer's position and limit, where the
+   * position maps to the given absolute offset.  The buffer is not
+   * modified.  Return false once the end of the grid has been found.
+   */
+  boolean scan(ByteBuffer buf, long base)
+  {
+    int start = buf.position();
+    int end = buf.limit();
+    for (int i=start; i<end && !done; ++i)
+      scan(buf.get(i), base + (i - start));
+    return !done;
+  }
+
+  /** Scan the given range of a byte array where off maps to base */
+  boolean scan(byte[] buf, int off, int len, long base)
+  {
+    for (int i=0; i<len && !done; ++i)
+      scan(buf[off+i], base + i);
+    return !done;
+  }
+
+  private void scan(int b, long offset)
+  {
+    switch (state)
+    {
+      case STR:
+        if (b == '\\') state = STR_ESC;
+        else if (b == '"') state = NORMAL;
+        else if (b == '\n') multiLine = true;
+        return;
+      case STR_ESC:
+        state = STR;
+        return;
+      case URI:
+        if (b == '\\') state = URI_ESC;
+        else if (b == '`') state = NORMAL;
+        else if (b == '\n') multiLine = true;
+        return;
+      case URI_ESC:
+        state = URI;
+        return;
+    }
+
+    if (b == '\n')
+    {
+      prev = 0;
+      if (depth > 0) return;
+      if (blank && numLines >= 2) { done = true; end = lineStart; return; }
+      addLine(lineStart);
+      lineStart = offset + 1;
+      blank = true;
+      return;
+    }
+
+    if (b != ' ' && b != '\t' && b != '\r') blank = false;
+    if (b == '"') state = STR;
+    else if (b == '`') state = URI;
+    else if (b == '<' && prev == '<') { ++depth; nested = true; b = 0; }
+    else if (b == '>' && prev == '>' && depth > 0) { --depth; b = 0; }
+    prev = b;
+  }
+
+  /** Finish scanning at the given total length of input */
+  void finish(long length)
+  {
+    if (done) return;
+    if (!blank && lineStart < length) addLine(lineStart);
+    end = length;
+    done = true;
+  }
+
+  private void addLine(long start)
+  {
+    if (numLines == lines.length)
+    {
+      long[] temp = new long[lines.length * 2];
+      System.arraycopy(lines, 0, temp, 0, numLines);
+      lines = temp;
+    }
+    lines[numLines++] = start;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  /** Number of rows found after the two header lines */
+  int numRows() { return Math.max(0, numLines - 2); }
+
+  /** Offset where the header lines end and the first row starts */
+  long headerEnd() { return numLines > 2 ? lines[2] : end; }
+
+  /** Offset of the first byte of the given row */
+  long rowStart(int row) { return lines[row+2]; }
+
+  /** Offset just past the last byte (including newline) of the given row */
+  long rowEnd(int row) { return row+3 < numLines ? lines[row+3] : end; }
+
+  /** Offset where the grid ends */
+  long end() { return end; }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final int NORMAL  = 0;
+  private static final int STR     = 1;
+  private static final int STR_ESC = 2;
+  private static final int URI     = 3;
+  private static final int URI_ESC = 4;
+
+  /** True if a string or uri contains a raw newline */
+  boolean multiLine;
+
+  /** True if any nested grid was found */
+  boolean nested;
+
+  private long[] lines = new long[1024];
+  private int numLines;
+  private long lineStart;
+  private long end;
+  private boolean blank = true;
+  private boolean done;
+  private int state = NORMAL;
+  private int depth;
+  private int prev;
+}
@@ -0,0 +1,202 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.server;
+
+import java.io.*;
+import java.util.zip.*;
+import javax.servlet.http.*;
+import org.projecthaystack.HStr;
+
+/**
+ * ContentEncoding handles the gzip and deflate HTTP content encodings
+ * for HOp: decoding request bodies by their Content-Encoding and
+ * compressing responses for clients which send Accept-Encoding.
+ */
+final class ContentEncoding
+{
+  private ContentEncoding() {}
+
+  /**
+   * Pick "gzip" or "deflate" from an Accept-Encoding header, preferring
+   * gzip, or return null if the client accepts neither.
+   */
+  static String negotiate(String accept)
+  {
+    if (accept == null) return null;
+    boolean gzip = false, deflate = false;
+    String[] toks = HStr.split(accept, ',', true);
+    for (int i=0; i<toks.length; ++i)
+    {
+      String tok = toks[i];
+      int semi = tok.indexOf(';');
+      String name = (semi < 0 ? tok : tok.substring(0, semi)).trim().toLowerCase();
+      if (semi >= 0 && isZeroQuality(tok.substring(semi+1))) continue;
+      if (name.equals("gzip") || name.equals("x-gzip") || name.equals("*")) gzip = true;
+      else if (name.equals("deflate")) deflate = true;
+    }
+    return gzip ? "gzip" : deflate ? "deflate" : null;
+  }
+
+  private static boolean isZeroQuality(String params)
+  {
+    String p = params.trim();
+    if (!p.startsWith("q=")) return false;
+    try { return Double.parseDouble(p.substring(2).trim()) == 0; }
+    catch (NumberFormatException e) { return false; }
+  }
+
+  /**
+   * Wrap a request body to decode the given Content-Encoding, or return
+   * null if the encoding is not supported.
+   */
+  static InputStream decode(InputStream in, String encoding)
+    throws IOException
+  {
+    if (encoding == null) return in;
+    String e = encoding.trim().toLowerCase();
+    if (e.length() == 0 || e.equals("identity")) return in;
+    if (e.equals("gzip") || e.equals("x-gzip")) return new GZIPInputStream(in, 8192);
+    if (e.equals("deflate")) return new InflaterInputStream(in);
+    return null;
+  }
+
+  /**
+   * Make the response stream for the request: a compressing stream if
+   * the client accepts gzip or deflate and threshold is not negative,
+   * otherwise null to write the response directly.
+   */
+  static Output output(HttpServletRequest req, HttpServletResponse res, int threshold)
+  {
+    if (threshold < 0) return null;
+    res.addHeader("Vary", "Accept-Encoding");
+    String encoding = negotiate(req.getHeader("Accept-Encoding"));
+    if (encoding == null) return null;
+    return new Output(res, encoding, threshold);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Output
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Output buffers the response until it reaches the threshold, and
+   * from then on streams it through the compressor.  A response which
+   * finishes below the threshold is sent as is.
+   */
+  static final class Output extends OutputStream
+  {
+    Output(HttpServletResponse res, String encoding, int threshold)
+    {
+      this.res = res;
+      this.encoding = encoding;
+      this.threshold = threshold;
+      this.buf = new byte[Math.min(Math.max(threshold, 256), 64 * 1024)];
+    }
+
+    public void write(int b)
+      throws IOException
+    {
+      if (out != null) { out.write(b); return; }
+      if (size == buf.length) grow(size + 1);
+      buf[size++] = (byte)b;
+      if (size > threshold) start();
+    }
+
+    public void write(byte[] b, int off, int len)
+      throws IOException
+    {
+      if (out != null) { out.write(b, off, len); return; }
+      if (size + len > buf.length) grow(size + len);
+      System.arraycopy(b, off, buf, size, len);
+      size += len;
+      if (size > threshold) start();
+    }
+
+    /** Flush compressed output; bytes below the threshold wait for finish */
+    public void flush()
+      throws IOException
+    {
+      if (out != null) out.flush();
+    }
+
+    /**
+     * Write what is buffered, or end the compressed stream and release
+     * the compressor, which also closes the response stream.
+     */
+    void finish()
+      throws IOException
+    {
+      if (finished) return;
+      finished = true;
+      if (out == null)
+      {
+        OutputStream raw = res.getOutputStream();
+        raw.write(buf, 0, size);
+        raw.flush();
+      }
+      else
+      {
+        out.close();
+      }
+    }
+
+    /**
+     * Return true if a whole response of the given size would be
+     * gzipped and nothing has been written to this output yet.
+     */
+    boolean isGzipped(int size)
+    {
+      return encoding.equals("gzip") && size > threshold && out == null && this.size == 0 && !finished;
+    }
+
+    /** Send a whole response which was gzipped ahead of time */
+    void sendGzipped(byte[] gzipped)
+      throws IOException
+    {
+      finished = true;
+      res.setHeader("Content-Encoding", encoding);
+      OutputStream raw = res.getOutputStream();
+      raw.write(gzipped);
+      raw.flush();
+    }
+
+    public void close()
+      throws IOException
+    {
+      finish();
+      if (out == null) res.getOutputStream().close();
+    }
+
+    private void start()
+      throws IOException
+    {
+      res.setHeader("Content-Encoding", encoding);
+      OutputStream raw = res.getOutputStream();
+      out = encoding.equals("gzip") ?
+        new GZIPOutputStream(raw, 8192) :
+        new DeflaterOutputStream(raw);
+      out.write(buf, 0, size);
+      buf = null;
+    }
+
+    private void grow(int min)
+    {
+      byte[] temp = new byte[Math.max(buf.length * 2, min)];
+      System.arraycopy(buf, 0, temp, 0, size);
+      buf = temp;
+    }
+
+    private final HttpServletResponse res;
+    private final String encoding;
+    private final int threshold;
+    private byte[] buf;
+    private int size;
+    private DeflaterOutputStream out;
+    private boolean finished;
+  }
+}
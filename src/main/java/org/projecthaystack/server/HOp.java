@@ -29,7 +29,7 @@ public abstract class HOp
 
   /**
    * Service the request and return response.
-   * This method routes to "onService(HServer,HGrid)".
+   * This method routes to "onService(HServer,HGrid,HGridWriter)".
    */
   public void onService(HServer db, HttpServletRequest req, HttpServletResponse res)
     throws Exception
@@ -41,17 +41,6 @@ public abstract class HOp
     if (method.equals("POST")) reqGrid = postToGrid(req, res);
     if (reqGrid == null) return;
 
-    // route to onService(HServer, HGrid)
-    HGrid resGrid;
-    try
-    {
-      resGrid = onService(db, reqGrid);
-    }
-    catch (Throwable e)
-    {
-      resGrid = HGridBuilder.errToGrid(e);
-    }
-
     // figure out best format to use for response
     HGridFormat format = toFormat(req);
 
@@ -66,9 +55,49 @@ public abstract class HOp
     {
       res.setContentType(format.mime);
     }
-    HGridWriter out = format.makeWriter(res.getOutputStream());
-    out.writeGrid(resGrid);
+    ContentEncoding.Output encoded = ContentEncoding.output(req, res, db.compressThreshold());
+    HGridWriter out = format.makeWriter(encoded != null ? encoded : res.getOutputStream());
+    if (out instanceof HZincWriter) ((HZincWriter)out).separateGrids = true;
+
+    // route to onService(HServer, HGrid, HGridWriter)
+    TrackingWriter tracked = new TrackingWriter(out);
+    HResponseCache cache = db.responseCache();
+    if (cache != null)
+      tracked.cache(cache, format, encoded != null ? (OutputStream)encoded : res.getOutputStream(), encoded);
+    try
+    {
+      onService(db, reqGrid, tracked);
+    }
+    catch (Throwable e)
+    {
+      // once a grid has been started the error can only abort the response;
+      // leave the output unfinished so the container drops the connection
+      // and the client sees a truncated body rather than a short grid
+      if (tracked.started) throw e;
+      out.writeGrid(HGridBuilder.errToGrid(e));
+    }
+    tracked.sendCached();
+    finish(out, encoded);
+  }
+
+  private static void finish(HGridWriter out, ContentEncoding.Output encoded)
+    throws IOException
+  {
     out.flush();
+    if (encoded != null) encoded.finish();
+  }
+
+  /**
+   * Service the request and write the response grid to out.  The default
+   * writes the grid returned by "onService(HServer,HGrid)".  Ops with
+   * large results override this to stream rows using beginGrid, writeRow
+   * and endGrid.  Errors raised before the grid is begun are sent to the
+   * client as an error grid; errors raised after that abort the response.
+   */
+  public void onService(HServer db, HGrid req, HGridWriter out)
+    throws Exception
+  {
+    out.writeGrid(onService(db, req));
   }
 
   /**
@@ -132,29 +161,59 @@ public abstract class HOp
       return null;
     }
 
+    // decode a compressed body
+    String encoding = req.getHeader("Content-Encoding");
+    InputStream in = ContentEncoding.decode(req.getInputStream(), encoding);
+    if (in == null)
+    {
+      res.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+      return null;
+    }
+
     // read the grid
-    return format.makeReader(req.getInputStream()).readGrid();
+    return format.makeReader(in).readGrid();
   }
 
   /**
    * Find the best format to use for encoding response using
-   * HTTP content negotiation.
+   * HTTP content negotiation: the format with a writer and the highest
+   * quality in the Accept header, preferring streaming formats between
+   * equal qualities.
    */
   private HGridFormat toFormat(HttpServletRequest req)
   {
-    HGridFormat format = null;
+    HGridFormat best = null;
+    double bestQuality = 0;
     String accept = req.getHeader("Accept");
     if (accept != null)
     {
       String[] mimes = HStr.split(accept, ',', true);
       for (int i=0; i<mimes.length; ++i)
       {
-        format = HGridFormat.find(mimes[i], false);
-        if (format != null && format.writer != null) break;
+        HGridFormat format = HGridFormat.find(mimes[i], false);
+        if (format == null || format.writer == null) continue;
+        double q = quality(mimes[i]);
+        if (q > bestQuality || (q == bestQuality && q > 0 && !best.isStreaming() && format.isStreaming()))
+        {
+          best = format;
+          bestQuality = q;
+        }
       }
     }
-    if (format == null) format = HGridFormat.find("text/plain", true);
-    return format;
+    if (best == null) best = HGridFormat.find("text/plain", true);
+    return best;
+  }
+
+  /** Quality parameter of an Accept media range, default 1 */
+  private static double quality(String mime)
+  {
+    int q = mime.indexOf(";q=");
+    if (q < 0) q = mime.indexOf("; q=");
+    if (q < 0) return 1;
+    int start = mime.indexOf('=', q) + 1;
+    int end = mime.indexOf(';', start);
+    try { return Double.parseDouble(mime.substring(start, end < 0 ? mime.length() : end).trim()); }
+    catch (NumberFormatException e) { return 1; }
   }
 
   HRef[] gridToIds(HServer db, HGrid grid)
@@ -181,4 +240,82 @@ public abstract class HOp
     }
   }
 
+//////////////////////////////////////////////////////////////////////////
+// TrackingWriter
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Delegates to a writer and notes if any grid was started.  If a
+   * cache is set, a response made of one whole grid is written as its
+   * cached bytes instead.  The cached bytes are held back until the
+   * response is finished; if anything else is written first, the grid
+   * is encoded through the writer after all so its output stays whole.
+   */
+  private static final class TrackingWriter extends HGridWriter
+  {
+    TrackingWriter(HGridWriter out) { this.out = out; }
+
+    void cache(HResponseCache cache, HGridFormat format, OutputStream raw, ContentEncoding.Output encoded)
+    {
+      this.cache = cache;
+      this.format = format;
+      this.raw = raw;
+      this.encoded = encoded;
+    }
+
+    public void writeGrid(HGrid grid)
+    {
+      boolean first = !started;
+      started = true;
+      writePending();
+      if (!first || cache == null) { out.writeGrid(grid); return; }
+
+      // hold the cached bytes until we know the grid is the whole response
+      int version = out instanceof HZincWriter ? ((HZincWriter)out).version : 0;
+      HResponseCache.Entry entry = cache.lookup(grid, format, version);
+      if (entry == null) { out.writeGrid(grid); return; }
+      pending = grid;
+      pendingEntry = entry;
+    }
+
+    /** Send the held cached grid straight to the response stream */
+    void sendCached()
+      throws IOException
+    {
+      if (pendingEntry == null) return;
+      HResponseCache.Entry entry = pendingEntry;
+      pending = null;
+      pendingEntry = null;
+      if (encoded != null && cache.isGzip() && encoded.isGzipped(entry.bytes.length))
+        encoded.sendGzipped(cache.gzipped(entry));
+      else
+        raw.write(entry.bytes);
+    }
+
+    /** Encode the held grid through the writer, as anything else written must follow it */
+    private void writePending()
+    {
+      if (pending == null) return;
+      HGrid grid = pending;
+      pending = null;
+      pendingEntry = null;
+      out.writeGrid(grid);
+    }
+
+    public void beginGrid(HGrid header) { started = true; writePending(); out.beginGrid(header); }
+    public void writeRow(HVal[] cells) { out.writeRow(cells); }
+    public void endGrid() { out.endGrid(); }
+    public void flush() { writePending(); out.flush(); }
+    public void close() { writePending(); out.close(); }
+
+    private final HGridWriter out;
+    private HResponseCache cache;
+    private HGridFormat format;
+    private OutputStream raw;
+    private ContentEncoding.Output encoded;
+    private HGrid pending;
+    private HResponseCache.Entry pendingEntry;
+    boolean started;
+  }
+
 }
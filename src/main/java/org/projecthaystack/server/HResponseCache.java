@@ -0,0 +1,291 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.server;
+
+import java.io.*;
+import java.lang.ref.*;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+import org.projecthaystack.*;
+import org.projecthaystack.io.*;
+
+/**
+ * HResponseCache keeps the encoded bytes of response grids so an op
+ * which returns the same immutable HGrid instance again, such as the
+ * ops or formats grid, is written without encoding it again.  Entries
+ * are keyed on the identity of the grid, the HGridFormat and the Zinc
+ * version.  Grids are only weakly referenced, so an entry goes away once
+ * its grid is no longer in use.  The total size of the cached bytes is
+ * kept within a budget by evicting the least recently used entries.
+ * <p>
+ * HOp only caches a response grid the second time it is written, so
+ * one-off results still stream through the writer and never displace
+ * grids which are actually reused.
+ * <p>
+ * If gzip is enabled a gzipped copy of each entry is also kept, made the
+ * first time a client which accepts gzip asks for it, so compressed
+ * responses skip the compressor too.  A cache is thread safe and may be
+ * shared between servers.
+ */
+public class HResponseCache
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Construct with the maximum number of bytes to keep, counting
+   * gzipped copies, and whether to keep gzipped copies at all.
+   */
+  public HResponseCache(long maxBytes, boolean gzip)
+  {
+    if (maxBytes < 0) throw new IllegalArgumentException("maxBytes < 0");
+    this.maxBytes = maxBytes;
+    this.gzip = gzip;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Public
+//////////////////////////////////////////////////////////////////////////
+
+  /** Maximum number of bytes kept */
+  public long maxBytes() { return maxBytes; }
+
+  /** Return if gzipped copies are kept */
+  public boolean isGzip() { return gzip; }
+
+  /** Number of bytes currently kept */
+  public long size()
+  {
+    synchronized (lock) { purge(); return size; }
+  }
+
+  /** Number of entries currently kept */
+  public int count()
+  {
+    synchronized (lock) { purge(); return map.size(); }
+  }
+
+  /** Remove all entries */
+  public void clear()
+  {
+    synchronized (lock)
+    {
+      Iterator it = map.values().iterator();
+      while (it.hasNext()) ((Entry)it.next()).cached = false;
+      map.clear();
+      seen.clear();
+      size = 0;
+      while (queue.poll() != null) {}
+    }
+  }
+
+  /**
+   * Return the bytes of grid encoded with the given format, using the
+   * given Zinc version if the format writes Zinc.  The bytes come from
+   * the cache if present, otherwise they are encoded and kept.  The
+   * returned array must not be modified.
+   */
+  public byte[] encode(HGrid grid, HGridFormat format, int version)
+  {
+    Entry entry;
+    synchronized (lock)
+    {
+      purge();
+      entry = (Entry)map.get(new Key(grid, format, version, null));
+    }
+    if (entry == null) entry = store(grid, format, version);
+    return entry.bytes;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Entries
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return the cached entry for a response grid, or encode and keep it
+   * if the grid has been written before.  Return null the first time a
+   * grid is seen, so it is written normally.
+   */
+  Entry lookup(HGrid grid, HGridFormat format, int version)
+  {
+    Key probe = new Key(grid, format, version, null);
+    synchronized (lock)
+    {
+      purge();
+      Entry entry = (Entry)map.get(probe);
+      if (entry != null) return entry;
+      if (seen.remove(probe) == null)
+      {
+        seen.put(new Key(grid, format, version, queue), Boolean.TRUE);
+        if (seen.size() > MAX_SEEN)
+        {
+          Iterator it = seen.keySet().iterator();
+          it.next();
+          it.remove();
+        }
+        return null;
+      }
+    }
+    return store(grid, format, version);
+  }
+
+  /** Encode grid and keep it if it fits the budget */
+  private Entry store(HGrid grid, HGridFormat format, int version)
+  {
+    // encode outside the lock; racing threads store equal bytes
+    Entry entry = new Entry(toBytes(grid, format, version));
+    if (entry.bytes.length > maxBytes / MAX_ENTRY_FRACTION) return entry;
+    synchronized (lock)
+    {
+      Key key = new Key(grid, format, version, queue);
+      Entry old = (Entry)map.put(key, entry);
+      if (old != null) { old.cached = false; size -= old.size(); }
+      entry.cached = true;
+      size += entry.size();
+      evict();
+    }
+    return entry;
+  }
+
+  /**
+   * Gzipped copy of an entry, making and keeping it on first use, or
+   * null if gzipped copies are not kept.
+   */
+  byte[] gzipped(Entry entry)
+  {
+    if (!gzip) return null;
+    byte[] gz = entry.gzipped;
+    if (gz != null) return gz;
+    gz = gzip(entry.bytes);
+    synchronized (lock)
+    {
+      if (entry.gzipped != null) return entry.gzipped;
+      entry.gzipped = gz;
+      if (entry.cached) { size += gz.length; evict(); }
+    }
+    return gz;
+  }
+
+  /** Drop entries whose grids have been collected */
+  private void purge()
+  {
+    Reference ref;
+    while ((ref = queue.poll()) != null)
+    {
+      seen.remove(ref);
+      Entry entry = (Entry)map.remove(ref);
+      if (entry != null) { entry.cached = false; size -= entry.size(); }
+    }
+  }
+
+  /** Drop least recently used entries until within budget */
+  private void evict()
+  {
+    Iterator it = map.values().iterator();
+    while (size > maxBytes && it.hasNext())
+    {
+      Entry entry = (Entry)it.next();
+      entry.cached = false;
+      size -= entry.size();
+      it.remove();
+    }
+  }
+
+  private static byte[] toBytes(HGrid grid, HGridFormat format, int version)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    HGridWriter w = format.makeWriter(out);
+    if (w instanceof HZincWriter) ((HZincWriter)w).version = version;
+    w.writeGrid(grid);
+    w.flush();
+    return out.toByteArray();
+  }
+
+  private static byte[] gzip(byte[] bytes)
+  {
+    try
+    {
+      ByteArrayOutputStream acc = new ByteArrayOutputStream(bytes.length / 4 + 64);
+      GZIPOutputStream out = new GZIPOutputStream(acc);
+      out.write(bytes);
+      out.close();
+      return acc.toByteArray();
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Key
+//////////////////////////////////////////////////////////////////////////
+
+  /** Weak identity key of grid, format and version */
+  private static final class Key extends WeakReference
+  {
+    Key(HGrid grid, HGridFormat format, int version, ReferenceQueue queue)
+    {
+      super(grid, queue);
+      this.hash = System.identityHashCode(grid) * 31 + format.hashCode() * 7 + version;
+      this.format = format;
+      this.version = version;
+    }
+
+    public int hashCode() { return hash; }
+
+    public boolean equals(Object obj)
+    {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key x = (Key)obj;
+      Object grid = get();
+      return grid != null && grid == x.get() && format == x.format && version == x.version;
+    }
+
+    private final int hash;
+    private final HGridFormat format;
+    private final int version;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Entry
+//////////////////////////////////////////////////////////////////////////
+
+  /** Encoded bytes of one grid */
+  static final class Entry
+  {
+    Entry(byte[] bytes) { this.bytes = bytes; }
+
+    long size() { return bytes.length + (gzipped == null ? 0 : gzipped.length); }
+
+    final byte[] bytes;
+    volatile byte[] gzipped;
+    boolean cached;  // guarded by lock
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  /** Larger encodings than this fraction of the budget are not kept */
+  private static final int MAX_ENTRY_FRACTION = 8;
+
+  /** Number of grids written once which are remembered */
+  private static final int MAX_SEEN = 256;
+
+  private final long maxBytes;
+  private final boolean gzip;
+  private final Object lock = new Object();
+  private final LinkedHashMap map = new LinkedHashMap(16, 0.75f, true);
+  private final LinkedHashMap seen = new LinkedHashMap();
+  private final ReferenceQueue queue = new ReferenceQueue();
+  private long size;
+}
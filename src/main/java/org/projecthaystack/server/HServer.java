@@ -9,6 +9,7 @@ package org.projecthaystack.server;
 
 import java.util.*;
 import org.projecthaystack.*;
+import org.projecthaystack.io.HGridWriter;
 
 /**
  * HServer is the interface between HServlet and a database of
@@ -57,6 +58,22 @@ public abstract class HServer extends HProj
     return null;
   }
 
+  /**
+   * Smallest response in bytes which is compressed for clients that
+   * send an Accept-Encoding of gzip or deflate, or -1 to never compress
+   * responses.  Smaller responses are sent as is.  Default is 1024.
+   */
+  public int compressThreshold() { return 1024; }
+
+  /**
+   * Cache of encoded response grids, or null to encode every response.
+   * Ops which return the same HGrid instance again are written straight
+   * from the cache.  Default is null; servers opt in by overriding this
+   * to return the same cache on every call, and must return new HGrid
+   * instances from their ops when the data changes.
+   */
+  public HResponseCache responseCache() { return null; }
+
 //////////////////////////////////////////////////////////////////////////
 // About
 //////////////////////////////////////////////////////////////////////////
@@ -108,18 +125,68 @@ public abstract class HServer extends HProj
    */
   protected HGrid onReadAll(String filter, int limit)
   {
-    HFilter f = HFilter.make(filter);
     ArrayList acc = new ArrayList();
-    for (Iterator it = iterator(); it.hasNext(); )
+    for (Iterator it = readAllIterator(filter, limit); it.hasNext(); )
+      acc.add(it.next());
+    return HGridBuilder.dictsToGrid((HDict[])acc.toArray(new HDict[acc.size()]));
+  }
+
+  /**
+   * Iterate the records matching filter, up to limit, scanning
+   * "iterator" lazily as the result is iterated.  Servers can stream
+   * the result from onReadAll(String,int,HGridWriter) using
+   * HDictStreamWriter, as long as no record after its window has a tag
+   * the window lacks, since an op response must be exactly one grid.
+   */
+  protected Iterator readAllIterator(String filter, final int limit)
+  {
+    final HFilter f = HFilter.make(filter);
+    final Iterator it = iterator();
+    return new Iterator()
     {
-      HDict rec = (HDict)it.next();
-      if (f.include(rec, filterPather))
+      public boolean hasNext()
       {
-        acc.add(rec);
-        if  (acc.size() >= limit) break;
+        while (next == null && count < limit && it.hasNext())
+        {
+          HDict rec = (HDict)it.next();
+          if (f.include(rec, filterPather)) { next = rec; ++count; }
+        }
+        return next != null;
       }
-    }
-    return HGridBuilder.dictsToGrid((HDict[])acc.toArray(new HDict[acc.size()]));
+
+      public Object next()
+      {
+        if (!hasNext()) throw new NoSuchElementException();
+        HDict rec = next;
+        next = null;
+        return rec;
+      }
+
+      public void remove() { throw new UnsupportedOperationException(); }
+
+      private HDict next;
+      private int count;
+    };
+  }
+
+  /**
+   * Read all records matching filter and write them to out as a grid.
+   * This routes to onReadAll(String,int,HGridWriter).
+   */
+  public final void readAll(String filter, int limit, HGridWriter out)
+  {
+    onReadAll(filter, limit, out);
+  }
+
+  /**
+   * Subclass hook to stream the result of readAll.  The default writes
+   * the grid returned by onReadAll(String,int); servers which can find
+   * the matching records lazily may override this to write each one with
+   * writeRow as soon as it is found.
+   */
+  protected void onReadAll(String filter, int limit, HGridWriter out)
+  {
+    out.writeGrid(onReadAll(filter, limit));
   }
 
   private HFilter.Pather filterPather = new HFilter.Pather()
@@ -291,6 +358,39 @@ public abstract class HServer extends HProj
    * relative to the history record's timezone.
    */
   public final HGrid hisRead(HRef id, Object range)
+  {
+    HDictBuilder meta = new HDictBuilder();
+    HHisItem[] items = hisReadItems(id, range, meta);
+    return HGridBuilder.hisItemsToGrid(meta.toDict(), items);
+  }
+
+  /**
+   * Read history time-series data like hisRead(HRef,Object), but write
+   * the "ts" and "val" rows to out as they are produced rather than
+   * building a grid.  Nothing is written if the arguments are invalid.
+   */
+  public final void hisRead(HRef id, Object range, HGridWriter out)
+  {
+    HDictBuilder meta = new HDictBuilder();
+    HHisItem[] items = hisReadItems(id, range, meta);
+
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(meta.toDict());
+    b.addCol("ts");
+    b.addCol("val");
+    out.beginGrid(b.toGrid());
+    HVal[] cells = new HVal[2];
+    for (int i=0; i<items.length; ++i)
+    {
+      cells[0] = items[i].ts;
+      cells[1] = items[i].val;
+      out.writeRow(cells);
+    }
+    out.endGrid();
+  }
+
+  /** Check the arguments of hisRead, add the grid meta, and read the items */
+  private HHisItem[] hisReadItems(HRef id, Object range, HDictBuilder meta)
   {
     // lookup entity
     HDict rec = readById(id);
@@ -337,13 +437,11 @@ public abstract class HServer extends HProj
       if (r.end.millis() < items[items.length-1].ts.millis()) throw new IllegalStateException("end range not met");
     }
 
-    // build and return result grid
-    HDict meta = new HDictBuilder()
-      .add("id", id)
+    // result grid meta
+    meta.add("id", id)
       .add("hisStart", r.start)
-      .add("hisEnd", r.end)
-      .toDict();
-    return HGridBuilder.hisItemsToGrid(meta, items);
+      .add("hisEnd", r.end);
+    return items;
   }
 
   /**
@@ -81,10 +81,15 @@ class OpsOp extends HOp
   public String summary() { return "Operations supported by this server"; }
   public HGrid onService(HServer db, HGrid req)
   {
+    // reuse the last grid while the ops are the same so the
+    // server's response cache can send its encoded bytes
+    HOp[] ops = db.ops();
+    ListingGrid last = this.last;
+    if (last != null && Arrays.equals(last.items, ops)) return last.grid;
+
     HGridBuilder b = new HGridBuilder();
     b.addCol("name");
     b.addCol("summary");
-    HOp[] ops = db.ops();
     for (int i=0; i<ops.length; ++i)
     {
       HOp op = ops[i];
@@ -93,8 +98,12 @@ class OpsOp extends HOp
         HStr.make(op.summary()),
       });
     }
-    return b.toGrid();
+    HGrid grid = b.toGrid();
+    this.last = new ListingGrid(ops, grid);
+    return grid;
   }
+
+  private volatile ListingGrid last;
 }
 
 //////////////////////////////////////////////////////////////////////////
@@ -107,11 +116,15 @@ class FormatsOp extends HOp
   public String summary() { return "Grid data formats supported by this server"; }
   public HGrid onService(HServer db, HGrid req)
   {
+    // reuse the last grid until the registered formats change
+    HGridFormat[] formats = HGridFormat.list();
+    ListingGrid last = this.last;
+    if (last != null && Arrays.equals(last.items, formats)) return last.grid;
+
     HGridBuilder b = new HGridBuilder();
     b.addCol("mime");
     b.addCol("read");
     b.addCol("write");
-    HGridFormat[] formats = HGridFormat.list();
     for (int i=0; i<formats.length; ++i)
     {
       HGridFormat format = formats[i];
@@ -121,8 +134,25 @@ class FormatsOp extends HOp
         format.writer != null ? HMarker.VAL : null,
       });
     }
-    return b.toGrid();
+    HGrid grid = b.toGrid();
+    this.last = new ListingGrid(formats, grid);
+    return grid;
   }
+
+  private volatile ListingGrid last;
+}
+
+//////////////////////////////////////////////////////////////////////////
+// ListingGrid
+//////////////////////////////////////////////////////////////////////////
+
+/** Grid built by a listing op and the items it lists */
+final class ListingGrid
+{
+  ListingGrid(Object[] items, HGrid grid) { this.items = items; this.grid = grid; }
+
+  final Object[] items;
+  final HGrid grid;
 }
 
 //////////////////////////////////////////////////////////////////////////
@@ -133,6 +163,21 @@ class ReadOp extends HOp
 {
   public String name() { return "read"; }
   public String summary() { return "Read entity records in database"; }
+  public void onService(HServer db, HGrid req, HGridWriter out) throws Exception
+  {
+    // stream filter reads, ids are read as a grid
+    if (!req.isEmpty() && req.row(0).has("filter"))
+    {
+      HRow row = req.row(0);
+      String filter = row.getStr("filter");
+      int limit = row.has("limit") ? row.getInt("limit") : Integer.MAX_VALUE;
+      db.readAll(filter, limit, out);
+    }
+    else
+    {
+      out.writeGrid(onService(db, req));
+    }
+  }
   public HGrid onService(HServer db, HGrid req) throws Exception
   {
     // ensure we have one row
@@ -305,6 +350,15 @@ class HisReadOp extends HOp
 {
   public String name() { return "hisRead"; }
   public String summary() { return "Read time series from historian"; }
+  public void onService(HServer db, HGrid req, HGridWriter out) throws Exception
+  {
+    if (req.isEmpty()) throw new Exception("Request has no rows");
+    HRow row = req.row(0);
+    HRef id = valToId(db, row.get("id"));
+
+    String range = row.getStr("range");
+    db.hisRead(id, range, out);
+  }
   public HGrid onService(HServer db, HGrid req) throws Exception
   {
     if (req.isEmpty()) throw new Exception("Request has no rows");
@@ -10,6 +10,7 @@ package org.projecthaystack.server;
 import java.net.*;
 import java.util.*;
 import org.projecthaystack.*;
+import org.projecthaystack.io.*;
 
 /**
  * TestDatabase provides a simple implementation of
@@ -117,6 +118,10 @@ public class TestDatabase extends HServer
     };
   }
 
+  /** Opt in to caching, which serves the memoized ops and formats grids */
+  public HResponseCache responseCache() { return responseCache; }
+  private final HResponseCache responseCache = new HResponseCache(4 * 1024 * 1024, true);
+
   public HDict onAbout() { return about; }
   private final HDict about = new HDictBuilder()
     .add("serverName",  hostName())
@@ -141,6 +146,36 @@ public class TestDatabase extends HServer
 
   protected Iterator iterator() { return recs.values().iterator(); }
 
+  protected void onReadAll(String filter, int limit, HGridWriter out)
+  {
+    // the records are already in memory, so hold on to the matches and
+    // note if one after the window has a tag the window lacks
+    ArrayList matches = new ArrayList();
+    HashSet tags = new HashSet();
+    boolean fits = true;
+    for (Iterator it = readAllIterator(filter, limit); it.hasNext(); )
+    {
+      HDict rec = (HDict)it.next();
+      boolean inWindow = matches.size() < readAllWindow;
+      matches.add(rec);
+      for (Iterator t = rec.iterator(); fits && t.hasNext(); )
+      {
+        Object name = ((Map.Entry)t.next()).getKey();
+        if (inWindow) tags.add(name);
+        else if (!tags.contains(name)) fits = false;
+      }
+    }
+
+    // a response must be exactly one grid with the same columns as
+    // dictsToGrid, so only stream when the window finds every column
+    if (fits)
+      new HDictStreamWriter(out).setWindow(readAllWindow).write(matches.iterator());
+    else
+      out.writeGrid(HGridBuilder.dictsToGrid((HDict[])matches.toArray(new HDict[matches.size()])));
+  }
+
+  private static final int readAllWindow = 1000;
+
 //////////////////////////////////////////////////////////////////////////
 // Navigation
 //////////////////////////////////////////////////////////////////////////
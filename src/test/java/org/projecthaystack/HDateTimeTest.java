@@ -9,6 +9,9 @@ package org.projecthaystack;
 
 import static org.testng.Assert.*;
 
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -90,6 +93,29 @@ public class HDateTimeTest extends HValTest
     assertEquals(b.millis(), utcMillis);
     assertEquals(c.millis(), utcMillis);
     assertEquals(d.millis(), utcMillis);
+
+    // leap days, half hour offsets, and dates before the epoch
+    HTimeZone stJohns = HTimeZone.make("St_Johns");
+    long[] samples = { 951782400123L, 1330473600000L, 1467372600000L, -631152000000L, -1L };
+    for (int i=0; i<samples.length; ++i)
+    {
+      HDateTime x = HDateTime.make(samples[i], stJohns);
+      assertEquals(HDateTime.make(x.date, x.time, x.tz, x.tzOffset).millis(), samples[i]);
+      assertEquals(HDateTime.make(x.toZinc()).millis(), samples[i]);
+    }
+
+    // same as the calendar for every date HDate allows; Julian dates
+    // before the 1582 cutover, where they would differ, are rejected
+    GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone("Etc/UTC"));
+    for (int year=1900; year<=2100; year += 7)
+    {
+      cal.clear();
+      cal.set(year, 1, 28, 23, 59, 59);
+      HDateTime x = HDateTime.make(HDate.make(year, 2, 28), HTime.make(23, 59, 59), HTimeZone.UTC, 0);
+      assertEquals(x.millis(), cal.getTimeInMillis());
+    }
+    try { HDate.make(1500, 3, 1); fail(); }
+    catch (IllegalArgumentException e) { }
   }
 
   @Test(expectedExceptions = { ParseException.class, NumberFormatException.class},
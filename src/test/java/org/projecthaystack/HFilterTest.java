@@ -276,6 +276,15 @@ public class HFilterTest extends HaystackTest
     assertEquals(actual, expected);
   }
 
+  @Test
+  public void testTags()
+  {
+    assertEquals(HFilter.make("site").tags(), new String[] { "site" });
+    assertEquals(HFilter.make("not equip and siteRef->dis == \"x\" or area > 3").tags(),
+      new String[] { "equip", "siteRef", "area" });
+    assertEquals(HFilter.make("a or (b and a)").tags(), new String[] { "a", "b" });
+  }
+
   @Test
   public void testPath()
   {
@@ -12,7 +12,10 @@ import static org.testng.Assert.*;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.util.Locale;
+import java.util.Random;
 
 public class HNumTest extends HValTest
 {
@@ -57,6 +60,41 @@ public class HNumTest extends HValTest
     assertEquals(HNum.make(Double.NEGATIVE_INFINITY, "%").toZinc(), "-INF");
   }
 
+  @Test
+  public void testFormatMatchesDecimalFormat()
+  {
+    DecimalFormat f = new DecimalFormat("#0.####", new DecimalFormatSymbols(Locale.ENGLISH));
+    Random r = new Random(7);
+    for (int i=0; i<100000; ++i)
+    {
+      double d;
+      switch (i % 4)
+      {
+        case 0:  d = r.nextDouble() * Math.pow(10, r.nextInt(16)); break;
+        case 1:  d = r.nextInt(1000000) / 100000.0; break;
+        case 2:  d = 1 + r.nextInt(1 << 20) / 1048576.0; break;
+        default: d = Double.longBitsToDouble(r.nextLong()); break;
+      }
+      if (r.nextBoolean()) d = -d;
+      if (Double.isNaN(d) || Double.isInfinite(d) || Math.abs(d) <= 1.0) continue;
+      assertEquals(HNum.make(d).toZinc(), f.format(d), Double.toString(d));
+    }
+
+    // exact ties round half even
+    assertEquals(HNum.make(1.03125).toZinc(), "1.0312");
+    assertEquals(HNum.make(1.09375).toZinc(), "1.0938");
+    assertEquals(HNum.make(2.99995).toZinc(), f.format(2.99995));
+    assertEquals(HNum.make(9.99999).toZinc(), "10");
+    assertEquals(HNum.make(1e20).toZinc(), "100000000000000000000");
+
+    // sink encoding matches the string forms
+    StringBuilder s = new StringBuilder();
+    HNum.make(12.5, "kW").encodeZinc(s);
+    s.append('|');
+    HNum.make(12.5, "kW").encodeJson(s);
+    assertEquals(s.toString(), "12.5kW|n:12.5 kW");
+  }
+
   @Test
   public void verifyUnitNames()
   {
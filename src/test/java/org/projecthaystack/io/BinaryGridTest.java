@@ -0,0 +1,184 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class BinaryGridTest
+{
+  private static HGrid roundTrip(HGrid grid)
+  {
+    byte[] bytes = HBinaryWriter.gridToBytes(grid);
+    HGrid g = new HBinaryReader(bytes).readGrid();
+    assertEquals(g, grid);
+
+    // a tiny stream buffer still reads the same grid
+    assertEquals(new HBinaryReader(new ByteArrayInputStream(bytes)).readGrid(), grid);
+    return g;
+  }
+
+  @Test
+  public void testScalars()
+  {
+    HTimeZone ny = HTimeZone.make("New_York");
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("dis", "Binary").add("tag");
+    b.addCol("a").add("dis", "A");
+    b.addCol("b");
+    b.addRow(new HVal[] { null, HMarker.VAL });
+    b.addRow(new HVal[] { HBool.TRUE, HBool.FALSE });
+    b.addRow(new HVal[] { HNA.VAL, HRemove.VAL });
+    b.addRow(new HVal[] { HNum.make(0), HNum.make(-123456789012L, "kW") });
+    b.addRow(new HVal[] { HNum.make(72.3, "\u00b0F"), HNum.make(-0.0, "m") });
+    b.addRow(new HVal[] { HNum.make(Double.NaN), HNum.make(Double.NEGATIVE_INFINITY, "m") });
+    b.addRow(new HVal[] { HNum.make(9007199254740993.0), HNum.make(1e300) });
+    b.addRow(new HVal[] { HNum.make(0.1), HNum.make(-12.345678, "kW") });
+    b.addRow(new HVal[] { HNum.make(1.0 / 3), HNum.make(1e-9) });
+    b.addRow(new HVal[] { HStr.make(""), HStr.make("caf\u00e9 \ud83d\ude00 \n\"x\"") });
+    b.addRow(new HVal[] { HRef.make("abc"), HRef.make("abc", "A B C") });
+    b.addRow(new HVal[] { HUri.make("http://x/"), HBin.make("text/plain") });
+    b.addRow(new HVal[] { HDate.make(2015, 6, 9), HDate.make(1900, 1, 1) });
+    b.addRow(new HVal[] { HTime.make(0, 0), HTime.make(23, 59, 59, 999) });
+    b.addRow(new HVal[] { HDateTime.make(1307377618069L, ny), HDateTime.make(-86400001L, HTimeZone.UTC) });
+    b.addRow(new HVal[] { HDateTime.make(2015, 3, 8, 3, 0, 0, ny, -4*3600), HDateTime.make("1950-06-07T09:51:27-02:30 St_Johns") });
+    b.addRow(new HVal[] { HCoord.make(37.55, -77.45), HCoord.make(-90, 180) });
+    b.addRow(new HVal[] { HXStr.decode("Foo", "bar"), HSymbol.make("elec-meter") });
+    HGrid g = roundTrip(b.toGrid());
+    assertEquals(((HNum)g.row(4).get("b")).val, -0.0);
+    assertEquals(1 / ((HNum)g.row(4).get("b")).val, Double.NEGATIVE_INFINITY);
+    assertEquals(((HDateTime)g.row(14).get("a")).millis(), 1307377618069L);
+    assertEquals(((HDateTime)g.row(14).get("b")).millis(), -86400001L);
+  }
+
+  @Test
+  public void testNested()
+  {
+    HGridBuilder nb = new HGridBuilder();
+    nb.addCol("x");
+    nb.addRow(new HVal[] { HNum.make(1) });
+    nb.addRow(new HVal[] { HStr.make("dis") });
+
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("list");
+    b.addCol("dict");
+    b.addCol("grid");
+    b.addRow(new HVal[] {
+      HList.make(new HVal[] { HNum.make(1), HStr.make("dis"), HList.EMPTY }),
+      new HDictBuilder().add("dis", "x").add("site").add("n", HList.make(new HVal[] { HMarker.VAL })).toDict(),
+      nb.toGrid() });
+    b.addRow(new HVal[] { HList.EMPTY, HDict.EMPTY, null });
+
+    // the nested grid shares the string dictionary
+    HGrid g = roundTrip(b.toGrid());
+    assertEquals(((HGrid)g.row(0).get("grid")).row(1).getStr("x"), "dis");
+  }
+
+  @Test
+  public void testSelectNested()
+  {
+    HGridBuilder nb = new HGridBuilder();
+    nb.addCol("a");
+    nb.addCol("x");
+    nb.addRow(new HVal[] { HNum.make(2), HStr.make("y") });
+    nb.addRow(new HVal[] { HNum.make(3), HStr.make("z") });
+    HGrid nested = nb.toGrid();
+
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("a");
+    b.addCol("grid");
+    b.addRow(new HVal[] { HNum.make(1), nested });
+    b.addRow(new HVal[] { HNum.make(2), nested });
+    byte[] bytes = HBinaryWriter.gridToBytes(b.toGrid());
+
+    // selection applies to the top-level grid, nested grids are left whole
+    HGrid g = new HBinaryReader(bytes).setCols(new String[] { "grid" }).setFilter(HFilter.make("a == 1")).readGrid();
+    assertEquals(g.numCols(), 1);
+    assertEquals(g.numRows(), 1);
+    assertEquals(g.row(0).get("grid"), nested);
+  }
+
+  @Test
+  public void testStrings()
+  {
+    // long strings and more strings than fit a one byte code
+    StringBuilder big = new StringBuilder();
+    for (int i=0; i<20000; ++i) big.append((char)('a' + i % 26)).append(i % 7 == 0 ? "\u00e9" : "");
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("s");
+    b.addCol("ref");
+    b.addRow(new HVal[] { HStr.make(big.toString()), null });
+    for (int i=0; i<1000; ++i)
+      b.addRow(new HVal[] { HStr.make("s" + (i % 300)), HRef.make("r" + i) });
+    roundTrip(b.toGrid());
+  }
+
+  @Test
+  public void testStream()
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("ts");
+    b.addCol("val");
+    HTimeZone tz = HTimeZone.make("New_York");
+    for (int i=0; i<100; ++i)
+      b.addRow(new HVal[] { HDateTime.make(1307377618069L + i * 900000L, tz), HNum.make(i * 1.5, "kW") });
+    HGrid grid = b.toGrid();
+
+    // incremental writer output matches writeGrid
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HBinaryWriter w = new HBinaryWriter(out);
+    w.beginGrid(grid);
+    for (int i=0; i<grid.numRows(); ++i)
+      w.writeRow(new HVal[] { grid.row(i).get("ts"), grid.row(i).get("val") });
+    w.endGrid();
+    w.writeGrid(grid);
+    w.flush();
+    byte[] one = HBinaryWriter.gridToBytes(grid);
+    byte[] two = out.toByteArray();
+    assertEquals(two.length, one.length * 2);
+
+    HGrid[] grids = new HBinaryReader(two).readGrids();
+    assertEquals(grids.length, 2);
+    assertEquals(grids[0], grid);
+    assertEquals(grids[1], grid);
+
+    final int[] count = new int[1];
+    new HBinaryReader(one).readGrid(new HGridHandler()
+    {
+      public void onRow(HRow row) { assertEquals(row.getDouble("val"), count[0]++ * 1.5); }
+    });
+    assertEquals(count[0], 100);
+
+    // timestamps take far fewer bytes than their zinc text
+    assertTrue(one.length * 2 < HZincWriter.gridToString(grid).length());
+  }
+
+  @Test
+  public void testFormat()
+  {
+    HGridFormat f = HGridFormat.find(HBinaryWriter.MIME, true);
+    assertEquals(f.reader, HBinaryReader.class);
+    assertEquals(f.writer, HBinaryWriter.class);
+  }
+
+  @Test
+  public void testErrors()
+  {
+    byte[] bytes = HBinaryWriter.gridToBytes(HGridBuilder.dictToGrid(new HDictBuilder().add("a", 1).toDict()));
+    try { new HBinaryReader("ver:\"3.0\"".getBytes()).readGrid(); fail(); } catch (ParseException e) { }
+    byte[] cut = new byte[bytes.length - 1];
+    System.arraycopy(bytes, 0, cut, 0, cut.length);
+    try { new HBinaryReader(cut).readGrid(); fail(); } catch (ParseException e) { }
+    try { new HBinaryReader(new ByteArrayInputStream(cut)).readGrid(); fail(); } catch (ParseException e) { }
+  }
+}
@@ -0,0 +1,152 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class CsvReaderTest
+{
+  private static String toCsv(HGrid grid)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HCsvWriter w = new HCsvWriter(out);
+    w.writeGrid(grid);
+    w.flush();
+    try { return out.toString("UTF-8"); }
+    catch (Exception e) { throw new RuntimeException(e); }
+  }
+
+  @Test
+  public void testTypes()
+  {
+    HTimeZone ny = HTimeZone.make("New_York");
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("ts");
+    b.addCol("val");
+    b.addCol("on");
+    b.addCol("id");
+    b.addCol("site");
+    b.addCol("date");
+    b.addCol("dis");
+    b.addRow(new HVal[] { HDateTime.make(1420070400000L, ny), HNum.make(72.5, "\u00b0F"), HBool.TRUE,
+      HRef.make("a-1", "Alpha One"), HMarker.VAL, HDate.make(2015, 1, 1), HStr.make("a, \"b\"\nc") });
+    b.addRow(new HVal[] { HDateTime.make(1420071300000L, ny), HNum.make(-3), HBool.FALSE,
+      HRef.make("b"), null, HDate.make(2015, 1, 2), HStr.make("") });
+    b.addRow(new HVal[] { HDateTime.make(1420072200000L, HTimeZone.UTC), HNum.make(1e-7, "kW"), null,
+      null, HMarker.VAL, null, HStr.make(" pad ") });
+    b.addRow(new HVal[] { null, HNum.POS_INF, HBool.TRUE, HRef.make("c"), null, null, HStr.make("d") });
+    HGrid grid = b.toGrid();
+    assertEquals(new HCsvReader(toCsv(grid)).readGrid(), grid);
+  }
+
+  @Test
+  public void testParse()
+  {
+    String csv =
+      "\u00ef\u00bb\u00bfTime Stamp,Power (kW),Name,Name\r\n" +
+      "2015-06-08T15:47:41Z,1.5,x,\"\"\r\n" +
+      "\r\n" +
+      "2015-06-08T15:48:41.25-05:00,2E3 kW,  y  ,\r\n" +
+      "2015-06-08T15:49:41Z,3,\"z\"";
+    byte[] bytes;
+    try { bytes = csv.getBytes("ISO-8859-1"); }
+    catch (Exception e) { throw new RuntimeException(e); }
+    HGrid g = new HCsvReader(new ByteArrayInputStream(bytes)).readGrid();
+    assertEquals(g.numCols(), 4);
+    assertEquals(g.col(0).name(), "timeStamp");
+    assertEquals(g.col(0).dis(), "Time Stamp");
+    assertEquals(g.col(1).name(), "powerKW");
+    assertEquals(g.col(2).name(), "name");
+    assertEquals(g.col(3).name(), "name1");
+    assertEquals(g.numRows(), 3);
+    assertEquals(g.row(0).get("timeStamp"), HDateTime.make("2015-06-08T15:47:41Z UTC"));
+    assertEquals(g.row(1).get("timeStamp"), HDateTime.make("2015-06-08T15:48:41.250-05:00 GMT+5"));
+    assertEquals(g.row(0).get("powerKW"), HNum.make(1.5));
+    assertEquals(g.row(1).get("powerKW"), HNum.make(2000, "kW"));
+    assertEquals(g.row(1).get("name"), HStr.make("y"));
+    assertEquals(g.row(2).get("name"), HStr.make("z"));
+    assertEquals(g.row(0).get("name1"), HStr.make(""));
+    assertNull(g.row(1).get("name1", false));
+    assertNull(g.row(2).get("name1", false));
+
+    // tag names made from display names
+    assertEquals(HCsvReader.toTagName("dis"), "dis");
+    assertEquals(HCsvReader.toTagName("Zone Air Temp"), "zoneAirTemp");
+    assertEquals(HCsvReader.toTagName("1st floor"), "v1stFloor");
+    assertEquals(HCsvReader.toTagName("\u00b0"), "blank");
+  }
+
+  @Test
+  public void testInference()
+  {
+    // mixed cells in the sample window make a string column
+    HGrid g = new HCsvReader("a,b\n1,2\nx,3\n").readGrid();
+    assertEquals(g.row(0).get("a"), HStr.make("1"));
+    assertEquals(g.row(1).get("b"), HNum.make(3));
+
+    // cells after the window which do not parse are strings
+    HCsvReader r = new HCsvReader("a\n1\n2\nn/a\n4\n");
+    r.sampleRows = 2;
+    g = r.readGrid();
+    assertEquals(g.row(1).get("a"), HNum.make(2));
+    assertEquals(g.row(2).get("a"), HStr.make("n/a"));
+    assertEquals(g.row(3).get("a"), HNum.make(4));
+
+    // tabs and a header without rows
+    r = new HCsvReader("a\tb\n@x\ttrue\n");
+    r.delimiter = '\t';
+    g = r.readGrid();
+    assertEquals(g.row(0).get("a"), HRef.make("x"));
+    assertEquals(g.row(0).get("b"), HBool.TRUE);
+    assertEquals(new HCsvReader("a,b\n").readGrid().numCols(), 2);
+    assertEquals(new HCsvReader("").readGrid().numCols(), 0);
+  }
+
+  @Test
+  public void testStream()
+  {
+    HTimeZone tz = HTimeZone.make("Chicago");
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("ts");
+    b.addCol("val");
+    for (int i=0; i<20000; ++i)
+      b.addRow(new HVal[] { HDateTime.make(1420070400000L + i * 60000L, tz), HNum.make(i / 4.0, "kW") });
+    final HGrid grid = b.toGrid();
+    byte[] bytes;
+    try { bytes = toCsv(grid).getBytes("UTF-8"); }
+    catch (Exception e) { throw new RuntimeException(e); }
+
+    final int[] count = new int[1];
+    new HCsvReader(new ByteArrayInputStream(bytes)).readGrid(new HGridHandler()
+    {
+      public void onRow(HRow row)
+      {
+        HRow x = grid.row(count[0]++);
+        assertEquals(row.get("ts"), x.get("ts"));
+        assertEquals(row.get("val"), x.get("val"));
+      }
+    });
+    assertEquals(count[0], 20000);
+  }
+
+  @Test
+  public void testErrors()
+  {
+    HGridFormat f = HGridFormat.find("text/csv", true);
+    assertEquals(f.reader, HCsvReader.class);
+    try { new HCsvReader("a\n\"x").readGrid(); fail(); } catch (ParseException e) { }
+    try { new HCsvReader("a\n\"x\"y\n").readGrid(); fail(); } catch (ParseException e) { }
+    try { new HCsvReader("a\n1,2\n").readGrid(); fail(); } catch (ParseException e) { }
+  }
+}
@@ -0,0 +1,153 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import org.projecthaystack.*;
+import org.projecthaystack.server.TestDatabase;
+import org.testng.annotations.Test;
+
+public class DictStreamWriterTest
+{
+  static HDict dict(String tags)
+  {
+    HDictBuilder b = new HDictBuilder();
+    String[] names = HStr.split(tags, ',', true);
+    for (int i=0; i<names.length; ++i) b.add(names[i], HNum.make(i));
+    return b.toDict();
+  }
+
+  @Test
+  public void testSameAsDictsToGrid()
+  {
+    HDict[] dicts = { dict("a,b"), null, dict("c"), dict("b,d,a") };
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HZincWriter zinc = new HZincWriter(out);
+    HDictStreamWriter w = new HDictStreamWriter(zinc);
+    assertEquals(w.write(Arrays.asList(dicts).iterator()), 1);
+    zinc.flush();
+    assertEquals(new String(out.toByteArray()), HZincWriter.gridToString(HGridBuilder.dictsToGrid(dicts)));
+
+    // empty
+    out.reset();
+    zinc = new HZincWriter(out);
+    new HDictStreamWriter(zinc).write(new ArrayList().iterator());
+    zinc.flush();
+    assertEquals(new String(out.toByteArray()), HZincWriter.gridToString(HGridBuilder.dictsToGrid(new HDict[0])));
+  }
+
+  @Test
+  public void testSeparateGrids()
+  {
+    // HZincWriter only separates grids when asked to
+    HGrid grid = HGridBuilder.dictsToGrid(new HDict[] { dict("a") });
+    String zinc = HZincWriter.gridToString(grid);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HZincWriter w = new HZincWriter(out);
+    w.writeGrid(grid);
+    w.writeGrid(grid);
+    w.flush();
+    assertEquals(new String(out.toByteArray()), zinc + zinc);
+
+    out.reset();
+    w = new HZincWriter(out);
+    w.separateGrids = true;
+    w.writeGrid(grid);
+    w.writeGrid(grid);
+    w.flush();
+    assertEquals(new String(out.toByteArray()), zinc + "\n" + zinc);
+
+    // a single grid from the dict stream leaves the writer as it was
+    w = new HZincWriter(new ByteArrayOutputStream());
+    new HDictStreamWriter(w).write(Arrays.asList(new HDict[] { dict("a") }).iterator());
+    assertFalse(w.separateGrids);
+  }
+
+  @Test
+  public void testNewGrid()
+  {
+    HDict[] dicts = { dict("x"), dict("x,y"), dict("y"), dict("z"), dict("x"), dict("y,w") };
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HZincWriter zinc = new HZincWriter(out);
+    HDictStreamWriter w = new HDictStreamWriter(zinc).setWindow(2)
+      .setMeta(new HDictBuilder().add("partial").toDict());
+    assertEquals(w.write(Arrays.asList(dicts).iterator()), 3);
+    zinc.flush();
+    HGrid[] grids = new HZincReader(new ByteArrayInputStream(out.toByteArray())).readGrids();
+
+    assertEquals(grids.length, 3);
+    assertEquals(grids[0].numCols(), 2);
+    assertEquals(grids[0].numRows(), 3);
+    assertTrue(grids[0].meta().has("partial"));
+    assertEquals(grids[1].col(0).name(), "z");
+    assertEquals(grids[1].col(1).name(), "x");
+    assertEquals(grids[1].numRows(), 2);
+    assertEquals(grids[2].numRows(), 1);
+    assertEquals(grids[2].row(0).getInt("w"), 1);
+  }
+
+  @Test
+  public void testFallbackCols()
+  {
+    HDict[] dicts = { dict("x"), dict("x"), dict("x,y"), dict("q"), dict("z,y") };
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HZincWriter zinc = new HZincWriter(out);
+    HDictStreamWriter w = new HDictStreamWriter(zinc).setWindow(2)
+      .setFallbackCols(new String[] { "x", "y", "z" });
+    assertEquals(w.write(Arrays.asList(dicts).iterator()), 2);
+    zinc.flush();
+    HGrid[] grids = new HZincReader(new ByteArrayInputStream(out.toByteArray())).readGrids();
+    assertEquals(grids[0].numCols(), 1);
+    assertEquals(grids[0].numRows(), 2);
+    assertEquals(grids[1].numCols(), 3);
+    assertEquals(grids[1].numRows(), 3);
+    assertTrue(grids[1].row(1).missing("x"));
+    assertEquals(grids[1].row(2).getInt("y"), 1);
+
+    // window of zero starts with the fallback cols
+    out.reset();
+    zinc = new HZincWriter(out);
+    w = new HDictStreamWriter(zinc).setWindow(0).setFallbackCols(new String[] { "x", "y", "z" });
+    assertEquals(w.write(Arrays.asList(dicts).iterator()), 1);
+    zinc.flush();
+    HGrid grid = new HZincReader(new ByteArrayInputStream(out.toByteArray())).readGrid();
+    assertEquals(grid.numCols(), 3);
+    assertEquals(grid.numRows(), 5);
+
+    try { new HDictStreamWriter(zinc).setWindow(0).write(Arrays.asList(dicts).iterator()); fail(); }
+    catch (IllegalStateException e) { }
+  }
+
+  @Test
+  public void testReadAll() throws Exception
+  {
+    // streamed reads are one grid with the same columns as dictsToGrid
+    TestDatabase db = new TestDatabase();
+    String[] filters = { "equip", "site", "id", "point and his", "notATag" };
+    for (int i=0; i<filters.length; ++i)
+    {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      HZincWriter zinc = new HZincWriter(out);
+      db.readAll(filters[i], 10000, zinc);
+      zinc.flush();
+      String streamed = new String(out.toByteArray(), "UTF-8");
+      assertEquals(streamed, HZincWriter.gridToString(db.readAll(filters[i], 10000)));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HZincWriter zinc = new HZincWriter(out);
+    db.readAll("equip", 5, zinc);
+    zinc.flush();
+    HGrid streamed = new HZincReader(new ByteArrayInputStream(out.toByteArray())).readGrid();
+    assertEquals(streamed, db.readAll("equip", 5));
+    assertEquals(streamed.numRows(), 5);
+  }
+}
@@ -0,0 +1,110 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.testng.annotations.Test;
+
+public class GridFormatTest
+{
+  /** Format discovered through META-INF/services */
+  public static class TestFormat extends HGridFormat
+  {
+    public TestFormat() { super("application/x-test-grid", null, HZincWriter.class, STREAMING); }
+
+    public HGridWriter makeWriter(OutputStream out) { return new HCsvWriter(out); }
+  }
+
+  @Test
+  public void testBuiltIn()
+  {
+    HGridFormat zinc = HGridFormat.find("text/zinc; charset=utf-8", true);
+    assertTrue(zinc.isStreaming());
+    assertTrue(zinc.isNested());
+    assertFalse(zinc.isBinary());
+    assertTrue(zinc.makeReader(new ByteArrayInputStream(new byte[0])) instanceof HZincReader);
+    assertTrue(zinc.makeWriter(new ByteArrayOutputStream()) instanceof HZincWriter);
+
+    HGridFormat csv = HGridFormat.find("text/csv", true);
+    assertFalse(csv.isNested());
+    assertTrue(csv.makeReader(new ByteArrayInputStream(new byte[0])) instanceof HCsvReader);
+
+    HGridFormat bin = HGridFormat.find(HBinaryWriter.MIME, true);
+    assertTrue(bin.isBinary());
+    assertTrue(bin.makeWriter(new ByteArrayOutputStream()) instanceof HBinaryWriter);
+
+    HGridFormat trio = HGridFormat.find("text/trio", true);
+    assertFalse(trio.isStreaming());
+    assertTrue(trio.isNested());
+    assertTrue(trio.makeReader(new ByteArrayInputStream(new byte[0])) instanceof HTrioReader);
+
+    // every built-in format makes its own reader and writer classes
+    HGridFormat[] list = HGridFormat.list();
+    for (int i=0; i<list.length; ++i)
+    {
+      if (list[i].reader == null || list[i].writer == null) continue;
+      assertSame(list[i].makeReader(new ByteArrayInputStream(new byte[0])).getClass(), list[i].reader);
+      assertSame(list[i].makeWriter(new ByteArrayOutputStream()).getClass(), list[i].writer);
+    }
+
+    assertNull(HGridFormat.find("text/unknown", false));
+    try { HGridFormat.find("text/unknown", true); fail(); } catch (RuntimeException e) { }
+  }
+
+  @Test
+  public void testServiceLoader()
+  {
+    HGridFormat f = HGridFormat.find("application/x-test-grid", true);
+    assertTrue(f instanceof TestFormat);
+    assertTrue(f.makeWriter(new ByteArrayOutputStream()) instanceof HCsvWriter);
+    try { f.makeReader(new ByteArrayInputStream(new byte[0])); fail(); } catch (RuntimeException e) { }
+  }
+
+  @Test
+  public void testRegister()
+  {
+    // list keeps registration order
+    HGridFormat[] list = HGridFormat.list();
+    assertEquals(list[0].mime, "text/plain");
+    assertEquals(list[1].mime, "text/zinc");
+
+    // reflective formats construct through the stream constructors
+    HGridFormat f = new HGridFormat("application/x-test-reflect", HJsonReader.class, HJsonWriter.class);
+    assertEquals(f.flags, 0);
+    HGridFormat.register(f);
+    try
+    {
+      assertSame(HGridFormat.find("application/x-test-reflect", true), f);
+      assertEquals(HGridFormat.list().length, list.length + 1);
+      assertTrue(f.makeReader(new ByteArrayInputStream("{}".getBytes())) instanceof HJsonReader);
+      assertTrue(f.makeWriter(new ByteArrayOutputStream()) instanceof HJsonWriter);
+
+      // registering the same mime again replaces it in place
+      HGridFormat g = new HGridFormat("application/x-test-reflect", null, HCsvWriter.class, HGridFormat.STREAMING);
+      HGridFormat.register(g);
+      assertSame(HGridFormat.find("application/x-test-reflect", true), g);
+      assertEquals(HGridFormat.list().length, list.length + 1);
+      assertTrue(g.isStreaming());
+    }
+    finally
+    {
+      HGridFormat.register(new HGridFormat("application/x-test-reflect", null, null));
+    }
+
+    // a class without the stream constructor fails when used
+    HGridFormat bad = new HGridFormat("application/x-test-bad", InputStream.class, OutputStream.class);
+    try { bad.makeReader(new ByteArrayInputStream(new byte[0])); fail(); } catch (RuntimeException e) { }
+    try { bad.makeWriter(new ByteArrayOutputStream()); fail(); } catch (RuntimeException e) { }
+  }
+}
@@ -0,0 +1,210 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class GridSelectionTest
+{
+  private static final String[] COLS = { "dis", "id", "missing" };
+  private static final HFilter FILTER = HFilter.make("equip and area >= 1000");
+
+  @Test
+  public void testZinc()
+  {
+    HGrid grid = makeGrid(50);
+    String zinc = HZincWriter.gridToString(grid);
+    HGrid expected = expected(grid, COLS, FILTER);
+    assertEquals(expected.numCols(), 2);
+    assertEquals(expected.col(0).name(), "id");
+    assertEquals(expected.col(1).meta().getStr("doc"), "display");
+    assertTrue(expected.numRows() > 0 && expected.numRows() < 50);
+
+    // cells of unselected cols are skipped, including lists and dicts
+    HGrid read = new HZincReader(zinc).setCols(COLS).setFilter(FILTER).readGrid();
+    assertEquals(read, expected);
+    assertEquals(read.meta(), grid.meta());
+
+    // cols or filter alone
+    assertEquals(new HZincReader(zinc).setCols(new String[] { "area" }).readGrid(),
+      expected(grid, new String[] { "area" }, null));
+    assertEquals(new HZincReader(zinc).setFilter(FILTER).readGrid(), expected(grid, null, FILTER));
+    assertEquals(new HZincReader(zinc).setCols(new String[0]).readGrid().numCols(), 0);
+
+    // handler only sees selected rows
+    final ArrayList rows = new ArrayList();
+    final HGrid[] header = new HGrid[1];
+    new HZincReader(zinc).setCols(COLS).setFilter(FILTER).readGrid(new HGridHandler()
+    {
+      public void onBegin(HGrid h) { header[0] = h; }
+      public void onRow(HRow row) { rows.add(row.id()); }
+    });
+    assertEquals(header[0].numCols(), 2);
+    assertEquals(rows.size(), expected.numRows());
+    assertEquals(rows.get(0), expected.row(0).id());
+
+    // every grid of a list
+    HGrid[] grids = new HZincReader(zinc + "\n" + zinc).setFilter(FILTER).readGrids();
+    assertEquals(grids.length, 2);
+    assertEquals(grids[1], expected(grid, null, FILTER));
+  }
+
+  @Test
+  public void testNested()
+  {
+    String zinc =
+      "ver:\"3.0\"\n" +
+      "a,b,c\n" +
+      "1,<<\nver:\"3.0\"\nx,y\n[1,{z:2}],\"q\"\n>>,3\n" +
+      "4,[<<\nver:\"3.0\"\nx\n5\n>>],6\n";
+
+    // nested grids are skipped whole, and left whole when selected
+    HGrid grid = new HZincReader(zinc).setCols(new String[] { "a", "c" }).readGrid();
+    assertEquals(grid.numCols(), 2);
+    assertEquals(grid.numRows(), 2);
+    assertEquals(grid.row(0).getInt("c"), 3);
+    assertEquals(grid.row(1).getInt("c"), 6);
+
+    grid = new HZincReader(zinc).setCols(new String[] { "b" }).setFilter(HFilter.make("a == 1")).readGrid();
+    assertEquals(grid.numRows(), 1);
+    assertEquals(((HGrid)grid.row(0).get("b")).row(0).getStr("y"), "q");
+
+    // unbalanced brackets in skipped cells
+    zinc = "ver:\"3.0\"\na,b\n1,[2,3\n";
+    try { new HZincReader(zinc).setCols(new String[] { "a" }).readGrid(); fail(); }
+    catch (ParseException e) { }
+    zinc = "ver:\"3.0\"\na,b\n1,2]\n";
+    try { new HZincReader(zinc).setCols(new String[] { "a" }).readGrid(); fail(); }
+    catch (ParseException e) { }
+  }
+
+  @Test
+  public void testFormats()
+  {
+    HGrid grid = makeGrid(50);
+    HGridFormat[] formats = HGridFormat.list();
+    for (int i=0; i<formats.length; ++i)
+    {
+      HGridFormat format = formats[i];
+      if (format.reader == null || format.mime.equals(HHisGridWriter.MIME)) continue;
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      HGridWriter w = format.makeWriter(out);
+      w.writeGrid(grid);
+      w.flush();
+      byte[] bytes = out.toByteArray();
+
+      HGrid full = format.makeReader(new ByteArrayInputStream(bytes)).readGrid();
+      HGrid read = format.makeReader(new ByteArrayInputStream(bytes)).setCols(COLS).setFilter(FILTER).readGrid();
+      assertEquals(read, expected(full, COLS, FILTER), format.mime);
+
+      final int[] n = new int[1];
+      format.makeReader(new ByteArrayInputStream(bytes)).setFilter(FILTER).readGrid(new HGridHandler()
+      {
+        public void onRow(HRow row) { ++n[0]; }
+      });
+      assertEquals(n[0], expected(full, null, FILTER).numRows(), format.mime);
+    }
+  }
+
+  @Test
+  public void testZincReaders() throws Exception
+  {
+    HGrid grid = makeGrid(5000);
+    HGrid expected = expected(grid, COLS, FILTER);
+    byte[] bytes = HZincWriter.gridToString(grid).getBytes("UTF-8");
+
+    assertEquals(new HZincLazyReader(bytes).setCols(COLS).setFilter(FILTER).readGrid(), expected);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    File f = File.createTempFile("select", ".zinc");
+    try
+    {
+      assertEquals(new HZincParallelReader(bytes, pool).setCols(COLS).setFilter(FILTER).readGrid(), expected);
+
+      OutputStream out = new FileOutputStream(f);
+      out.write(bytes);
+      out.close();
+      HZincFileReader r = new HZincFileReader(f);
+      try
+      {
+        r.setCols(COLS).setFilter(FILTER);
+        assertEquals(r.readGrid(), expected);
+        final int[] n = new int[1];
+        r.readGridParallel(new HGridHandler()
+        {
+          public synchronized void onRow(HRow row) { ++n[0]; }
+        }, pool);
+        assertEquals(n[0], expected.numRows());
+      }
+      finally
+      {
+        r.close();
+      }
+    }
+    finally
+    {
+      pool.shutdown();
+      f.delete();
+    }
+  }
+
+  /** Select the cols and rows of a grid which has been read in full */
+  private static HGrid expected(HGrid grid, String[] cols, HFilter filter)
+  {
+    List names = cols == null ? null : Arrays.asList(cols);
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(grid.meta());
+    ArrayList selected = new ArrayList();
+    for (int i=0; i<grid.numCols(); ++i)
+    {
+      HCol col = grid.col(i);
+      if (names != null && !names.contains(col.name())) continue;
+      b.addCol(col.name()).add(col.meta());
+      selected.add(col);
+    }
+    for (int r=0; r<grid.numRows(); ++r)
+    {
+      HRow row = grid.row(r);
+      if (filter != null && !filter.include(row, null)) continue;
+      HVal[] cells = new HVal[selected.size()];
+      for (int i=0; i<cells.length; ++i) cells[i] = row.get((HCol)selected.get(i), false);
+      b.addRow(cells);
+    }
+    return b.toGrid();
+  }
+
+  private static HGrid makeGrid(int numRows)
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("dis", "select");
+    b.addCol("id");
+    b.addCol("dis").add("doc", "display");
+    b.addCol("equip");
+    b.addCol("area").add("unit", "ft\u00b2");
+    b.addCol("tags");
+    b.addCol("attrs");
+    for (int i=0; i<numRows; ++i)
+    {
+      b.addRow(new HVal[] {
+        HRef.make("e" + i, "Equip " + i),
+        HStr.make("Equip, \"" + i + "\"\n"),
+        i % 3 == 0 ? null : HMarker.VAL,
+        HNum.make(i * 100, "ft\u00b2"),
+        HList.make(new HVal[] { HStr.make("a,b"), HNum.make(i) }),
+        i % 5 == 0 ? null : new HDictBuilder().add("k", "[v}").add("n", i).toDict(),
+      });
+    }
+    return b.toGrid();
+  }
+}
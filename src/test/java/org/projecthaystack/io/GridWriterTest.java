@@ -0,0 +1,123 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class GridWriterTest
+{
+  private static HGrid grid()
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("dis", "Test").add("tag");
+    b.addCol("id");
+    b.addCol("name").add("dis", "Name");
+    b.addCol("val");
+    b.addRow(new HVal[] { HRef.make("a"), HStr.make("Alpha"), HNum.make(1, "kW") });
+    b.addRow(new HVal[] { HRef.make("b"), null, HNum.make(2.5) });
+    b.addRow(new HVal[] { null, HStr.make("c,\"d\""), null });
+    return b.toGrid();
+  }
+
+  private static String whole(HGrid grid, String format)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HGridWriter w = HGridFormat.find(format, true).makeWriter(out);
+    w.writeGrid(grid);
+    w.flush();
+    return new String(out.toByteArray());
+  }
+
+  private static void streamed(HGridWriter w, HGrid grid)
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add(grid.meta());
+    for (int i=0; i<grid.numCols(); ++i)
+      b.addCol(grid.col(i).name()).add(grid.col(i).meta());
+    w.beginGrid(b.toGrid());
+
+    // reuse the same cells array for every row
+    HVal[] cells = new HVal[grid.numCols()];
+    for (int r=0; r<grid.numRows(); ++r)
+    {
+      for (int c=0; c<cells.length; ++c)
+        cells[c] = grid.row(r).get(grid.col(c), false);
+      w.writeRow(cells);
+    }
+    w.endGrid();
+    w.flush();
+  }
+
+  private static String streamed(HGrid grid, String format)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    streamed(HGridFormat.find(format, true).makeWriter(out), grid);
+    return new String(out.toByteArray());
+  }
+
+  @Test
+  public void testStreamMatchesWriteGrid()
+  {
+    HGrid g = grid();
+    String[] formats = { "text/zinc", "application/json", "text/csv" };
+    for (int i=0; i<formats.length; ++i)
+      assertEquals(streamed(g, formats[i]), whole(g, formats[i]), formats[i]);
+
+    // empty grid
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("a");
+    HGrid empty = b.toGrid();
+    for (int i=0; i<formats.length; ++i)
+      assertEquals(streamed(empty, formats[i]), whole(empty, formats[i]), formats[i]);
+
+    // streamed zinc reads back as the same grid
+    assertEquals(new HZincReader(streamed(g, "text/zinc")).readGrid(), g);
+  }
+
+  @Test
+  public void testDefaultBuffers()
+  {
+    final HGrid[] written = new HGrid[1];
+    HGridWriter w = new HGridWriter()
+    {
+      public void writeGrid(HGrid grid) { written[0] = grid; }
+      public void flush() {}
+      public void close() {}
+    };
+    HGrid g = grid();
+    streamed(w, g);
+    assertEquals(written[0], g);
+  }
+
+  @Test
+  public void testState()
+  {
+    HZincWriter w = new HZincWriter(new ByteArrayOutputStream());
+    try { w.writeRow(new HVal[0]); fail(); } catch (IllegalStateException e) { }
+    try { w.endGrid(); fail(); } catch (IllegalStateException e) { }
+    w.beginGrid(grid());
+    try { w.beginGrid(grid()); fail(); } catch (IllegalStateException e) { }
+    try { w.writeRow(new HVal[1]); fail(); } catch (IllegalArgumentException e) { }
+    w.endGrid();
+
+    HGridWriter d = new HGridWriter()
+    {
+      public void writeGrid(HGrid grid) {}
+      public void flush() {}
+      public void close() {}
+    };
+    try { d.endGrid(); fail(); } catch (IllegalStateException e) { }
+    d.beginGrid(grid());
+    try { d.beginGrid(grid()); fail(); } catch (IllegalStateException e) { }
+  }
+}
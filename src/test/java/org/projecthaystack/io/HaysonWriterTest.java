@@ -0,0 +1,89 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class HaysonWriterTest
+{
+  private static void verifyVal(HVal val, String expected)
+  {
+    assertEquals(HHaysonWriter.valToString(val), expected);
+  }
+
+  @Test
+  public void testScalars()
+  {
+    verifyVal(null, "null");
+    verifyVal(HBool.TRUE, "true");
+    verifyVal(HMarker.VAL, "{\"_kind\":\"marker\"}");
+    verifyVal(HNA.VAL, "{\"_kind\":\"na\"}");
+    verifyVal(HRemove.VAL, "{\"_kind\":\"remove\"}");
+    verifyVal(HStr.make("a:b \"q\" \\ \n\t\u0001 \u00b0 \ud83d\ude00"), "\"a:b \\\"q\\\" \\\\ \\n\\t\\u0001 \u00b0 \ud83d\ude00\"");
+    verifyVal(HNum.make(12), "12");
+    verifyVal(HNum.make(-0.25), "-0.25");
+    verifyVal(HNum.make(72.3, "\u00b0F"), "{\"_kind\":\"number\",\"val\":72.3,\"unit\":\"\u00b0F\"}");
+    verifyVal(HNum.make(1.23456789), "1.23456789");
+    verifyVal(HNum.make(1.23456789, "kW"), "{\"_kind\":\"number\",\"val\":1.23456789,\"unit\":\"kW\"}");
+    verifyVal(HNum.make(123456789.125), "1.23456789125E8");
+    verifyVal(HNum.make(1e300), "1.0E300");
+    verifyVal(HNum.make(Double.POSITIVE_INFINITY), "{\"_kind\":\"number\",\"val\":\"INF\"}");
+    verifyVal(HNum.make(Double.NaN, "kW"), "{\"_kind\":\"number\",\"val\":\"NaN\",\"unit\":\"kW\"}");
+    verifyVal(HRef.make("abc"), "{\"_kind\":\"ref\",\"val\":\"abc\"}");
+    verifyVal(HRef.make("abc", "A \"B\""), "{\"_kind\":\"ref\",\"val\":\"abc\",\"dis\":\"A \\\"B\\\"\"}");
+    verifyVal(HDate.make(2015, 6, 9), "{\"_kind\":\"date\",\"val\":\"2015-06-09\"}");
+    verifyVal(HTime.make(1, 2, 3), "{\"_kind\":\"time\",\"val\":\"01:02:03\"}");
+    verifyVal(HDateTime.make(1307377618069L, HTimeZone.make("New_York")),
+      "{\"_kind\":\"dateTime\",\"val\":\"2011-06-06T12:26:58.069-04:00\",\"tz\":\"New_York\"}");
+    verifyVal(HDateTime.make(1307377618069L, HTimeZone.UTC),
+      "{\"_kind\":\"dateTime\",\"val\":\"2011-06-06T16:26:58.069Z\",\"tz\":\"UTC\"}");
+    verifyVal(HUri.make("foo.txt"), "{\"_kind\":\"uri\",\"val\":\"foo.txt\"}");
+    verifyVal(HCoord.make(37.55, -77.45), "{\"_kind\":\"coord\",\"lat\":37.55,\"lng\":-77.45}");
+    verifyVal(HXStr.decode("Foo", "bar"), "{\"_kind\":\"xstr\",\"type\":\"Foo\",\"val\":\"bar\"}");
+    verifyVal(HBin.make("text/plain"), "{\"_kind\":\"xstr\",\"type\":\"Bin\",\"val\":\"text/plain\"}");
+    verifyVal(HSymbol.make("elec-meter"), "{\"_kind\":\"symbol\",\"val\":\"elec-meter\"}");
+  }
+
+  @Test
+  public void testCollections()
+  {
+    verifyVal(HList.make(new HVal[] { HNum.make(2), HStr.make("x"), null }), "[2,\"x\",null]");
+    verifyVal(new HDictBuilder().add("site").toDict(), "{\"site\":{\"_kind\":\"marker\"}}");
+
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("dis", "Test");
+    b.addCol("a").add("dis", "A");
+    b.addCol("b");
+    b.addRow(new HVal[] { HNum.make(2), null });
+    b.addRow(new HVal[] { null, HStr.make("x") });
+    HGrid grid = b.toGrid();
+    String expected =
+      "{\"_kind\":\"grid\",\"meta\":{\"ver\":\"3.0\",\"dis\":\"Test\"},\"cols\":[\n" +
+      "{\"name\":\"a\",\"meta\":{\"dis\":\"A\"}},\n" +
+      "{\"name\":\"b\"}\n" +
+      "],\"rows\":[\n" +
+      "{\"a\":2},\n" +
+      "{\"b\":\"x\"}\n" +
+      "]}\n";
+    assertEquals(HHaysonWriter.gridToString(grid), expected);
+
+    // streamed rows produce the same output
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HHaysonWriter w = new HHaysonWriter(out);
+    w.beginGrid(grid);
+    w.writeRow(new HVal[] { HNum.make(2), null });
+    w.writeRow(new HVal[] { null, HStr.make("x") });
+    w.endGrid();
+    assertEquals(new String(out.toByteArray()), expected);
+  }
+}
@@ -0,0 +1,79 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.util.Map;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class HaystackInternerTest
+{
+  private static final String zinc =
+    "ver:\"3.0\"\n" +
+    "id,kind,siteRef,equipRef,unit,tags\n" +
+    "@p1,\"Number\",@site \"Site\",@equip,5kW,{point}\n" +
+    "@p2,\"Number\",@site \"Site\",@equip,6kW,{point}\n" +
+    "@p3,\"Bool\",@site \"Other\",@equip,7kW,{point}\n";
+
+  @Test
+  public void testShared()
+  {
+    HGrid g = new HZincReader(zinc).setInterner(new HaystackInterner()).readGrid();
+    HRow a = g.row(0);
+    HRow b = g.row(1);
+    HRow c = g.row(2);
+    assertSame(a.get("kind"), b.get("kind"));
+    assertSame(a.get("siteRef"), b.get("siteRef"));
+    assertSame(a.get("equipRef"), c.get("equipRef"));
+    assertSame(((HNum)a.get("unit")).unit, ((HNum)c.get("unit")).unit);
+    assertSame(((Map.Entry)((HDict)a.get("tags")).iterator().next()).getKey(),
+               ((Map.Entry)((HDict)b.get("tags")).iterator().next()).getKey());
+
+    // values which differ are kept apart
+    assertEquals(c.get("kind"), HStr.make("Bool"));
+    assertEquals(((HRef)c.get("siteRef")).dis, "Other");
+    assertEquals(g, new HZincReader(zinc).readGrid());
+  }
+
+  @Test
+  public void testSharedAcrossReaders()
+  {
+    HaystackInterner interner = new HaystackInterner(256);
+    HGrid g1 = new HZincReader(zinc).setInterner(interner).readGrid();
+    HGrid g2 = new HZincReader(zinc).setInterner(interner).readGrid();
+    assertSame(g1.row(2).get("equipRef"), g2.row(0).get("equipRef"));
+    assertSame(g1.row(0).get("kind"), g2.row(1).get("kind"));
+
+    HGrid g3 = new HZincReader(zinc).readGrid();
+    assertNotSame(g3.row(0).get("kind"), g3.row(1).get("kind"));
+  }
+
+  @Test
+  public void testEviction()
+  {
+    // one slot per table still decodes every value correctly
+    HaystackInterner interner = new HaystackInterner(1);
+    StringBuilder s = new StringBuilder("ver:\"3.0\"\na,b\n");
+    for (int i=0; i<100; ++i) s.append('"').append("v").append(i % 3).append("\",@r").append(i % 5).append('\n');
+    HGrid g = new HZincReader(s.toString()).setInterner(interner).readGrid();
+    for (int i=0; i<100; ++i)
+    {
+      assertEquals(g.row(i).getStr("a"), "v" + (i % 3));
+      assertEquals(g.row(i).getRef("b"), HRef.make("r" + (i % 5)));
+    }
+
+    // long strings are not retained
+    String big = "0123456789012345678901234567890123456789012345678901234567890123456789";
+    g = new HZincReader("ver:\"3.0\"\na\n\"" + big + "\"\n\"" + big + "\"\n").setInterner(interner).readGrid();
+    assertEquals(g.row(0).getStr("a"), big);
+    assertNotSame(g.row(0).get("a"), g.row(1).get("a"));
+  }
+}
@@ -0,0 +1,172 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class HisCompressionTest
+{
+  private static HGrid roundTrip(HGrid grid)
+  {
+    byte[] bytes = HHisGridWriter.gridToBytes(grid);
+    HGrid g = new HHisGridReader(bytes).readGrid();
+    assertEquals(g, grid);
+    assertEquals(new HHisGridReader(new ByteArrayInputStream(bytes)).readGrid(), grid);
+    return g;
+  }
+
+  private static HGrid his(HTimeZone tz, long start, long step, int n, String unit)
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("id", HRef.make("p")).add("hisStart", HDateTime.make(start, tz));
+    b.addCol("ts");
+    b.addCol("val");
+    for (int i=0; i<n; ++i)
+    {
+      // slowly changing sensor readings with one decimal place
+      double v = Math.round(Math.sin(i / 5000.0) * 100) / 10.0 + 70;
+      b.addRow(new HVal[] { HDateTime.make(start + i * step, tz), HNum.make(v, unit) });
+    }
+    return b.toGrid();
+  }
+
+  @Test
+  public void testCodec()
+  {
+    long[] ts = { 0, 1000, 2000, 2001, 5000, -3000000000L, 9000000000000L, 9000000000001L };
+    double[] vals = { 1, 1, 2.5, Double.NaN, -0.0, Double.MAX_VALUE, Double.MIN_VALUE, 1 };
+    byte[] bytes = GorillaCodec.encode(ts, vals, ts.length);
+    long[] ts2 = new long[ts.length + 1];
+    double[] vals2 = new double[ts.length + 1];
+    GorillaCodec.decode(bytes, ts.length, ts2, vals2, 1);
+    for (int i=0; i<ts.length; ++i)
+    {
+      assertEquals(ts2[i+1], ts[i]);
+      assertEquals(Double.doubleToRawLongBits(vals2[i+1]), Double.doubleToRawLongBits(vals[i]));
+    }
+    try { GorillaCodec.decode(new byte[10], 2, ts2, vals2, 0); fail(); } catch (ParseException e) { }
+  }
+
+  @Test
+  public void testRoundTrip()
+  {
+    HTimeZone ny = HTimeZone.make("New_York");
+    roundTrip(his(ny, 1420070400000L, 900000L, 10000, "kW"));
+    roundTrip(his(HTimeZone.UTC, 1420070400000L, 1000L, 3, null));
+    roundTrip(his(ny, 1420070400000L, 900000L, 0, "kW"));
+
+    // samples with exactly the same value bits
+    HGrid grid = his(ny, 1420070400000L, 900000L, 5000, "\u00b0F");
+    HHisData data = new HHisGridReader(HHisGridWriter.gridToBytes(grid)).readHis();
+    assertEquals(data.size, 5000);
+    assertEquals(data.tz, ny);
+    assertEquals(data.unit, "\u00b0F");
+    assertEquals(data.meta, grid.meta());
+    for (int i=0; i<data.size; ++i)
+    {
+      assertEquals(data.ts[i], ((HDateTime)grid.row(i).get("ts")).millis());
+      assertEquals(data.vals[i], grid.row(i).getDouble("val"));
+    }
+    assertEquals(data.toGrid(), grid);
+    assertEquals(HHisData.make(grid).toGrid(), grid);
+  }
+
+  @Test
+  public void testSize()
+  {
+    // a year of one minute samples
+    HGrid grid = his(HTimeZone.make("New_York"), 1420070400000L, 60000L, 525600, "kW");
+    byte[] bytes = HHisGridWriter.gridToBytes(grid);
+    assertTrue(bytes.length < 256 * 1024, "" + bytes.length);
+    assertTrue(bytes.length * 10 < HBinaryWriter.gridToBytes(grid).length);
+    assertEquals(new HHisGridReader(bytes).readHis().size, 525600);
+  }
+
+  @Test
+  public void testFallback()
+  {
+    HTimeZone ny = HTimeZone.make("New_York");
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("ts");
+    b.addCol("val");
+    b.addRow(new HVal[] { HDateTime.make(1420070400000L, ny), HNum.make(1, "kW") });
+    b.addRow(new HVal[] { HDateTime.make(1420071300000L, ny), HBool.TRUE });
+    b.addRow(new HVal[] { HDateTime.make(1420072200000L, ny), null });
+    b.addRow(new HVal[] { HDateTime.make(1420073100000L, ny), HNum.make(2, "kW") });
+    b.addRow(new HVal[] { HDateTime.make(1420074000000L, ny), HNum.make(3, "kWh") });
+    b.addRow(new HVal[] { HDateTime.make(1420074900000L, HTimeZone.UTC), HNum.make(4) });
+    // offset which does not match the timezone rules
+    b.addRow(new HVal[] { HDateTime.make(2015, 1, 1, 0, 0, 0, ny, 0), HNum.make(5, "kW") });
+    HGrid grid = roundTrip(b.toGrid());
+    try { new HHisGridReader(HHisGridWriter.gridToBytes(grid)).readHis(); fail(); } catch (ParseException e) { }
+
+    // any other grid still round trips
+    b = new HGridBuilder();
+    b.meta().add("dis", "x");
+    b.addCol("id");
+    b.addCol("dis").add("dis", "Dis");
+    b.addRow(new HVal[] { HRef.make("a"), HStr.make("A") });
+    roundTrip(b.toGrid());
+    roundTrip(HGridBuilder.errToGrid(new RuntimeException("bad")));
+
+    // an error grid is visible from the header
+    HHisGridReader r = new HHisGridReader(HHisGridWriter.gridToBytes(HGridBuilder.errToGrid(new RuntimeException("bad"))));
+    assertTrue(r.readHeader().isErr());
+    try { r.readHis(); fail(); } catch (ParseException e) { }
+  }
+
+  @Test
+  public void testStream()
+  {
+    HGrid grid = his(HTimeZone.make("London"), 1420070400000L, 300000L, 10000, "kW");
+
+    // incremental writer output matches writeGrid
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HHisGridWriter w = new HHisGridWriter(out);
+    w.beginGrid(grid);
+    HVal[] cells = new HVal[2];
+    for (int i=0; i<grid.numRows(); ++i)
+    {
+      cells[0] = grid.row(i).get("ts");
+      cells[1] = grid.row(i).get("val");
+      w.writeRow(cells);
+    }
+    w.endGrid();
+    w.flush();
+    byte[] bytes = HHisGridWriter.gridToBytes(grid);
+    assertEquals(out.toByteArray(), bytes);
+
+    final HGrid expected = grid;
+    final int[] count = new int[1];
+    new HHisGridReader(bytes).readGrid(new HGridHandler()
+    {
+      public void onRow(HRow row)
+      {
+        HRow x = expected.row(count[0]++);
+        assertEquals(row.get("ts"), x.get("ts"));
+        assertEquals(row.get("val"), x.get("val"));
+      }
+    });
+    assertEquals(count[0], 10000);
+  }
+
+  @Test
+  public void testFormat()
+  {
+    HGridFormat f = HGridFormat.find(HHisGridWriter.MIME, true);
+    assertEquals(f.reader, HHisGridReader.class);
+    assertEquals(f.writer, HHisGridWriter.class);
+    try { new HHisGridReader(HBinaryWriter.gridToBytes(HGrid.EMPTY)).readGrid(); fail(); } catch (ParseException e) { }
+  }
+}
@@ -8,6 +8,10 @@
 package org.projecthaystack.io;
 
 import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+
 import org.projecthaystack.*;
 import org.testng.annotations.Test;
 
@@ -56,4 +60,97 @@ public class JsonTest
     assertEquals(lines[18], "]");
     assertEquals(lines[19], "}");
   }
+
+  @Test
+  public void testReader() throws Exception
+  {
+    HGridBuilder nb = new HGridBuilder();
+    nb.addCol("x");
+    nb.addRow(new HVal[] { HNum.make(1) });
+
+    HGridBuilder gb = new HGridBuilder();
+    gb.meta().add("dis", "Test \"json\"").add("tag");
+    gb.addCol("a").add("dis", "Col A");
+    gb.addCol("b");
+    gb.addRow(new HVal[] { null, HBool.TRUE });
+    gb.addRow(new HVal[] { HMarker.VAL, HBool.FALSE });
+    gb.addRow(new HVal[] { HRemove.VAL, HNA.VAL });
+    gb.addRow(new HVal[] { HStr.make("test"), HStr.make("with:colon\n\u00e9 \\ /") });
+    gb.addRow(new HVal[] { HNum.make(12), HNum.make(72.3, "\u00b0F") });
+    gb.addRow(new HVal[] { HNum.make(Double.NEGATIVE_INFINITY), HNum.make(Double.NaN) });
+    gb.addRow(new HVal[] { HDate.make(2015, 6, 9), HTime.make(1, 2, 3) });
+    gb.addRow(new HVal[] { HDateTime.make(1307377618069L, HTimeZone.make("New_York")), HUri.make("foo.txt") });
+    gb.addRow(new HVal[] { HRef.make("abc"), HRef.make("abc", "A B C") });
+    gb.addRow(new HVal[] { HBin.make("text/plain"), HCoord.make(37.55, -77.45) });
+    gb.addRow(new HVal[] { HSymbol.make("foo"), HNum.make(-1.5e-7, "m") });
+    gb.addRow(new HVal[] { HList.make(new HVal[] { HNum.make(1), HStr.make("two") }),
+                           new HDictBuilder().add("x").add("y", "z").toDict() });
+    gb.addRow(new HVal[] { nb.toGrid(), null });
+    HGrid grid = gb.toGrid();
+
+    String json = HJsonWriter.gridToString(grid);
+    assertEquals(new HJsonReader(json).readGrid(), grid);
+    HGrid g = new HJsonReader(new ByteArrayInputStream(json.getBytes("UTF-8"))).readGrid();
+    assertEquals(g, grid);
+    assertEquals(g.meta().get("ver", false), null);
+    assertEquals(g.col("a").meta().getStr("dis"), "Col A");
+
+    // registered for content negotiation
+    HGridReader r = HGridFormat.find("application/json; charset=utf-8", true)
+      .makeReader(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    assertEquals(r.readGrid(), grid);
+  }
+
+  @Test
+  public void testReaderStream()
+  {
+    final ArrayList rows = new ArrayList();
+    final HGrid[] header = new HGrid[1];
+    String json =
+      "{\"meta\":{\"ver\":\"3.0\"},\"cols\":[{\"name\":\"a\"},{\"name\":\"b\"}],\n" +
+      "\"rows\":[{\"b\":\"n:2\",\"a\":\"n:1\"},{},{\"a\":3}]}";
+    new HJsonReader(json).readGrid(new HGridHandler()
+    {
+      public void onBegin(HGrid h) { header[0] = h; }
+      public void onRow(HRow row)
+      {
+        if (rows.size() > 0) assertSame(row, rows.get(0));
+        rows.add(row);
+        rows.add(row.get("a", false));
+        rows.add(row.get("b", false));
+      }
+    });
+    assertEquals(header[0].numCols(), 2);
+    assertEquals(header[0].numRows(), 0);
+    assertEquals(rows.size(), 9);
+    assertEquals(rows.get(1), HNum.make(1));
+    assertEquals(rows.get(2), HNum.make(2));
+    assertEquals(rows.get(4), null);
+    assertEquals(rows.get(5), null);
+    assertEquals(rows.get(7), HNum.make(3));
+
+    // rows before the header are buffered
+    HGrid g = new HJsonReader("{\"rows\":[{\"a\":\"x\"}], \"cols\":[{\"name\":\"a\"}], \"meta\":{\"ver\":\"3.0\", \"foo\":\"m:\"}}").readGrid();
+    assertTrue(g.meta().has("foo"));
+    assertEquals(g.row(0).getStr("a"), "x");
+  }
+
+  @Test
+  public void testReaderErrors()
+  {
+    String[] bad = {
+      "",
+      "{\"meta\":{\"ver\":\"3.0\"}}",
+      "{\"cols\":[{\"name\":\"a\"}],\"rows\":[{\"c\":1}]}",
+      "{\"cols\":[{\"name\":\"a\"}],\"rows\":[{\"a\":\"n:x\"}]}",
+      "{\"cols\":[{\"name\":\"a\"}],\"rows\":[{\"a\":tru}]}",
+      "{\"cols\":[{\"name\":\"a\"}],\"rows\":[]} x",
+      "{\"cols\":[{\"name\":\"a\"}],\n\"rows\":[{\"a\":\"abc}]}",
+    };
+    for (int i=0; i<bad.length; ++i)
+    {
+      try { new HJsonReader(bad[i]).readGrid(); fail(bad[i]); }
+      catch (ParseException e) { }
+    }
+  }
 }
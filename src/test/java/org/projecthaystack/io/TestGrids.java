@@ -0,0 +1,34 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import org.projecthaystack.*;
+
+/**
+ * TestGrids makes the grids shared by the io tests.
+ */
+final class TestGrids
+{
+  /**
+   * Make a grid with an int column i, a string column s, and a kW
+   * column val which is null every seventh row.
+   */
+  static HGrid makeGrid(int numRows)
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("dis", "parallel");
+    b.addCol("i");
+    b.addCol("s");
+    b.addCol("val").add("unit", "kW");
+    for (int i=0; i<numRows; ++i)
+      b.addRow(new HVal[] { HNum.make(i), HStr.make("s" + i), i % 7 == 0 ? null : HNum.make(i * 0.5, "kW") });
+    return b.toGrid();
+  }
+
+  private TestGrids() {}
+}
@@ -13,10 +13,15 @@ import org.projecthaystack.*;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
 
 
 public class TokenizerTest
@@ -73,6 +78,52 @@ public class TokenizerTest
     verifyToks("3_000.5J/kg_dry", new Object[] {num, n(3000.5d, "J/kg_dry")});
   }
 
+  @Test
+  public void testNumberPrecision()
+  {
+    String[] literals = {
+      "0", "-0", "0.1", "0.30000000000000004", "1.7976931348623157e308", "4.9e-324",
+      "123456789012345", "1234567890123456789", "9007199254740993", "72.3", "-1.5e-22",
+      "3.14159265358979323846", "1e22", "1e23", "0.000001234", "12345.6789e-3",
+    };
+    for (int i=0; i<literals.length; ++i)
+      verifyNum(literals[i], Double.parseDouble(literals[i]));
+
+    Random rand = new Random(42);
+    for (int i=0; i<10000; ++i)
+    {
+      double d = rand.nextDouble() * Math.pow(10, rand.nextInt(30) - 15);
+      if (rand.nextBoolean()) d = -d;
+      verifyNum(Double.toString(d), d);
+      String fixed = String.format(Locale.ROOT, "%." + rand.nextInt(8) + "f", d);
+      verifyNum(fixed, Double.parseDouble(fixed));
+    }
+  }
+
+  private void verifyNum(String literal, double expected)
+  {
+    HaystackTokenizer t = new HaystackTokenizer(new StringReader(literal));
+    assertEquals(t.next(), HaystackToken.num);
+    double actual = ((HNum)t.val).val;
+    assertTrue(Double.doubleToLongBits(actual) == Double.doubleToLongBits(expected) || actual == expected, literal);
+  }
+
+  @Test
+  public void testUnitsShared()
+  {
+    HaystackTokenizer t = new HaystackTokenizer(new StringReader("1kW 2kW 3foo_bar 4foo_bar 5\u00b0F"));
+    t.next(); String kw1 = ((HNum)t.val).unit;
+    t.next(); String kw2 = ((HNum)t.val).unit;
+    t.next(); String foo1 = ((HNum)t.val).unit;
+    t.next(); String foo2 = ((HNum)t.val).unit;
+    t.next(); String degF = ((HNum)t.val).unit;
+    assertEquals(kw1, "kW");
+    assertTrue(kw1 == kw2);
+    assertEquals(foo1, "foo_bar");
+    assertTrue(foo1 == foo2);
+    assertEquals(degF, "\u00b0F");
+  }
+
   @Test
   public void testStrings()
   {
@@ -123,6 +174,27 @@ public class TokenizerTest
 //    verifyToks("2015-01-02T06:13:38.701-08:00 PST8PDT", new Object[] {dt, HDateTime.make(HDate.make(2015,1,2), HTime.make(6,13,38,701), HTimeZone.make("PST8PDT"), tzOffset(-8,0))});
     verifyToks("2010-03-01T23:55:00.013-05:00 GMT+5", new Object[] {dt, HDateTime.make(HDate.make(2010,3,1), HTime.make(23,55,0,13), HTimeZone.make("GMT+5"), tzOffset(-5,0))});
     verifyToks("2010-03-01T23:55:00.013+10:00 GMT-10 ", new Object[] {dt, HDateTime.make(HDate.make(2010,3,1), HTime.make(23,55,0,13), HTimeZone.make("GMT-10"), tzOffset(10,0))});
+    verifyToks("2016-01-13T09:51:33.353123-05:00 New_York", new Object[] {dt, HDateTime.make(HDate.make(2016,1,13), HTime.make(9,51,33,353), ny, tzOffset(-5,0))});
+    verifyToks("2016-01-13T09:51:33.3-05:00 New_York", new Object[] {dt, HDateTime.make(HDate.make(2016,1,13), HTime.make(9,51,33,300), ny, tzOffset(-5,0))});
+    verifyToks("2016-07-01T09:00:00-02:30 St_Johns", new Object[] {dt, HDateTime.make(2016,7,1,9,0,0,HTimeZone.make("St_Johns"),-9000)});
+  }
+
+  @Test
+  public void testDateTimeSharedZone()
+  {
+    HaystackTokenizer t = new HaystackTokenizer(new StringReader(
+      "2016-01-13T09:51:33-05:00 New_York, 2016-01-13T09:52:33-05:00 New_York, 2016-01-13T09:53:33Z UTC"));
+    List vals = new ArrayList();
+    for (HaystackToken tok = t.next(); tok != HaystackToken.eof; tok = t.next())
+      if (tok == HaystackToken.dateTime) vals.add(t.val);
+    assertEquals(vals.size(), 3);
+    HDateTime a = (HDateTime)vals.get(0);
+    HDateTime b = (HDateTime)vals.get(1);
+    HDateTime c = (HDateTime)vals.get(2);
+    assertSame(a.tz, b.tz);
+    assertEquals(b.millis() - a.millis(), 60000L);
+    assertEquals(c.tz, HTimeZone.UTC);
+    assertEquals(c.millis(), 1452678813000L);
   }
 
   @Test
@@ -155,15 +227,66 @@ public class TokenizerTest
       });
   }
 
+  @Test
+  public void testUtf8Bytes() throws Exception
+  {
+    // multi-byte sequences, surrogate pairs, and tokens which span
+    // the tokenizer's internal block boundary when streamed
+    StringBuilder s = new StringBuilder();
+    for (int i=0; i<2000; ++i)
+      s.append("abc_").append(i).append(" \"x\u00b0y\ud83d\ude00z\" @ref-").append(i).append(" 12kWh/ft\u00b2\n");
+    String zinc = s.toString();
+    byte[] utf8 = zinc.getBytes("UTF-8");
+    Object[] expected = readToks(new HaystackTokenizer(new StringReader(zinc)));
+    assertEquals(expected.length, 2000 * 5 * 2);
+    assertEquals(expected[3], HStr.make("x\u00b0y\ud83d\ude00z"));
+    assertEquals(readToks(new HaystackTokenizer(utf8, 0, utf8.length)), expected);
+    assertEquals(readToks(new HaystackTokenizer(new ByteArrayInputStream(utf8))), expected);
+    ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+    direct.put(utf8).flip();
+    assertEquals(readToks(new HaystackTokenizer(direct)), expected);
+  }
+
   private HNum n(long val) { return HNum.make(val); }
   private HNum n(double val) { return HNum.make(val); }
   private HNum n(double val, String unit) { return HNum.make(val, unit); }
   private int tzOffset(int hours, int mins) { return (hours * 3600) + (mins * 60); }
 
   private void verifyToks(String zinc, Object[] toks)
+  {
+    verifyToks(new HaystackTokenizer(new StringReader(zinc)), toks);
+
+    // verify UTF-8 byte input yields identical tokens
+    try
+    {
+      byte[] utf8 = zinc.getBytes("UTF-8");
+      Object[] expected = readToks(new HaystackTokenizer(new StringReader(zinc)));
+      assertEquals(readToks(new HaystackTokenizer(utf8, 0, utf8.length)), expected);
+      assertEquals(readToks(new HaystackTokenizer(ByteBuffer.wrap(utf8))), expected);
+      assertEquals(readToks(new HaystackTokenizer(new ByteArrayInputStream(utf8))), expected);
+    }
+    catch (UnsupportedEncodingException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Object[] readToks(HaystackTokenizer t)
+  {
+    List<Object> acc = new ArrayList<Object>();
+    while (true)
+    {
+      HaystackToken x = t.next();
+      if (x == HaystackToken.eof) break;
+      acc.add(t.tok);
+      acc.add(t.val);
+    }
+    return acc.toArray(new Object[acc.size()]);
+  }
+
+  private void verifyToks(HaystackTokenizer t, Object[] toks)
   {
     List<Object> acc = new ArrayList<Object>();
-    HaystackTokenizer t = new HaystackTokenizer(new StringReader(zinc));
     while (true)
     {
       HaystackToken x = t.next();
@@ -0,0 +1,159 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.io.*;
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class TrioTest
+{
+  @Test
+  public void testRead()
+  {
+    HTrioReader r = new HTrioReader(
+      "// site records\n" +
+      "id: @site \"HQ\"\n" +
+      "dis: Headquarters\n" +
+      "site\n" +
+      "area: 3500ft\u00b2\n" +
+      "geoCity: \"Richmond\"\n" +
+      "\n" +
+      "-----\n" +
+      "id: @ahu\n" +
+      "dis: AHU-1: main\n" +
+      "equip\n" +
+      "siteRef: @site\n" +
+      "doc:\n" +
+      "  line one\n" +
+      "\n" +
+      "    indented two\n" +
+      "installed: 2015-06-01\n" +
+      "points: Zinc:\n" +
+      "  ver:\"3.0\"\n" +
+      "  name,kind\n" +
+      "  \"sat\",\"Number\"\n" +
+      "  \"fan\",\"Bool\"\n" +
+      "---\n" +
+      "---\n" +
+      "dis: last\n");
+
+    HDict a = r.readDict();
+    assertEquals(a.get("id"), HRef.make("site", "HQ"));
+    assertEquals(a.getStr("dis"), "Headquarters");
+    assertEquals(a.get("site"), HMarker.VAL);
+    assertEquals(a.get("area"), HNum.make(3500, "ft\u00b2"));
+    assertEquals(a.getStr("geoCity"), "Richmond");
+    assertEquals(a.size(), 5);
+
+    HDict b = r.readDict();
+    assertEquals(b.getStr("dis"), "AHU-1: main");
+    assertEquals(b.get("equip"), HMarker.VAL);
+    assertEquals(b.getStr("doc"), "line one\n\n  indented two");
+    assertEquals(b.get("installed"), HDate.make(2015, 6, 1));
+    HGrid points = (HGrid)b.get("points");
+    assertEquals(points.numRows(), 2);
+    assertEquals(points.row(1).getStr("name"), "fan");
+
+    assertEquals(r.readDict().getStr("dis"), "last");
+    assertNull(r.readDict());
+  }
+
+  @Test
+  public void testErrors()
+  {
+    try { new HTrioReader("dis: x\n  bad indent\n").readDict(); fail(); }
+    catch (ParseException e) { }
+    try { new HTrioReader("a\nBad Name: 3\n").readDict(); fail(); }
+    catch (ParseException e) { assertTrue(e.getMessage().endsWith("[line 2]"), e.getMessage()); }
+    try { new HTrioReader("g: Zinc:\n  ver:\"3.0\"\n").readDict(); fail(); }
+    catch (ParseException e) { }
+  }
+
+  @Test
+  public void testRoundTrip()
+  {
+    HGridBuilder nested = new HGridBuilder();
+    nested.addCol("x");
+    nested.addRow(new HVal[] { HStr.make("a\nb") });
+
+    HDict[] recs = {
+      new HDictBuilder()
+        .add("id", HRef.make("a", "Alpha"))
+        .add("dis", "Alpha")
+        .add("site")
+        .add("area", 1200, "ft\u00b2")
+        .add("notes", "first\n  second\n\nlast\n")
+        .add("crlf", "a\r\nb")
+        .add("tags", HList.make(new HVal[] { HStr.make("x"), HNum.make(1) }))
+        .add("meta", new HDictBuilder().add("k", "v").toDict())
+        .add("grid", nested.toGrid())
+        .toDict(),
+      new HDictBuilder().add("dis", "Beta").add("on", true).toDict(),
+    };
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HTrioWriter w = new HTrioWriter(out);
+    for (int i=0; i<recs.length; ++i) w.writeDict(recs[i]);
+    w.flush();
+
+    HTrioReader r = new HTrioReader(new ByteArrayInputStream(out.toByteArray()));
+    for (int i=0; i<recs.length; ++i) assertEquals(r.readDict(), recs[i]);
+    assertNull(r.readDict());
+
+    // as a grid format
+    HGrid grid = HGridBuilder.dictsToGrid(recs);
+    HGridFormat trio = HGridFormat.find("text/trio", true);
+    out = new ByteArrayOutputStream();
+    HGridWriter gw = trio.makeWriter(out);
+    gw.beginGrid(grid);
+    for (int i=0; i<grid.numRows(); ++i)
+    {
+      HVal[] cells = new HVal[grid.numCols()];
+      for (int c=0; c<cells.length; ++c) cells[c] = grid.row(i).get(grid.col(c), false);
+      gw.writeRow(cells);
+    }
+    gw.endGrid();
+    gw.flush();
+    HGrid back = trio.makeReader(new ByteArrayInputStream(out.toByteArray())).readGrid();
+    assertEquals(back.numRows(), 2);
+    assertEquals(new HDictBuilder().add(back.row(0)).toDict(), recs[0]);
+    assertEquals(back.row(1).getStr("dis"), "Beta");
+  }
+
+  @Test
+  public void testStream()
+  {
+    // 50k records streamed one at a time in both directions
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HTrioWriter w = new HTrioWriter(out);
+    for (int i=0; i<50000; ++i)
+    {
+      w.writeDict(new HDictBuilder()
+        .add("id", HRef.make("p" + i))
+        .add("dis", "Point " + i)
+        .add("point")
+        .add("curVal", i, "kW")
+        .toDict());
+    }
+    w.close();
+
+    HTrioReader r = new HTrioReader(new ByteArrayInputStream(out.toByteArray()))
+      .setInterner(new HaystackInterner());
+    int n = 0;
+    HDict rec;
+    while ((rec = r.readDict()) != null)
+    {
+      assertEquals(rec.getDouble("curVal"), (double)n);
+      ++n;
+    }
+    assertEquals(n, 50000);
+  }
+}
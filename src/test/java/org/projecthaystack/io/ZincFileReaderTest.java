@@ -0,0 +1,110 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.projecthaystack.io.TestGrids.makeGrid;
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class ZincFileReaderTest
+{
+  @Test
+  public void testRandomAccess() throws Exception
+  {
+    HGrid grid = makeGrid(5000);
+    File f = write(HZincWriter.gridToString(grid) + "\n");
+    HZincFileReader r = new HZincFileReader(f);
+    try
+    {
+      assertEquals(r.numRows(), grid.numRows());
+      assertEquals(r.header().meta(), grid.meta());
+      assertEquals(r.header().numCols(), grid.numCols());
+      assertEquals(r.row(0), grid.row(0));
+      assertEquals(r.row(1234), grid.row(1234));
+      assertEquals(r.row(4999), grid.row(4999));
+      assertEquals(r.rows(10, 20).numRows(), 10);
+      assertEquals(r.rows(10, 20).row(3), grid.row(13));
+      assertEquals(r.readGrid(), grid);
+    }
+    finally
+    {
+      r.close();
+      f.delete();
+    }
+  }
+
+  @Test
+  public void testMultiLineValues() throws Exception
+  {
+    String zinc =
+      "ver:\"3.0\" note:\"line1\nline2\"\n" +
+      "a,b\n" +
+      "\"x\ny\",<<\nver:\"3.0\"\nc\n1\n2\n>>\n" +
+      "`a\\`b`,3\n";
+    HGrid expected = new HZincReader(zinc).readGrid();
+    File f = write(zinc);
+    HZincFileReader r = new HZincFileReader(f);
+    try
+    {
+      assertEquals(r.numRows(), 2);
+      assertEquals(r.header().meta(), expected.meta());
+      assertEquals(r.row(0), expected.row(0));
+      assertEquals(r.row(1), expected.row(1));
+    }
+    finally
+    {
+      r.close();
+      f.delete();
+    }
+  }
+
+  @Test
+  public void testParallel() throws Exception
+  {
+    HGrid grid = makeGrid(20000);
+    File f = write(HZincWriter.gridToString(grid));
+    HZincFileReader r = new HZincFileReader(f);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      final AtomicInteger count = new AtomicInteger();
+      final AtomicInteger sum = new AtomicInteger();
+      r.readGridParallel(new HGridHandler()
+      {
+        public void onRow(HRow row)
+        {
+          count.incrementAndGet();
+          sum.addAndGet(row.getInt("i"));
+        }
+      }, pool);
+      assertEquals(count.get(), 20000);
+      assertEquals(sum.get(), 19999 * 20000 / 2);
+    }
+    finally
+    {
+      pool.shutdown();
+      r.close();
+      f.delete();
+    }
+  }
+
+  private File write(String zinc) throws IOException
+  {
+    File f = File.createTempFile("haystack", ".zinc");
+    OutputStream out = new FileOutputStream(f);
+    out.write(zinc.getBytes("UTF-8"));
+    out.close();
+    return f;
+  }
+}
@@ -9,6 +9,10 @@ package org.projecthaystack.io;
 
 import static org.testng.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
 import org.projecthaystack.*;
 import org.testng.annotations.Test;
 
@@ -40,6 +44,124 @@ public class ZincGridTest extends HValTest
       });
   }
 
+  @Test
+  public void testStreamRows()
+  {
+    String zinc =
+      "ver:\"3.0\" hisStart\n" +
+      "ts tz:\"UTC\",val\n" +
+      "2020-01-01T00:00:00Z,1kW\n" +
+      "2020-01-01T00:15:00Z,N\n" +
+      "2020-01-01T00:30:00Z,[1,2]\n";
+    HGrid expected = new HZincReader(zinc).readGrid();
+
+    final HGrid[] header = new HGrid[1];
+    final HRow[] first = new HRow[1];
+    final ArrayList rows = new ArrayList();
+    final boolean[] ended = new boolean[1];
+    new HZincReader(zinc).readGrid(new HGridHandler()
+    {
+      public void onBegin(HGrid h) { header[0] = h; }
+      public void onRow(HRow row)
+      {
+        if (first[0] == null) first[0] = row;
+        assertSame(row, first[0]);
+        assertSame(row.grid(), header[0]);
+        rows.add(new HVal[] { row.get("ts", false), row.get("val", false) });
+      }
+      public void onEnd() { ended[0] = true; }
+    });
+
+    assertTrue(ended[0]);
+    assertEquals(header[0].meta(), expected.meta());
+    assertEquals(header[0].numRows(), 0);
+    assertEquals(header[0].numCols(), 2);
+    assertEquals(header[0].col(0), expected.col(0));
+    assertEquals(rows.size(), expected.numRows());
+    for (int i=0; i<rows.size(); ++i)
+    {
+      HVal[] cells = (HVal[])rows.get(i);
+      assertEquals(cells[0], expected.row(i).get("ts", false));
+      assertEquals(cells[1], expected.row(i).get("val", false));
+    }
+  }
+
+  @Test
+  public void testReadGridsIncrementally()
+  {
+    String zinc =
+      "ver:\"3.0\"\na\n1\n2\n\n" +
+      "ver:\"3.0\" err dis:\"bad\"\nempty\n\n" +
+      "ver:\"3.0\"\nb\n\"x\"\n\n";
+    HGrid[] all = new HZincReader(zinc).readGrids();
+    assertEquals(all.length, 3);
+
+    // pull one grid at a time
+    HZincReader r = new HZincReader(zinc);
+    assertEquals(r.readNextGrid(), all[0]);
+    assertTrue(r.readNextGrid().isErr());
+    assertEquals(r.readNextGrid(), all[2]);
+    assertNull(r.readNextGrid());
+
+    // grids before a malformed one are returned before it is reached
+    r = new HZincReader("ver:\"3.0\"\na\n1\n\nver:\"3.0\"\nb\n\"x\n");
+    assertEquals(r.readNextGrid().row(0).getInt("a"), 1);
+    try { r.readNextGrid(); fail(); } catch (ParseException e) { }
+
+    // callback per grid
+    final ArrayList events = new ArrayList();
+    new HZincReader(new ByteArrayInputStream(zinc.getBytes())).readGrids(new HGridHandler()
+    {
+      public void onBegin(HGrid h) { events.add("begin " + h.col(0).name()); }
+      public void onRow(HRow row) { events.add("row"); }
+      public void onEnd() { events.add("end"); }
+    });
+    assertEquals(events.toString(), "[begin a, row, row, end, begin empty, end, begin b, row, end]");
+
+    // the handler may stop early
+    events.clear();
+    try
+    {
+      new HZincReader(zinc).readGrids(new HGridHandler()
+      {
+        public void onBegin(HGrid h)
+        {
+          if (h.isErr()) throw new IllegalStateException();
+          events.add("begin");
+        }
+        public void onRow(HRow row) {}
+      });
+      fail();
+    }
+    catch (IllegalStateException e) { }
+    assertEquals(events.size(), 1);
+  }
+
+  @Test
+  public void testWriteUtf8() throws Exception
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.meta().add("dis", "caf\u00e9 \u20ac");
+    b.addCol("s");
+    b.addCol("n");
+    for (int i=0; i<50; ++i)
+      b.addRow(new HVal[] { HStr.make("row " + i + " \u00fcber \ud83d\ude00 \u6f22\u5b57"), HNum.make(i, "\u00b0F") });
+    HGrid grid = b.toGrid();
+    String expected = HZincWriter.gridToString(grid);
+    assertEquals(new HZincReader(expected).readGrid(), grid);
+
+    // small buffers drain in the middle of multi-byte chars
+    for (int size=16; size<40; size+=7)
+    {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      HZincWriter w = new HZincWriter(out, size);
+      w.writeGrid(grid);
+      w.flush();
+      assertEquals(out.toString("UTF-8"), expected);
+      assertEquals(new HZincReader(new ByteArrayInputStream(out.toByteArray())).readGrid(), grid);
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Auto-generated test code - else could you possibly write
 // test code in a crappy language like Java
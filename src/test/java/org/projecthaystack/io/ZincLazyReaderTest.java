@@ -0,0 +1,101 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class ZincLazyReaderTest
+{
+  private static final String zinc =
+    "ver:\"3.0\" dis:\"lazy\"\n" +
+    "id,name,list,dict,nested,misc\n" +
+    "@a \"Alpha\",\"a,b\",[1, 2,3],{x:\"}\" y},<<\nver:\"3.0\"\nc,d\n1,2\n>>,`x,y`\n" +
+    "@b,\"\\\"q\\\",\", , {}, ,5kW\n" +
+    "@c,,,,,\n";
+
+  @Test
+  public void testMatchesEager()
+  {
+    HGrid eager = new HZincReader(zinc).readGrid();
+    HGrid lazy = new HZincLazyReader(zinc).readGrid();
+    assertEquals(lazy.meta(), eager.meta());
+    assertEquals(lazy.numRows(), 3);
+    assertEquals(lazy, eager);
+    assertEquals(lazy.row(0).get("name"), HStr.make("a,b"));
+    assertEquals(lazy.row(1).get("name"), HStr.make("\"q\","));
+    assertEquals(lazy.row(1).get("list", false), null);
+    assertEquals(lazy.row(1).get("misc"), HNum.make(5, "kW"));
+    assertEquals(((HGrid)lazy.row(0).get("nested")).row(0).getInt("d"), 2);
+  }
+
+  @Test
+  public void testOnDemand()
+  {
+    // the bad cell is only reported when touched
+    String bad = "ver:\"3.0\"\na,b,c\n1,%bad%,3\n4,5,6\n";
+    HGrid grid = new HZincLazyReader(bad).readGrid();
+    HRow row = grid.row(0);
+    assertEquals(row.getInt("a"), 1);
+    assertEquals(row.getInt("c"), 3);
+    assertEquals(grid.row(1).getInt("b"), 5);
+    try { row.get("b"); fail(); } catch (ParseException e) { assertTrue(e.getMessage().contains("line 3"), e.getMessage()); }
+
+    // decoded cells are cached
+    HGrid g = new HZincLazyReader(zinc).readGrid();
+    assertSame(g.row(0).get("name"), g.row(0).get("name"));
+
+    // iteration decodes the remaining cells and skips nulls
+    Iterator it = g.row(2).iterator();
+    Map.Entry e = (Map.Entry)it.next();
+    assertEquals(e.getKey(), "id");
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testCellCount()
+  {
+    HGrid grid = new HZincLazyReader("ver:\"3.0\"\na,b\n1,2,3\n1\n").readGrid();
+    try { grid.row(0).get("a"); fail(); } catch (ParseException e) { }
+    try { grid.row(1).get("a"); fail(); } catch (ParseException e) { }
+  }
+
+  @Test
+  public void testTrailing()
+  {
+    assertEquals(new HZincLazyReader("ver:\"3.0\"\na\n1\n\n \r\n").readGrid().numRows(), 1);
+    try { new HZincLazyReader("ver:\"3.0\"\na\n1\n\ngarbage").readGrid(); fail(); }
+    catch (ParseException e) { }
+  }
+
+  @Test
+  public void testBuilder()
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("a");
+    b.addCol("b");
+    final int[] calls = new int[1];
+    b.addLazyRow(new HRow.Decoder()
+    {
+      public HVal decode(int col) { calls[0]++; return col == 0 ? HNum.make(7) : null; }
+    });
+    HRow row = b.toGrid().row(0);
+    assertEquals(calls[0], 0);
+    assertEquals(row.get("a"), HNum.make(7));
+    assertEquals(row.get("a"), HNum.make(7));
+    assertEquals(calls[0], 1);
+    assertEquals(row.get("b", false), null);
+    assertEquals(row.get("b", false), null);
+    assertEquals(calls[0], 2);
+  }
+}
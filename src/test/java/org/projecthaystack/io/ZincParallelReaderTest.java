@@ -0,0 +1,88 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.projecthaystack.io.TestGrids.makeGrid;
+import static org.testng.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class ZincParallelReaderTest
+{
+  @Test
+  public void testParallel() throws Exception
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      HGrid grid = makeGrid(20000);
+      byte[] bytes = HZincWriter.gridToString(grid).getBytes("UTF-8");
+      HGrid parsed = new HZincParallelReader(bytes, pool).readGrid();
+      assertEquals(parsed.numRows(), 20000);
+      assertEquals(parsed.meta(), grid.meta());
+      assertEquals(parsed, grid);
+      assertEquals(parsed.row(12345).getInt("i"), 12345);
+
+      // buffer position is honored and left untouched
+      ByteBuffer buf = ByteBuffer.allocate(bytes.length + 4);
+      buf.put("junk".getBytes("UTF-8")).put(bytes).flip();
+      buf.position(4);
+      assertEquals(new HZincParallelReader(buf, pool).readGrid(), grid);
+      assertEquals(buf.position(), 4);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testFallback() throws Exception
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      // nested grids and multi-line strings are parsed sequentially
+      String zinc = HZincWriter.gridToString(makeGrid(3000));
+      String nested = zinc.replace("\n7,\"s7\"", "\n7,<<\nver:\"3.0\"\nx\n1\n>>");
+      HGrid grid = new HZincParallelReader(nested.getBytes("UTF-8"), pool).readGrid();
+      assertEquals(grid, new HZincReader(nested).readGrid());
+      assertEquals(((HGrid)grid.row(7).get("s")).row(0).getInt("x"), 1);
+
+      zinc = zinc.replace("\"s5\"", "\"s\n5\"");
+      assertEquals(new HZincParallelReader(zinc.getBytes("UTF-8"), pool).readGrid(), new HZincReader(zinc).readGrid());
+
+      // small grids
+      grid = makeGrid(10);
+      assertEquals(new HZincParallelReader(HZincWriter.gridToString(grid).getBytes("UTF-8"), pool).readGrid(), grid);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expectedExceptions = ParseException.class)
+  public void testBadRow() throws Exception
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      String zinc = HZincWriter.gridToString(makeGrid(5000)).replace("\n4000,", "\n4000,,,");
+      new HZincParallelReader(zinc.getBytes("UTF-8"), pool).readGrid();
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.projecthaystack.io.TestGrids.makeGrid;
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.concurrent.ForkJoinPool;
+
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class ZincParallelWriterTest
+{
+  @Test
+  public void testSameAsSerial() throws Exception
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      HGrid grid = makeGrid(20000);
+      String expected = HZincWriter.gridToString(grid);
+
+      // output stream
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      HZincParallelWriter w = new HZincParallelWriter(out, pool);
+      w.writeGrid(grid);
+      assertEquals(out.toString("UTF-8"), expected);
+
+      // channel without gathering writes
+      out.reset();
+      new HZincParallelWriter(Channels.newChannel(out), pool).writeGrid(grid);
+      assertEquals(out.toString("UTF-8"), expected);
+
+      // version 2
+      out.reset();
+      w = new HZincParallelWriter(out, pool);
+      w.version = 2;
+      w.writeGrid(grid);
+      assertEquals(out.toString("UTF-8"), HZincWriter.gridToString(grid, 2));
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testGathering() throws Exception
+  {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      // pipe sink is a gathering channel which accepts partial writes
+      final Pipe pipe = Pipe.open();
+      final HGrid grid = makeGrid(50000);
+      final Throwable[] err = new Throwable[1];
+      Thread t = new Thread()
+      {
+        public void run()
+        {
+          try
+          {
+            HZincParallelWriter w = new HZincParallelWriter(pipe.sink(), pool);
+            w.separateGrids = true;
+            w.writeGrid(grid);
+            w.writeGrid(makeGrid(3));
+            w.close();
+          }
+          catch (Throwable e) { err[0] = e; }
+        }
+      };
+      t.start();
+      HGrid[] grids = new HZincReader(Channels.newInputStream(pipe.source())).readGrids();
+      t.join();
+      assertNull(err[0]);
+      assertEquals(grids.length, 2);
+      assertEquals(grids[0], grid);
+      assertEquals(grids[1].numRows(), 3);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testMultipleGrids() throws Exception
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      // small grids and rows streamed with beginGrid are written serially
+      HGrid big = makeGrid(5000);
+      HGrid small = makeGrid(10);
+      for (int i=0; i<2; ++i)
+      {
+        boolean separate = i == 1;
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        HZincWriter zinc = new HZincWriter(expected);
+        zinc.separateGrids = separate;
+        zinc.writeGrid(small);
+        zinc.writeGrid(big);
+        zinc.beginGrid(small);
+        zinc.writeRow(new HVal[] { HNum.make(1), HStr.make("x"), null });
+        zinc.endGrid();
+        zinc.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HZincParallelWriter w = new HZincParallelWriter(out, pool);
+        w.separateGrids = separate;
+        w.writeGrid(small);
+        w.writeGrid(big);
+        w.beginGrid(small);
+        w.writeRow(new HVal[] { HNum.make(1), HStr.make("x"), null });
+        w.endGrid();
+        w.flush();
+        assertEquals(out.toString("UTF-8"), expected.toString("UTF-8"));
+      }
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.io;
+
+import static org.testng.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import org.projecthaystack.*;
+import org.testng.annotations.Test;
+
+public class ZincPushParserTest
+{
+  /** Handler which rebuilds each grid it is sent */
+  static class Collector extends HGridHandler
+  {
+    final ArrayList grids = new ArrayList();
+    HGridBuilder gb;
+    HGrid header;
+
+    public void onBegin(HGrid header)
+    {
+      this.header = header;
+      gb = new HGridBuilder();
+      gb.meta().add(header.meta());
+      for (int i=0; i<header.numCols(); ++i)
+        gb.addCol(header.col(i).name()).add(header.col(i).meta());
+    }
+
+    public void onRow(HRow row)
+    {
+      HVal[] cells = new HVal[header.numCols()];
+      for (int i=0; i<cells.length; ++i) cells[i] = row.get(header.col(i), false);
+      gb.addRow(cells);
+    }
+
+    public void onEnd() { grids.add(gb.toGrid()); }
+  }
+
+  static final String ZINC =
+    "ver:\"3.0\" dis:\"Site \u00e9t\u00e9\" tz:\"New_York\"\n" +
+    "id,dis,area unit:\"ft\u00b2\",nested,uri\n" +
+    "@a \"Alpha\",\"a,\\\"b\\\"\\nc\",1200ft\u00b2,,`http://x/`\n" +
+    "@b,\"\u4e2d\u6587\",N,<<\nver:\"3.0\"\nx,y\n1,\"two\n lines\"\n\n>>,`a\\`b`\n" +
+    "@c,,2.5,,\r\n" +
+    "\n" +
+    "ver:\"3.0\" err dis:\"boom\"\n" +
+    "empty\n" +
+    "\n" +
+    "ver:\"2.0\"\n" +
+    "val\n" +
+    "T\n" +
+    "F";
+
+  private static byte[] utf8(String s)
+  {
+    try { return s.getBytes("UTF-8"); } catch (Exception e) { throw new RuntimeException(e); }
+  }
+
+  @Test
+  public void testFragments()
+  {
+    HGrid[] expected = new HZincReader(ZINC).readGrids();
+    assertEquals(expected.length, 3);
+    byte[] bytes = utf8(ZINC);
+
+    // every fragment size, including splits inside multi-byte chars
+    for (int frag=1; frag<=bytes.length; frag = frag < 40 ? frag + 1 : frag * 2)
+    {
+      Collector c = new Collector();
+      HZincPushParser p = new HZincPushParser(c);
+      for (int i=0; i<bytes.length; i+=frag)
+      {
+        ByteBuffer buf = ByteBuffer.wrap(bytes, i, Math.min(frag, bytes.length - i));
+        p.feed(buf);
+        assertFalse(buf.hasRemaining());
+      }
+      assertTrue(p.inGrid());
+      p.finish();
+      assertFalse(p.inGrid());
+      assertEquals(c.grids.size(), 3, "frag " + frag);
+      for (int i=0; i<3; ++i) assertEquals(c.grids.get(i), expected[i], "frag " + frag);
+    }
+  }
+
+  @Test
+  public void testEvents()
+  {
+    final ArrayList events = new ArrayList();
+    HZincPushParser p = new HZincPushParser(new HGridHandler()
+    {
+      public void onBegin(HGrid h) { events.add("begin " + h.meta().getStr("dis")); }
+      public void onRow(HRow row) { events.add("row " + row.getInt("a")); }
+      public void onEnd() { events.add("end"); }
+    });
+
+    // events are sent as soon as each line is complete
+    byte[] b = utf8("ver:\"3.0\" dis:\"x\"\na\n1\n2\n\n");
+    p.feed(b, 0, 18);
+    assertEquals(events.size(), 0);
+    p.feed(b, 18, 1);
+    assertEquals(events.size(), 0);
+    p.feed(b, 19, 1);
+    assertEquals(events.toString(), "[begin x]");
+    p.feed(b, 20, 3);
+    assertEquals(events.toString(), "[begin x, row 1]");
+    p.feed(b, 23, b.length - 23);
+    assertEquals(events.toString(), "[begin x, row 1, row 2, end]");
+    p.finish();
+    assertEquals(events.size(), 4);
+    try { p.feed(b, 0, 1); fail(); } catch (IllegalStateException e) { }
+  }
+
+  @Test
+  public void testErrors()
+  {
+    Collector c = new Collector();
+    HZincPushParser p = new HZincPushParser(c);
+    p.feed(utf8("ver:\"3.0\"\na,b\n1,2\n"), 0, 18);
+    try { p.feed(ByteBuffer.wrap(utf8("1,2,3\n"))); fail(); }
+    catch (ParseException e) { assertTrue(e.getMessage().endsWith("[line 4]"), e.getMessage()); }
+
+    // end of input inside a header or string
+    p = new HZincPushParser(c);
+    p.feed(ByteBuffer.wrap(utf8("ver:\"3.0\"\n")));
+    try { p.finish(); fail(); } catch (ParseException e) { }
+    p = new HZincPushParser(c);
+    p.feed(ByteBuffer.wrap(utf8("ver:\"3.0\"\na\n\"open")));
+    try { p.finish(); fail(); } catch (ParseException e) { }
+
+    // line limit
+    p = new HZincPushParser(c);
+    p.maxLineSize = 64;
+    p.feed(ByteBuffer.wrap(utf8("ver:\"3.0\"\na\n")));
+    try
+    {
+      for (int i=0; i<10; ++i) p.feed(ByteBuffer.wrap(utf8("\"0123456789")));
+      fail();
+    }
+    catch (ParseException e) { }
+  }
+}
@@ -0,0 +1,169 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.server;
+
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.zip.*;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.projecthaystack.*;
+import org.projecthaystack.io.HGridWriter;
+import org.testng.annotations.Test;
+
+public class ContentEncodingTest
+{
+  /** Response which records its headers and body */
+  static class FakeResponse implements InvocationHandler
+  {
+    final HashMap headers = new HashMap();
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    final ServletOutputStream out = new ServletOutputStream()
+    {
+      public void write(int b) { body.write(b); }
+      public boolean isReady() { return true; }
+      public void setWriteListener(WriteListener l) {}
+    };
+
+    HttpServletResponse proxy()
+    {
+      return (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class[] { HttpServletResponse.class }, this);
+    }
+
+    public Object invoke(Object proxy, Method m, Object[] args)
+    {
+      if (m.getName().equals("getOutputStream")) return out;
+      if (m.getName().equals("setHeader") || m.getName().equals("addHeader")) headers.put(args[0], args[1]);
+      return null;
+    }
+  }
+
+  private static byte[] read(InputStream in) throws IOException
+  {
+    ByteArrayOutputStream acc = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    int n;
+    while ((n = in.read(buf)) > 0) acc.write(buf, 0, n);
+    return acc.toByteArray();
+  }
+
+  @Test
+  public void testNegotiate()
+  {
+    assertEquals(ContentEncoding.negotiate(null), null);
+    assertEquals(ContentEncoding.negotiate("identity"), null);
+    assertEquals(ContentEncoding.negotiate("gzip, deflate"), "gzip");
+    assertEquals(ContentEncoding.negotiate("deflate, GZIP"), "gzip");
+    assertEquals(ContentEncoding.negotiate("deflate"), "deflate");
+    assertEquals(ContentEncoding.negotiate("gzip;q=0, deflate;q=0.5"), "deflate");
+    assertEquals(ContentEncoding.negotiate("gzip; q=0.0"), null);
+    assertEquals(ContentEncoding.negotiate("*"), "gzip");
+  }
+
+  @Test
+  public void testDecode() throws IOException
+  {
+    byte[] data = "ver:\"3.0\"\nval\n1\n2\n".getBytes("UTF-8");
+    ByteArrayOutputStream gz = new ByteArrayOutputStream();
+    GZIPOutputStream gout = new GZIPOutputStream(gz);
+    gout.write(data);
+    gout.close();
+    ByteArrayOutputStream df = new ByteArrayOutputStream();
+    DeflaterOutputStream dout = new DeflaterOutputStream(df);
+    dout.write(data);
+    dout.close();
+
+    assertEquals(read(ContentEncoding.decode(new ByteArrayInputStream(data), null)), data);
+    assertEquals(read(ContentEncoding.decode(new ByteArrayInputStream(data), "identity")), data);
+    assertEquals(read(ContentEncoding.decode(new ByteArrayInputStream(gz.toByteArray()), "gzip")), data);
+    assertEquals(read(ContentEncoding.decode(new ByteArrayInputStream(df.toByteArray()), " Deflate")), data);
+    assertNull(ContentEncoding.decode(new ByteArrayInputStream(data), "br"));
+  }
+
+  @Test
+  public void testOutput() throws IOException
+  {
+    StringBuilder s = new StringBuilder();
+    for (int i=0; i<5000; ++i) s.append("2015-01-01T00:00:00-05:00 New_York,").append(i % 10).append("kW\n");
+    byte[] big = s.toString().getBytes("UTF-8");
+
+    // above the threshold is compressed
+    FakeResponse res = new FakeResponse();
+    ContentEncoding.Output out = new ContentEncoding.Output(res.proxy(), "gzip", 1024);
+    for (int i=0; i<big.length; i+=100) out.write(big, i, Math.min(100, big.length - i));
+    out.flush();
+    out.finish();
+    assertEquals(res.headers.get("Content-Encoding"), "gzip");
+    assertTrue(res.body.size() * 8 < big.length);
+    assertEquals(read(new GZIPInputStream(new ByteArrayInputStream(res.body.toByteArray()))), big);
+
+    // below the threshold is sent as is, even after a flush
+    res = new FakeResponse();
+    out = new ContentEncoding.Output(res.proxy(), "deflate", 1024);
+    out.write(big, 0, 1000);
+    out.flush();
+    assertEquals(res.body.size(), 0);
+    out.write('x');
+    out.finish();
+    assertNull(res.headers.get("Content-Encoding"));
+    assertEquals(res.body.size(), 1001);
+
+    res = new FakeResponse();
+    out = new ContentEncoding.Output(res.proxy(), "deflate", 0);
+    out.write(big);
+    out.finish();
+    assertEquals(res.headers.get("Content-Encoding"), "deflate");
+    assertEquals(read(new InflaterInputStream(new ByteArrayInputStream(res.body.toByteArray()))), big);
+  }
+
+  @Test
+  public void testAbort() throws Exception
+  {
+    HOp op = new HOp()
+    {
+      public String name() { return "abort"; }
+      public String summary() { return "Abort"; }
+      public void onService(HServer db, HGrid req, HGridWriter out)
+      {
+        HGridBuilder b = new HGridBuilder();
+        b.addCol("val");
+        out.beginGrid(b.toGrid());
+        for (int i=0; i<5000; ++i) out.writeRow(new HVal[] { HNum.make(i) });
+        throw new IllegalStateException("abort");
+      }
+    };
+    HttpServletRequest req = (HttpServletRequest)Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class[] { HttpServletRequest.class }, new InvocationHandler()
+      {
+        public Object invoke(Object proxy, Method m, Object[] args)
+        {
+          if (m.getName().equals("getMethod")) return "GET";
+          if (m.getName().equals("getHeader") && "Accept".equals(args[0])) return "text/zinc";
+          if (m.getName().equals("getHeader") && "Accept-Encoding".equals(args[0])) return "gzip";
+          return null;
+        }
+      });
+
+    // an error after the grid has begun leaves the gzip stream unfinished
+    FakeResponse res = new FakeResponse();
+    try { op.onService(new TestDatabase(), req, res.proxy()); fail(); }
+    catch (IllegalStateException e) { }
+    assertEquals(res.headers.get("Content-Encoding"), "gzip");
+    try { read(new GZIPInputStream(new ByteArrayInputStream(res.body.toByteArray()))); fail(); }
+    catch (EOFException e) { }
+  }
+}
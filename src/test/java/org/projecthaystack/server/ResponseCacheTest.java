@@ -0,0 +1,200 @@
+//
+// Copyright (c) 2026, Brian Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   16 Oct 2026  Creation
+//
+package org.projecthaystack.server;
+
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.projecthaystack.*;
+import org.projecthaystack.io.*;
+import org.testng.annotations.Test;
+
+public class ResponseCacheTest
+{
+  static HGrid grid(int rows)
+  {
+    HGridBuilder b = new HGridBuilder();
+    b.addCol("id");
+    b.addCol("dis");
+    for (int i=0; i<rows; ++i)
+      b.addRow(new HVal[] { HRef.make("r" + i), HStr.make("Record " + i) });
+    return b.toGrid();
+  }
+
+  @Test
+  public void testEncode()
+  {
+    HGridFormat zinc = HGridFormat.find("text/zinc", true);
+    HGridFormat json = HGridFormat.find("application/json", true);
+    HResponseCache cache = new HResponseCache(1024 * 1024, false);
+    HGrid g = grid(10);
+
+    byte[] z3 = cache.encode(g, zinc, 3);
+    assertSame(cache.encode(g, zinc, 3), z3);
+    assertEquals(new String(z3), HZincWriter.gridToString(g));
+    assertTrue(new String(cache.encode(g, zinc, 2)).startsWith("ver:\"2.0\""));
+    assertNotSame(cache.encode(g, json, 3), z3);
+    assertEquals(cache.count(), 3);
+
+    // keyed on identity, not equality
+    assertNotSame(cache.encode(grid(10), zinc, 3), z3);
+    assertEquals(cache.count(), 4);
+    cache.clear();
+    assertEquals(cache.count(), 0);
+    assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void testLookup()
+  {
+    HGridFormat zinc = HGridFormat.find("text/zinc", true);
+    HResponseCache cache = new HResponseCache(1024 * 1024, false);
+    HGrid g = grid(5);
+
+    // only kept once a grid is written a second time
+    assertNull(cache.lookup(g, zinc, 3));
+    HResponseCache.Entry e = cache.lookup(g, zinc, 3);
+    assertNotNull(e);
+    assertSame(cache.lookup(g, zinc, 3), e);
+    assertEquals(cache.count(), 1);
+    assertEquals(cache.size(), e.bytes.length);
+  }
+
+  @Test
+  public void testBudget()
+  {
+    HGridFormat zinc = HGridFormat.find("text/zinc", true);
+    HGrid[] grids = new HGrid[9];
+    for (int i=0; i<grids.length; ++i) grids[i] = grid(20);
+    int n = HZincWriter.gridToString(grids[0]).length();
+    HResponseCache cache = new HResponseCache(n * 8, false);
+
+    byte[][] bytes = new byte[8][];
+    for (int i=0; i<8; ++i) bytes[i] = cache.encode(grids[i], zinc, 3);
+    assertEquals(cache.size(), n * 8);
+
+    // least recently used is evicted
+    assertSame(cache.encode(grids[0], zinc, 3), bytes[0]);
+    cache.encode(grids[8], zinc, 3);
+    assertEquals(cache.count(), 8);
+    assertEquals(cache.size(), n * 8);
+    assertSame(cache.encode(grids[0], zinc, 3), bytes[0]);
+    assertNotSame(cache.encode(grids[1], zinc, 3), bytes[1]);
+
+    // too large to keep
+    cache.clear();
+    cache.encode(grid(200), zinc, 3);
+    assertEquals(cache.count(), 0);
+  }
+
+  @Test
+  public void testGzip() throws IOException
+  {
+    HGridFormat zinc = HGridFormat.find("text/zinc", true);
+    HResponseCache cache = new HResponseCache(1024 * 1024, true);
+    HGrid g = grid(100);
+    cache.lookup(g, zinc, 3);
+    HResponseCache.Entry e = cache.lookup(g, zinc, 3);
+    byte[] gz = cache.gzipped(e);
+    assertSame(cache.gzipped(e), gz);
+    assertEquals(cache.size(), e.bytes.length + gz.length);
+
+    GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz));
+    ByteArrayOutputStream acc = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) >= 0) acc.write(b);
+    assertEquals(acc.toByteArray(), e.bytes);
+
+    assertNull(new HResponseCache(1024, false).gzipped(e));
+  }
+
+  @Test
+  public void testWeak() throws Exception
+  {
+    HGridFormat zinc = HGridFormat.find("text/zinc", true);
+    HResponseCache cache = new HResponseCache(1024 * 1024, false);
+    cache.encode(grid(10), zinc, 3);
+    for (int i=0; i<50 && cache.count() > 0; ++i)
+    {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(cache.count(), 0);
+    assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void testOp() throws Exception
+  {
+    TestDatabase db = new TestDatabase();
+    HResponseCache cache = db.responseCache();
+    cache.clear();
+
+    // the ops grid is reused, so the second response comes from the cache
+    byte[] first = null;
+    for (int i=0; i<3; ++i)
+    {
+      ContentEncodingTest.FakeResponse res = new ContentEncodingTest.FakeResponse();
+      HStdOps.ops.onService(db, request(), res.proxy());
+      byte[] body = res.body.toByteArray();
+      if (first == null) first = body;
+      else assertEquals(body, first);
+      assertEquals(cache.count(), i == 0 ? 0 : 1);
+    }
+    assertEquals(new HZincReader(new String(first, "UTF-8")).readGrid().numRows(), db.ops().length);
+  }
+
+  @Test
+  public void testMultipleGrids() throws Exception
+  {
+    TestDatabase db = new TestDatabase();
+    db.responseCache().clear();
+    final HGrid grid = grid(3);
+    HOp op = new HOp()
+    {
+      public String name() { return "twice"; }
+      public String summary() { return "Twice"; }
+      public void onService(HServer db, HGrid req, HGridWriter out)
+      {
+        out.writeGrid(grid);
+        out.writeGrid(grid);
+      }
+    };
+
+    // a cached first grid must still be followed by a separated second one
+    for (int i=0; i<3; ++i)
+    {
+      ContentEncodingTest.FakeResponse res = new ContentEncodingTest.FakeResponse();
+      op.onService(db, request(), res.proxy());
+      HGrid[] grids = new HZincReader(new String(res.body.toByteArray(), "UTF-8")).readGrids();
+      assertEquals(grids.length, 2);
+      assertEquals(grids[1], grid);
+    }
+    assertEquals(db.responseCache().count(), 1);
+  }
+
+  private static HttpServletRequest request()
+  {
+    return (HttpServletRequest)Proxy.newProxyInstance(ResponseCacheTest.class.getClassLoader(),
+      new Class[] { HttpServletRequest.class }, new InvocationHandler()
+      {
+        public Object invoke(Object proxy, Method m, Object[] args)
+        {
+          if (m.getName().equals("getMethod")) return "GET";
+          if (m.getName().equals("getHeader") && "Accept".equals(args[0])) return "text/zinc";
+          return null;
+        }
+      });
+  }
+}